@@ -0,0 +1,35 @@
+package assignment.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of {@code benchmarks.jar}. It takes the usual JMH command line and always adds
+ * the allocation profiler ({@code -prof gc}), so every result reports the bytes allocated per
+ * operation next to its time.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+        || options.shouldListProfilers() || options.shouldListResultFormats()) {
+      // informational commands are answered by the JMH main
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    try {
+      new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    } catch (RunnerException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package assignment.benchmark;
+
+import assignment.algorithm.ContractionHierarchy;
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shortest path queries in a contraction hierarchy against Dijkstra on the same map. The hierarchy
+ * is built once per trial, which takes minutes for the larger maps; random maps are left out, they
+ * have no hierarchy to exploit.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ContractionHierarchyBenchmark}, for example with
+ * {@code -p stars=100000} for larger maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ContractionHierarchyBenchmark {
+
+  @Param({"grid", "scaleFree"})
+  String shape;
+
+  @Param({"10000"})
+  int stars;
+
+  PathFinder dijkstra;
+  PathFinder hierarchy;
+  Random random;
+  Star source;
+  Star target;
+
+  @Setup(Level.Trial)
+  public void createHierarchy() {
+    CompiledStarGraph graph = new CompiledStarGraph(
+        GraphGenerator.generate(shape, GraphGenerator.stars(stars), 4, 100, 42));
+    dijkstra = new PathFinder(graph);
+    hierarchy = new PathFinder(ContractionHierarchy.build(graph));
+    random = new Random(7);
+  }
+
+  @Setup(Level.Invocation)
+  public void pickQuery() {
+    CompiledStarGraph graph = dijkstra.getGraph();
+    source = graph.star(random.nextInt(graph.nodeCount()));
+    target = graph.star(random.nextInt(graph.nodeCount()));
+  }
+
+  @Benchmark
+  public Route dijkstra() {
+    return dijkstra.findShortestPath(source, target);
+  }
+
+  @Benchmark
+  public Route hierarchy() {
+    return hierarchy.findShortestPath(source, target);
+  }
+}
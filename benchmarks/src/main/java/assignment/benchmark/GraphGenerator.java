@@ -0,0 +1,127 @@
+package assignment.benchmark;
+
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ImmutableValueGraph;
+import com.google.common.graph.ValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.Random;
+
+/**
+ * Builds synthetic star maps for the benchmarks. The graphs are seeded, so every fork of a
+ * benchmark sees the same map.
+ */
+public final class GraphGenerator {
+
+  private GraphGenerator() {
+
+  }
+
+  public static Star star(int index) {
+    return Star.builder().id("S" + index).name("Star " + index).build();
+  }
+
+  public static Star[] stars(int nodes) {
+    Star[] stars = new Star[nodes];
+    for (int i = 0; i < nodes; i++) {
+      stars[i] = star(i);
+    }
+    return stars;
+  }
+
+  /**
+   * Every star gets {@code degree} highways to uniformly chosen stars with travel times in
+   * {@code [1, maxWeight]}. A ring through all stars keeps the map strongly connected.
+   */
+  public static ValueGraph<Star, Integer> random(Star[] stars, int degree, int maxWeight,
+      long seed) {
+    Random random = new Random(seed);
+    int nodes = stars.length;
+    ImmutableValueGraph.Builder<Star, Integer> builder = ValueGraphBuilder.directed()
+        .expectedNodeCount(nodes).<Star, Integer>immutable();
+    for (int i = 0; i < nodes; i++) {
+      builder.putEdgeValue(stars[i], stars[(i + 1) % nodes], 1 + random.nextInt(maxWeight));
+      for (int j = 1; j < degree; j++) {
+        int target = random.nextInt(nodes);
+        if (target != i) {
+          builder.putEdgeValue(stars[i], stars[target], 1 + random.nextInt(maxWeight));
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * A {@code side x side} grid with highways in both directions between neighbouring stars, the
+   * shape of a road map where long routes cross many stars.
+   */
+  public static ValueGraph<Star, Integer> grid(Star[] stars, int side, int maxWeight, long seed) {
+    Random random = new Random(seed);
+    ImmutableValueGraph.Builder<Star, Integer> builder = ValueGraphBuilder.directed()
+        .expectedNodeCount(side * side).<Star, Integer>immutable();
+    for (int row = 0; row < side; row++) {
+      for (int column = 0; column < side; column++) {
+        Star star = stars[row * side + column];
+        builder.addNode(star);
+        if (column + 1 < side) {
+          Star right = stars[row * side + column + 1];
+          builder.putEdgeValue(star, right, 1 + random.nextInt(maxWeight));
+          builder.putEdgeValue(right, star, 1 + random.nextInt(maxWeight));
+        }
+        if (row + 1 < side) {
+          Star down = stars[(row + 1) * side + column];
+          builder.putEdgeValue(star, down, 1 + random.nextInt(maxWeight));
+          builder.putEdgeValue(down, star, 1 + random.nextInt(maxWeight));
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * A preferential attachment (Barabási–Albert) map: every new star is linked in both directions
+   * with {@code degree} stars chosen proportionally to their degree, so a few hub stars carry most
+   * of the highways.
+   */
+  public static ValueGraph<Star, Integer> scaleFree(Star[] stars, int degree, int maxWeight,
+      long seed) {
+    Random random = new Random(seed);
+    int nodes = stars.length;
+    ImmutableValueGraph.Builder<Star, Integer> builder = ValueGraphBuilder.directed()
+        .expectedNodeCount(nodes).<Star, Integer>immutable();
+    // every star appears once per highway end, sampling it picks a star by its degree
+    int[] ends = new int[2 * nodes * Math.max(1, degree) + 2];
+    int endCount = 0;
+    builder.addNode(stars[0]);
+    ends[endCount++] = 0;
+    for (int i = 1; i < nodes; i++) {
+      builder.addNode(stars[i]);
+      int links = Math.min(i, Math.max(1, degree));
+      for (int j = 0; j < links; j++) {
+        int target = ends[random.nextInt(endCount)];
+        builder.putEdgeValue(stars[i], stars[target], 1 + random.nextInt(maxWeight));
+        builder.putEdgeValue(stars[target], stars[i], 1 + random.nextInt(maxWeight));
+        ends[endCount++] = target;
+      }
+      ends[endCount++] = i;
+    }
+    return builder.build();
+  }
+
+  /**
+   * @param shape {@code random}, {@code grid} (using the largest square number of stars) or
+   *              {@code scaleFree}
+   */
+  public static ValueGraph<Star, Integer> generate(String shape, Star[] stars, int degree,
+      int maxWeight, long seed) {
+    switch (shape) {
+      case "random":
+        return random(stars, degree, maxWeight, seed);
+      case "grid":
+        return grid(stars, (int) Math.sqrt(stars.length), maxWeight, seed);
+      case "scaleFree":
+        return scaleFree(stars, degree, maxWeight, seed);
+      default:
+        throw new IllegalArgumentException("unknown graph shape " + shape);
+    }
+  }
+}
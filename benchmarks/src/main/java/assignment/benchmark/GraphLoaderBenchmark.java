@@ -0,0 +1,130 @@
+package assignment.benchmark;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.io.BinaryGraphFormat;
+import assignment.algorithm.io.EdgeList;
+import assignment.algorithm.io.EdgeListFormat;
+import assignment.algorithm.io.StarInterner;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading throughput of the star map formats. The {@code edges} counter is reported in edges per
+ * second. {@code text} and {@code binary} load the same edges, the binary file is converted from
+ * the text file; the text format only has one character ids, so that map has few stars.
+ * {@code binaryLargeMap} loads a map with a star for every eight edges, and {@code valueGraph} is
+ * the baseline which builds a Guava graph of it and compiles it, as the code did before the
+ * loaders built the compiled form directly.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar GraphLoaderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class GraphLoaderBenchmark {
+
+  private static final String IDS =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+  @Param({"100000", "1000000"})
+  int edges;
+
+  Path textFile;
+  Path binaryFile;
+  Path largeMapFile;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class LoadedEdges {
+
+    public long edges;
+  }
+
+  @Setup(Level.Trial)
+  public void writeFiles() throws IOException {
+    // the text format has one character ids, so its graph is small and dense
+    Random random = new Random(42);
+    textFile = Files.createTempFile("stars", ".txt");
+    try (Writer writer = Files.newBufferedWriter(textFile, StandardCharsets.UTF_8)) {
+      for (int edge = 0; edge < edges; edge++) {
+        writer.write(IDS.charAt(random.nextInt(IDS.length())));
+        writer.write(IDS.charAt(random.nextInt(IDS.length())));
+        writer.write(Integer.toString(1 + random.nextInt(100)));
+        writer.write(", ");
+      }
+    }
+    binaryFile = Files.createTempFile("stars", ".bin");
+    StarInterner stars = new StarInterner();
+    try (Reader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+      BinaryGraphFormat.write(EdgeListFormat.read(reader, stars), stars, binaryFile);
+    }
+    largeMapFile = Files.createTempFile("stars", ".bin");
+    int nodes = edges / 8;
+    BinaryGraphFormat.write(new CompiledStarGraph(
+        GraphGenerator.random(GraphGenerator.stars(nodes), 8, 100, 42)), largeMapFile);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFiles() throws IOException {
+    Files.deleteIfExists(textFile);
+    Files.deleteIfExists(binaryFile);
+    Files.deleteIfExists(largeMapFile);
+  }
+
+  @Benchmark
+  public CompiledStarGraph text(LoadedEdges counters) throws IOException {
+    StarInterner stars = new StarInterner();
+    try (Reader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+      EdgeList list = EdgeListFormat.read(reader, stars);
+      counters.edges += list.size();
+      return list.compile(stars);
+    }
+  }
+
+  @Benchmark
+  public CompiledStarGraph binary(LoadedEdges counters) throws IOException {
+    StarInterner stars = new StarInterner();
+    EdgeList list = BinaryGraphFormat.read(binaryFile, stars);
+    counters.edges += list.size();
+    return list.compile(stars);
+  }
+
+  @Benchmark
+  public CompiledStarGraph binaryLargeMap(LoadedEdges counters) throws IOException {
+    StarInterner stars = new StarInterner();
+    EdgeList list = BinaryGraphFormat.read(largeMapFile, stars);
+    counters.edges += list.size();
+    return list.compile(stars);
+  }
+
+  @Benchmark
+  public CompiledStarGraph valueGraph(LoadedEdges counters) throws IOException {
+    StarInterner stars = new StarInterner();
+    EdgeList list = BinaryGraphFormat.read(largeMapFile, stars);
+    counters.edges += list.size();
+    return new CompiledStarGraph(list.toValueGraph(stars));
+  }
+}
@@ -0,0 +1,93 @@
+package assignment.benchmark;
+
+import assignment.algorithm.datastructure.NodePriorityQueue;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ValueGraph;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The {@link PriorityQueue} based Dijkstra which {@link assignment.algorithm.PathFinder} used
+ * before the indexed heap, kept unchanged as the baseline of the shortest path benchmarks.
+ */
+public class LegacyDijkstra {
+
+  private final ValueGraph<Star, Integer> graph;
+
+  public LegacyDijkstra(ValueGraph<Star, Integer> graph) {
+    this.graph = graph;
+  }
+
+  public Route findShortestPath(Star source, Star target) {
+    Map<Star, NodePriorityQueue<Star>> nodeWrappers = new HashMap<>();
+    PriorityQueue<NodePriorityQueue<Star>> queue = new PriorityQueue<>();
+    Set<Star> shortestPathFound = new HashSet<>();
+
+    NodePriorityQueue<Star> sourceWrapper = new NodePriorityQueue<>(source, 0, null);
+    nodeWrappers.put(source, sourceWrapper);
+    queue.add(sourceWrapper);
+
+    while (!queue.isEmpty()) {
+      NodePriorityQueue<Star> nodeWrapper = queue.poll();
+      Star node = nodeWrapper.getNode();
+      shortestPathFound.add(node);
+
+      if (node.equals(target)) {
+        return buildPath(nodeWrapper);
+      }
+
+      for (Star neighbor : graph.successors(node)) {
+        if (shortestPathFound.contains(neighbor)) {
+          continue;
+        }
+        int distance = graph.edgeValueOrDefault(node, neighbor, Integer.MAX_VALUE);
+        if (distance == Integer.MAX_VALUE) {
+          continue;
+        }
+        int totalDistance = nodeWrapper.getTotalDistance() + distance;
+
+        NodePriorityQueue<Star> neighborWrapper = nodeWrappers.get(neighbor);
+        if (neighborWrapper == null) {
+          neighborWrapper = new NodePriorityQueue<>(neighbor, totalDistance, nodeWrapper);
+          nodeWrappers.put(neighbor, neighborWrapper);
+          queue.add(neighborWrapper);
+        } else if (totalDistance < neighborWrapper.getTotalDistance()) {
+          neighborWrapper.setTotalDistance(totalDistance);
+          neighborWrapper.setPrevious(nodeWrapper);
+          queue.remove(neighborWrapper);
+          queue.add(neighborWrapper);
+        }
+      }
+    }
+    return null;
+  }
+
+  private Route buildPath(NodePriorityQueue<Star> nodeWrapper) {
+    LinkedList<Star> path = new LinkedList<>();
+    while (nodeWrapper != null) {
+      path.add(nodeWrapper.getNode());
+      nodeWrapper = nodeWrapper.getPrevious();
+    }
+    Collections.reverse(path);
+    return Route.builder().path(path).totalTravelTime(calculateTotalTravelTime(path)).build();
+  }
+
+  private int calculateTotalTravelTime(List<Star> path) {
+    int sum = 0;
+    if (path.size() > 0) {
+      Star start = path.get(0);
+      for (int i = 1; i < path.size(); i++) {
+        sum = sum + graph.edgeValueOrDefault(start, path.get(i), Integer.MAX_VALUE);
+        start = path.get(i);
+      }
+    }
+    return sum;
+  }
+}
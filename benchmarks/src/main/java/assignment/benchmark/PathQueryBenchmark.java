@@ -0,0 +1,83 @@
+package assignment.benchmark;
+
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Dijkstra based queries of {@link PathFinder} between random stars of large synthetic maps.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar PathQueryBenchmark}, for example with
+ * {@code -p shape=grid -p stars=1000000} for another map. The {@code storage} parameter keeps the
+ * edges on the heap or in direct buffers, see {@link CompiledStarGraph#offHeap()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class PathQueryBenchmark {
+
+  @Param({"random", "grid", "scaleFree"})
+  String shape;
+
+  @Param({"10000", "100000"})
+  int stars;
+
+  @Param({"4", "16"})
+  int degree;
+
+  @Param({"heap", "offHeap"})
+  String storage;
+
+  PathFinder pathFinder;
+  Random random;
+  Star source;
+  Star target;
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    CompiledStarGraph graph = new CompiledStarGraph(
+        GraphGenerator.generate(shape, GraphGenerator.stars(stars), degree, 100, 42));
+    pathFinder = new PathFinder("offHeap".equals(storage) ? graph.offHeap() : graph);
+    random = new Random(7);
+  }
+
+  @Setup(Level.Invocation)
+  public void pickQuery() {
+    CompiledStarGraph graph = pathFinder.getGraph();
+    source = graph.star(random.nextInt(graph.nodeCount()));
+    target = graph.star(random.nextInt(graph.nodeCount()));
+  }
+
+  @Benchmark
+  public Route findShortestPath() {
+    return pathFinder.findShortestPath(source, target);
+  }
+
+  @Benchmark
+  public Route findShortestPathInCycle() {
+    try {
+      return pathFinder.findShortestPathInCycle(source, source);
+    } catch (IllegalStateException e) {
+      // the star is not on any cycle
+      return null;
+    }
+  }
+}
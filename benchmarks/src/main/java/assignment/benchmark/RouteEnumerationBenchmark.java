@@ -0,0 +1,136 @@
+package assignment.benchmark;
+
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.RouteSearchResult;
+import assignment.algorithm.datastructure.SearchBudget;
+import assignment.algorithm.datastructure.Star;
+import assignment.algorithm.util.PathFinderHelper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The enumeration of all routes between two stars and the {@link PathFinderHelper} filters over
+ * the enumerated routes. The number of routes grows exponentially with the size of the map, so
+ * the maps are small; the filters see every route of the first and the last star. The counting
+ * queries answer the same questions without building the routes, and the cycle queries enumerate
+ * the cycles through the first star, all of them or the first thousand.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar RouteEnumerationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class RouteEnumerationBenchmark {
+
+  @Param({"random", "grid", "scaleFree"})
+  String shape;
+
+  @Param({"12", "16"})
+  int stars;
+
+  @Param({"3"})
+  int degree;
+
+  PathFinder pathFinder;
+  Star source;
+  Star target;
+  List<Route> routes;
+  Route route;
+  PathConstraints constraints;
+  int stops;
+  int travelTime;
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    pathFinder = new PathFinder(new CompiledStarGraph(
+        GraphGenerator.generate(shape, GraphGenerator.stars(stars), degree, 100, 42)));
+    CompiledStarGraph graph = pathFinder.getGraph();
+    source = graph.star(0);
+    target = graph.star(graph.nodeCount() - 1);
+    routes = pathFinder.findPath(source, target);
+    route = routes.isEmpty() ? null : routes.get(routes.size() / 2);
+    // limits which keep about half of the routes
+    stops = route == null ? 0 : route.getPathStops();
+    travelTime = route == null ? 0 : route.getTotalTravelTime();
+    constraints = PathConstraints.builder().maxStops(stops).maxTravelTime(travelTime).build();
+  }
+
+  @Benchmark
+  public List<Route> findPath() {
+    return pathFinder.findPath(source, target);
+  }
+
+  @Benchmark
+  public List<Route> findPathsWithConstraints() {
+    return pathFinder.findPaths(source, target, constraints);
+  }
+
+  @Benchmark
+  public List<Route> findCycles() {
+    return pathFinder.findPath(source, source);
+  }
+
+  @Benchmark
+  public RouteSearchResult findCyclesWithBudget() {
+    return pathFinder.findCycles(source, PathConstraints.none(),
+        SearchBudget.builder().maxRoutes(1000).build());
+  }
+
+  @Benchmark
+  public long countCycles() {
+    return pathFinder.countPaths(source, source, PathConstraints.none());
+  }
+
+  @Benchmark
+  public long countPathsWithConstraints() {
+    return pathFinder.countPaths(source, target, constraints);
+  }
+
+  @Benchmark
+  public long countWalksWithConstraints() {
+    return pathFinder.countWalks(source, target, constraints);
+  }
+
+  @Benchmark
+  public String checkPathState() {
+    return PathFinderHelper.getInstance().checkPathState(routes, route);
+  }
+
+  @Benchmark
+  public List<Route> getRoutesByMaxNumberOfStops() {
+    return PathFinderHelper.getInstance().getRoutesByMaxNumberOfStops(routes, stops);
+  }
+
+  @Benchmark
+  public List<Route> getRoutesByNumberOfIntermediateStops() {
+    return PathFinderHelper.getInstance().getRoutesByNumberOfIntermediateStops(routes, stops - 1);
+  }
+
+  @Benchmark
+  public List<Route> getRoutesByTravelTimeLessThanLimit() {
+    return PathFinderHelper.getInstance().getRoutesByTravelTimeLessThanLimit(routes, travelTime);
+  }
+
+  @Benchmark
+  public List<Route> getRoutesByConstraints() {
+    return PathFinderHelper.getInstance().getRoutesByConstraints(routes, constraints);
+  }
+}
@@ -0,0 +1,73 @@
+package assignment.benchmark;
+
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ValueGraph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the indexed decrease-key heap of {@link PathFinder#findShortestPath(Star, Star)} with
+ * the {@link java.util.PriorityQueue#remove(Object)} based {@link LegacyDijkstra}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ShortestPathHeapBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ShortestPathHeapBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  int nodes;
+
+  @Param({"4", "16"})
+  int degree;
+
+  Star[] stars;
+  PathFinder pathFinder;
+  LegacyDijkstra legacy;
+  Random random;
+  Star source;
+  Star target;
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    stars = GraphGenerator.stars(nodes);
+    ValueGraph<Star, Integer> graph = GraphGenerator.random(stars, degree, 100, 42);
+    pathFinder = new PathFinder(graph);
+    legacy = new LegacyDijkstra(graph);
+    random = new Random(7);
+  }
+
+  @Setup(Level.Invocation)
+  public void pickQuery() {
+    source = stars[random.nextInt(nodes)];
+    target = stars[random.nextInt(nodes)];
+  }
+
+  @Benchmark
+  public Route indexedHeap() {
+    return pathFinder.findShortestPath(source, target);
+  }
+
+  @Benchmark
+  public Route priorityQueueRemove() {
+    return legacy.findShortestPath(source, target);
+  }
+}
@@ -0,0 +1,104 @@
+package assignment.benchmark;
+
+import assignment.algorithm.LandmarkHeuristic;
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import assignment.algorithm.metrics.QueryStats;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Long-haul shortest path queries on a grid map with plain, bidirectional and A* (ALT) search.
+ * Besides the time per query the {@code settled} counter reports how many nodes the searches
+ * settled, divide it by {@code queries} for the nodes settled per query.
+ * <p>
+ * The settled node counts come from the {@link QueryStats} of every query. All three modes run on
+ * the pooled search state of the PathFinder, so the time per query does not include allocating and
+ * zeroing arrays the size of the map.
+ * Run with {@code java -jar target/benchmarks.jar ShortestPathModesBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ShortestPathModesBenchmark {
+
+  @Param({"300", "1000"})
+  int side;
+
+  @Param({"16"})
+  int landmarks;
+
+  PathFinder pathFinder;
+  LandmarkHeuristic heuristic;
+  Random random;
+  Star source;
+  Star target;
+  // the stats of the last query of every benchmark thread
+  final ThreadLocal<QueryStats> lastStats = new ThreadLocal<>();
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class SettledNodes {
+
+    public long settled;
+    public long queries;
+  }
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    Star[] stars = GraphGenerator.stars(side * side);
+    CompiledStarGraph graph = new CompiledStarGraph(GraphGenerator.grid(stars, side, 100, 42));
+    pathFinder = new PathFinder(graph);
+    pathFinder.setQueryListener(lastStats::set);
+    heuristic = LandmarkHeuristic.compute(graph, landmarks);
+    random = new Random(7);
+  }
+
+  @Setup(Level.Invocation)
+  public void pickQuery() {
+    // a star in the left tenth of the map and one in the right tenth
+    CompiledStarGraph graph = pathFinder.getGraph();
+    int band = Math.max(1, side / 10);
+    source = graph.star(random.nextInt(side) * side + random.nextInt(band));
+    target = graph.star(random.nextInt(side) * side + side - 1 - random.nextInt(band));
+  }
+
+  @Benchmark
+  public Route dijkstra(SettledNodes counters) {
+    return count(counters, pathFinder.findShortestPath(source, target));
+  }
+
+  @Benchmark
+  public Route bidirectional(SettledNodes counters) {
+    return count(counters, pathFinder.findShortestPathBidirectional(source, target));
+  }
+
+  @Benchmark
+  public Route aStarLandmarks(SettledNodes counters) {
+    return count(counters, pathFinder.findShortestPath(source, target, heuristic));
+  }
+
+  private Route count(SettledNodes counters, Route route) {
+    counters.settled += lastStats.get().getNodesExpanded();
+    counters.queries++;
+    return route;
+  }
+}
@@ -0,0 +1,247 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed shortest paths between all pairs of stars, stored in a binary file which is read
+ * through memory-mapped buffers. The tables are never copied to the heap; a route is rebuilt by
+ * reading one int per stop.
+ * <p>
+ * The file starts with a header (magic, format version, number of stars and the
+ * {@link CompiledStarGraph#fingerprint()} of the graph) followed by two tables of one row per
+ * source star: the distances to every star, and the predecessor of every star on its shortest path
+ * from the source. A route is rebuilt from the row of its source only, so it follows exactly the
+ * shortest path tree {@link PathFinder#findShortestPath(Star, Star)} would have built.
+ */
+public final class AllPairsShortestPaths {
+
+  /**
+   * The distance of a star which can not be reached
+   */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private static final int MAGIC = 0x53484150;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int NO_PREVIOUS = -1;
+
+  private final CompiledStarGraph graph;
+  private final MappedByteBuffer[] distanceChunks;
+  private final MappedByteBuffer[] previousChunks;
+  private final int rowsPerChunk;
+  private final long rowSize;
+
+  private AllPairsShortestPaths(CompiledStarGraph graph, MappedByteBuffer[] distanceChunks,
+      MappedByteBuffer[] previousChunks, int rowsPerChunk, long rowSize) {
+    this.graph = graph;
+    this.distanceChunks = distanceChunks;
+    this.previousChunks = previousChunks;
+    this.rowsPerChunk = rowsPerChunk;
+    this.rowSize = rowSize;
+  }
+
+  /**
+   * Runs one Dijkstra per source star in parallel and writes every row to the file as soon as its
+   * search is done, so the tables are never held in memory as a whole.
+   *
+   * @param graph       the graph to compute the shortest paths of
+   * @param file        the file to write, it is replaced if it exists
+   * @param parallelism the number of searches running at the same time
+   */
+  public static void precompute(CompiledStarGraph graph, Path file, int parallelism)
+      throws IOException {
+    int nodeCount = graph.nodeCount();
+    long rowSize = 4L * nodeCount;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(0)
+          .putLong(graph.fingerprint()).flip();
+      writeFully(channel, header, 0);
+
+      ThreadLocal<RowWriter> writers = ThreadLocal.withInitial(() -> new RowWriter(graph));
+      long previousOffset = HEADER_SIZE + rowSize * nodeCount;
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.submit(() -> IntStream.range(0, nodeCount).parallel().forEach(source ->
+            writers.get().write(channel, source, HEADER_SIZE + rowSize * source,
+                previousOffset + rowSize * source))).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("precomputation has been interrupted", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof UncheckedIOException) {
+          throw ((UncheckedIOException) e.getCause()).getCause();
+        }
+        throw new IllegalStateException("precomputation failed", e.getCause());
+      } finally {
+        pool.shutdown();
+      }
+      channel.force(false);
+    }
+  }
+
+  /**
+   * Maps a file written by {@link #precompute(CompiledStarGraph, Path, int)}.
+   *
+   * @param file  the precomputed tables
+   * @param graph the graph the tables have been computed for
+   * @throws IllegalArgumentException if the file does not belong to the graph
+   */
+  public static AllPairsShortestPaths load(Path file, CompiledStarGraph graph) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        // read until the header is complete or the file ends
+      }
+      header.flip();
+      if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+        throw new IllegalArgumentException(file + " is not a shortest path table");
+      }
+      if (header.getInt() != VERSION) {
+        throw new IllegalArgumentException(file + " has an unsupported format version");
+      }
+      int nodeCount = header.getInt();
+      header.getInt();
+      if (nodeCount != graph.nodeCount() || header.getLong() != graph.fingerprint()) {
+        throw new IllegalArgumentException(file + " has been computed for a different graph");
+      }
+      long rowSize = 4L * nodeCount;
+      if (channel.size() != HEADER_SIZE + 2 * rowSize * nodeCount) {
+        throw new IllegalArgumentException(file + " is truncated");
+      }
+
+      if (nodeCount == 0) {
+        // an empty graph has empty tables, and rows without a size
+        return new AllPairsShortestPaths(graph, new MappedByteBuffer[0], new MappedByteBuffer[0],
+            1, rowSize);
+      }
+      // a mapped buffer is limited to 2 GB, so the tables are mapped in chunks of whole rows
+      int rowsPerChunk = (int) Math.max(1, Math.min(nodeCount, Integer.MAX_VALUE / rowSize));
+      int chunks = (nodeCount + rowsPerChunk - 1) / rowsPerChunk;
+      MappedByteBuffer[] distances = new MappedByteBuffer[chunks];
+      MappedByteBuffer[] previous = new MappedByteBuffer[chunks];
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        long firstRow = (long) chunk * rowsPerChunk;
+        long size = Math.min(rowsPerChunk, nodeCount - firstRow) * rowSize;
+        distances[chunk] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + firstRow * rowSize, size);
+        previous[chunk] = channel.map(MapMode.READ_ONLY,
+            HEADER_SIZE + (nodeCount + firstRow) * rowSize, size);
+      }
+      return new AllPairsShortestPaths(graph, distances, previous, rowsPerChunk, rowSize);
+    }
+  }
+
+  public CompiledStarGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * @return the travel time of the shortest route, or {@link #UNREACHABLE}
+   */
+  public int distance(Star from, Star to) {
+    return read(distanceChunks, requireIndex(from), requireIndex(to));
+  }
+
+  /**
+   * Rebuilds the shortest route from the predecessors stored in the row of the source.
+   *
+   * @return the route {@link PathFinder#findShortestPath(Star, Star)} returns, or null if the
+   * target can not be reached
+   */
+  public Route route(Star from, Star to) {
+    int source = requireIndex(from);
+    int target = requireIndex(to);
+    int distance = read(distanceChunks, source, target);
+    if (distance == UNREACHABLE) {
+      return null;
+    }
+    int length = 0;
+    for (int node = target; node != NO_PREVIOUS; node = read(previousChunks, source, node)) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int node = target; node != NO_PREVIOUS; node = read(previousChunks, source, node)) {
+      path[--length] = node;
+    }
+    return Route.of(new CompactRoute(graph, path, distance));
+  }
+
+  private int read(MappedByteBuffer[] chunks, int row, int column) {
+    return chunks[row / rowsPerChunk].getInt(
+        (int) ((row % rowsPerChunk) * rowSize + 4L * column));
+  }
+
+  private int requireIndex(Star star) {
+    int index = graph.indexOf(star);
+    if (index < 0) {
+      throw new IllegalArgumentException("Node " + star + " is not an element of this graph.");
+    }
+    return index;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * The search and the row buffers of one worker thread.
+   */
+  private static final class RowWriter {
+
+    private final ShortestPathSearch search;
+    private final int[] distances;
+    private final int[] previous;
+    private final ByteBuffer buffer;
+
+    private RowWriter(CompiledStarGraph graph) {
+      this.search = new ShortestPathSearch(graph);
+      this.distances = new int[graph.nodeCount()];
+      this.previous = new int[graph.nodeCount()];
+      this.buffer = ByteBuffer.allocateDirect(4 * graph.nodeCount());
+    }
+
+    private void write(FileChannel channel, int source, long distanceOffset,
+        long previousOffset) {
+      Arrays.fill(distances, UNREACHABLE);
+      Arrays.fill(previous, NO_PREVIOUS);
+      search.searchAll(source);
+      for (int i = 0; i < search.settledCount(); i++) {
+        int node = search.settled(i);
+        distances[node] = search.distance(node);
+        previous[node] = search.previous(node);
+      }
+      try {
+        writeRow(channel, distances, distanceOffset);
+        writeRow(channel, previous, previousOffset);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void writeRow(FileChannel channel, int[] row, long offset) throws IOException {
+      buffer.clear();
+      buffer.asIntBuffer().put(row);
+      buffer.limit(4 * row.length);
+      writeFully(channel, buffer, offset);
+    }
+  }
+}
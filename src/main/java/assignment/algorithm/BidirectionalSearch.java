@@ -0,0 +1,106 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+
+/**
+ * Bidirectional Dijkstra: one search settles nodes forwards from the source, the other one
+ * backwards from the target over {@link CompiledStarGraph#reverse()}. Every time a settled node
+ * has an edge to a node the other side has reached, the route through that edge is a candidate.
+ * The search stops once the two closest queued nodes together are no closer than the best
+ * candidate, which on long routes happens after settling far fewer nodes than one search would.
+ * <p>
+ * Not thread safe; every query uses its own instance and releases its pooled searches when it is
+ * done.
+ */
+final class BidirectionalSearch {
+
+  private final CompiledStarGraph graph;
+  private final CompiledStarGraph reverse;
+  private final ShortestPathSearch forward;
+  private final ShortestPathSearch backward;
+  private int best;
+  private int meetingFrom;
+  private int meetingTo;
+
+  BidirectionalSearch(CompiledStarGraph graph) {
+    this.graph = graph;
+    this.reverse = graph.reverse();
+    this.forward = ShortestPathSearch.acquire(graph);
+    this.backward = ShortestPathSearch.acquire(reverse);
+  }
+
+  void release() {
+    forward.release();
+    backward.release();
+  }
+
+  /**
+   * @return the shortest route between two different stars, or null if there is none
+   */
+  Route search(int source, int target) {
+    best = Integer.MAX_VALUE;
+    meetingFrom = -1;
+    meetingTo = -1;
+    forward.begin(source);
+    backward.begin(target);
+    while (forward.hasQueued() && backward.hasQueued()
+        && (long) forward.minDistance() + backward.minDistance() < best) {
+      if (forward.minDistance() <= backward.minDistance()) {
+        int node = forward.settleNext();
+        meet(graph, node, forward, backward, false);
+      } else {
+        int node = backward.settleNext();
+        meet(reverse, node, backward, forward, true);
+      }
+    }
+    return meetingFrom < 0 ? null : buildRoute(source, target);
+  }
+
+  /**
+   * @return the number of nodes both sides settled in the last search
+   */
+  int settledCount() {
+    return forward.settledCount() + backward.settledCount();
+  }
+
+  private void meet(CompiledStarGraph side, int node, ShortestPathSearch search,
+      ShortestPathSearch other, boolean backwards) {
+    for (int edge = side.edgeStart(node); edge < side.edgeEnd(node); edge++) {
+      int neighbor = side.target(edge);
+      int weight = side.weight(edge);
+      if (weight == Integer.MAX_VALUE || !other.isReached(neighbor)) {
+        continue;
+      }
+      long distance = (long) search.distance(node) + weight + other.distance(neighbor);
+      if (distance < best) {
+        best = (int) distance;
+        meetingFrom = backwards ? neighbor : node;
+        meetingTo = backwards ? node : neighbor;
+      }
+    }
+  }
+
+  private Route buildRoute(int source, int target) {
+    int head = 0;
+    for (int node = meetingFrom; node != -1; node = forward.previous(node)) {
+      head++;
+    }
+    int tail = 0;
+    for (int node = meetingTo; node != -1; node = backward.previous(node)) {
+      tail++;
+    }
+    int[] path = new int[head + tail];
+    int position = head;
+    for (int node = meetingFrom; node != -1; node = forward.previous(node)) {
+      path[--position] = node;
+    }
+    // the backward search keeps the next star towards the target as the previous one
+    position = head;
+    for (int node = meetingTo; node != -1; node = backward.previous(node)) {
+      path[position++] = node;
+    }
+    return Route.of(new CompactRoute(graph, path, best));
+  }
+}
@@ -0,0 +1,148 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CacheStats;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.QueryType;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.SegmentedLruCache;
+import assignment.algorithm.datastructure.Star;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import lombok.Value;
+
+/**
+ * Memoises the answers of a {@link PathFinder}. The cache key is the query type, the two stars,
+ * the constraints and the version of the compiled graph the answer was computed on. Replacing the
+ * PathFinder with one on a new graph version drops the cached answers, and an answer computed on
+ * the old graph while the replacement happens can never be served for the new one.
+ * <p>
+ * Routes can be changed by their callers, so the cache keeps its own copies and every caller gets
+ * new copies of them. Copying a route found by a search shares its stars, only routes built by
+ * hand copy their list of stars.
+ */
+public class CachingPathFinder {
+
+  private final SegmentedLruCache<QueryKey, Answer> cache;
+  private volatile PathFinder pathFinder;
+
+  /**
+   * @param pathFinder    the PathFinder computing the answers which are not cached
+   * @param maximumSize   the largest number of answers kept, see {@link SegmentedLruCache} for
+   *                      how closely it is kept
+   * @param maximumWeight the largest number of stars referenced by all kept answers together
+   */
+  public CachingPathFinder(PathFinder pathFinder, int maximumSize, long maximumWeight) {
+    this.pathFinder = Objects.requireNonNull(pathFinder, "pathFinder should not be null");
+    this.cache = new SegmentedLruCache<>(maximumSize, maximumWeight, Answer::weight,
+        Runtime.getRuntime().availableProcessors() * 4);
+  }
+
+  /**
+   * Replaces the PathFinder, for example after the graph has been recompiled. Answers of older
+   * graph versions are dropped.
+   */
+  public void update(PathFinder pathFinder) {
+    Objects.requireNonNull(pathFinder, "pathFinder should not be null");
+    long previousVersion = this.pathFinder.getGraph().version();
+    this.pathFinder = pathFinder;
+    if (pathFinder.getGraph().version() != previousVersion) {
+      cache.invalidateAll();
+    }
+  }
+
+  public List<Route> findPath(Star from, Star to) {
+    return findPaths(from, to, PathConstraints.none());
+  }
+
+  public List<Route> findPaths(Star from, Star to, PathConstraints constraints) {
+    PathFinder finder = pathFinder;
+    return cache.get(key(finder, QueryType.FIND_PATHS, from, to, constraints),
+        key -> Answer.of(finder.findPaths(from, to, constraints))).routes();
+  }
+
+  public Route findShortestPath(Star source, Star target) {
+    PathFinder finder = pathFinder;
+    return cache.get(key(finder, QueryType.SHORTEST_PATH, source, target, null),
+        key -> Answer.of(finder.findShortestPath(source, target))).route();
+  }
+
+  public Route findShortestPathInCycle(Star from, Star to) {
+    PathFinder finder = pathFinder;
+    Route route = cache.get(key(finder, QueryType.SHORTEST_CYCLE, from, to, null), key -> {
+      try {
+        return Answer.of(finder.findShortestPathInCycle(from, to));
+      } catch (IllegalStateException e) {
+        // there is not any route, which is an answer worth caching as well
+        return Answer.of((Route) null);
+      }
+    }).route();
+    if (route == null) {
+      throw new IllegalStateException("there is not any route");
+    }
+    return route;
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static QueryKey key(PathFinder finder, QueryType type, Star from, Star to,
+      PathConstraints constraints) {
+    return new QueryKey(finder.getGraph().version(), type, from, to, constraints);
+  }
+
+  @Value
+  private static class QueryKey {
+
+    long graphVersion;
+    QueryType type;
+    Star from;
+    Star to;
+    PathConstraints constraints;
+  }
+
+  /**
+   * A cached answer, which is a list of routes or a single route that may be missing.
+   */
+  private static final class Answer {
+
+    private final List<Route> routes;
+
+    private Answer(List<Route> routes) {
+      this.routes = routes;
+    }
+
+    private static Answer of(List<Route> routes) {
+      return new Answer(routes.stream().map(Route::copy).collect(Collectors.toUnmodifiableList()));
+    }
+
+    private static Answer of(Route route) {
+      return new Answer(route == null ? List.of() : List.of(route.copy()));
+    }
+
+    /**
+     * @return copies of the routes, in a list the caller may change
+     */
+    private List<Route> routes() {
+      LinkedList<Route> copies = new LinkedList<>();
+      for (Route route : routes) {
+        copies.add(route.copy());
+      }
+      return copies;
+    }
+
+    private Route route() {
+      return routes.isEmpty() ? null : routes.get(0).copy();
+    }
+
+    private int weight() {
+      int stars = 1;
+      for (Route route : routes) {
+        stars += route.getPathStops() + 1;
+      }
+      return stars;
+    }
+  }
+}
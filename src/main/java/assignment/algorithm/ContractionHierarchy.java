@@ -0,0 +1,408 @@
+package assignment.algorithm;
+
+import assignment.algorithm.HierarchyBuilder.Edges;
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.IndexedMinHeap;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A contraction hierarchy of a star graph: every star has a rank, and the graph is extended with
+ * shortcuts so that every shortest route first climbs to stars of higher rank and then descends.
+ * A query therefore runs a Dijkstra upwards from the source and one upwards (against the edge
+ * direction) from the target, which only settle a few hundred stars on maps where Dijkstra settles
+ * millions. The shortcuts of the route found are unpacked into the stars they skip, so the result
+ * is a {@link Route} of the original graph with the travel time
+ * {@link PathFinder#findShortestPath(Star, Star)} finds, and the same stars whenever the shortest
+ * route is unique.
+ * <p>
+ * Building the hierarchy is slow; it is written to a file with {@link #write(Path)} and loaded
+ * with {@link #load(Path, CompiledStarGraph)}. The file starts with a header (magic, format
+ * version, number of stars and the {@link CompiledStarGraph#fingerprint()} of the graph) followed by
+ * the upward and the downward edges in compressed sparse row form. The travel times must not be
+ * negative.
+ */
+public final class ContractionHierarchy {
+
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  static final int NO_MIDDLE = -1;
+
+  private static final int MAGIC = 0x53484348;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int NOT_FOUND = -1;
+
+  private final CompiledStarGraph graph;
+  private final EdgeTable upward;
+  private final EdgeTable downward;
+  private final ThreadLocal<Query> queries;
+
+  private ContractionHierarchy(CompiledStarGraph graph, EdgeTable upward, EdgeTable downward) {
+    this.graph = graph;
+    this.upward = upward;
+    this.downward = downward;
+    this.queries = ThreadLocal.withInitial(() -> new Query(graph.nodeCount()));
+  }
+
+  /**
+   * Contracts the graph.
+   *
+   * @throws IllegalArgumentException if some travel time is negative
+   */
+  public static ContractionHierarchy build(CompiledStarGraph graph) {
+    Edges[][] edges = new HierarchyBuilder(graph).contract();
+    return new ContractionHierarchy(graph, EdgeTable.of(edges[0]), EdgeTable.of(edges[1]));
+  }
+
+  /**
+   * Loads a hierarchy written by {@link #write(Path)}.
+   *
+   * @param file  the hierarchy
+   * @param graph the graph the hierarchy has been built for
+   * @throws IllegalArgumentException if the file does not belong to the graph
+   */
+  public static ContractionHierarchy load(Path file, CompiledStarGraph graph) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE) {
+        throw new IllegalArgumentException(file + " is not a contraction hierarchy");
+      }
+      IntBuffer data = channel.map(MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+      if (data.get() != MAGIC) {
+        throw new IllegalArgumentException(file + " is not a contraction hierarchy");
+      }
+      if (data.get() != VERSION) {
+        throw new IllegalArgumentException(file + " has an unsupported format version");
+      }
+      int nodeCount = data.get();
+      data.get();
+      LongBuffer fingerprint = channel.map(MapMode.READ_ONLY, 16, 8).asLongBuffer();
+      if (nodeCount != graph.nodeCount() || fingerprint.get() != graph.fingerprint()) {
+        throw new IllegalArgumentException(file + " has been built for a different graph");
+      }
+      data.position(HEADER_SIZE / 4);
+      try {
+        EdgeTable upward = EdgeTable.read(data, nodeCount);
+        EdgeTable downward = EdgeTable.read(data, nodeCount);
+        return new ContractionHierarchy(graph, upward, downward);
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException(file + " is truncated", e);
+      }
+    }
+  }
+
+  /**
+   * Writes the hierarchy, the file is replaced if it exists.
+   */
+  public void write(Path file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(graph.nodeCount());
+      out.writeInt(0);
+      out.writeLong(graph.fingerprint());
+      upward.write(out);
+      downward.write(out);
+    }
+  }
+
+  public CompiledStarGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * @return the number of shortcuts the hierarchy added to the graph
+   */
+  public int shortcutCount() {
+    return upward.shortcutCount() + downward.shortcutCount();
+  }
+
+  /**
+   * @return the travel time of the shortest route, or {@link #UNREACHABLE}
+   */
+  public int distance(Star from, Star to) {
+    int source = requireIndex(from);
+    int target = requireIndex(to);
+    if (source == target) {
+      return 0;
+    }
+    Query query = queries.get();
+    return query.search(source, target) ? query.best : UNREACHABLE;
+  }
+
+  /**
+   * @return the shortest route, or null if the target can not be reached
+   */
+  public Route route(Star from, Star to) {
+    int source = requireIndex(from);
+    int target = requireIndex(to);
+    if (source == target) {
+      return Route.builder().path(new LinkedList<>(List.of(from))).totalTravelTime(0).build();
+    }
+    Query query = queries.get();
+    return query.search(source, target) ? query.route(source, target) : null;
+  }
+
+  private int requireIndex(Star star) {
+    int index = graph.indexOf(star);
+    if (index < 0) {
+      throw new IllegalArgumentException("Node " + star + " is not an element of this graph.");
+    }
+    return index;
+  }
+
+  /**
+   * The arrays of one thread's queries, reused with generation stamps like
+   * {@link ShortestPathSearch}.
+   */
+  private final class Query {
+
+    private final int[] distances;
+    private final int[] parentEdges;
+    private final int[] reached;
+    private final IndexedMinHeap[] queues;
+    private int generation;
+    private int best;
+    private int meeting;
+
+    private Query(int nodeCount) {
+      // the forward search uses the first half of the arrays, the backward one the second half
+      this.distances = new int[2 * nodeCount];
+      this.parentEdges = new int[2 * nodeCount];
+      this.reached = new int[2 * nodeCount];
+      this.queues = new IndexedMinHeap[]{new IndexedMinHeap(nodeCount),
+          new IndexedMinHeap(nodeCount)};
+    }
+
+    private boolean search(int source, int target) {
+      if (++generation == 0) {
+        Arrays.fill(reached, 0);
+        generation = 1;
+      }
+      best = Integer.MAX_VALUE;
+      meeting = NOT_FOUND;
+      queues[0].clear();
+      queues[1].clear();
+      reach(0, source, 0, NOT_FOUND);
+      reach(1, target, 0, NOT_FOUND);
+      while (true) {
+        // a side stops once nothing it has queued can lead to a shorter route
+        int forward = minimum(0);
+        int backward = minimum(1);
+        if (forward >= best && backward >= best) {
+          return meeting != NOT_FOUND;
+        }
+        settle(forward <= backward ? 0 : 1);
+      }
+    }
+
+    private int minimum(int side) {
+      IndexedMinHeap queue = queues[side];
+      return queue.isEmpty() ? Integer.MAX_VALUE : queue.priority(queue.peekMin());
+    }
+
+    private void settle(int side) {
+      int node = queues[side].pollMin();
+      int offset = side * graph.nodeCount();
+      int distance = distances[offset + node];
+      meet(node);
+      EdgeTable edges = side == 0 ? upward : downward;
+      for (int edge = edges.offsets[node]; edge < edges.offsets[node + 1]; edge++) {
+        int next = edges.targets[edge];
+        int nextDistance = distance + edges.weights[edge];
+        if (reached[offset + next] != generation) {
+          reach(side, next, nextDistance, edge);
+        } else if (nextDistance < distances[offset + next] && queues[side].contains(next)) {
+          distances[offset + next] = nextDistance;
+          parentEdges[offset + next] = edge;
+          queues[side].decreaseKey(next, nextDistance);
+        }
+      }
+    }
+
+    private void reach(int side, int node, int distance, int parentEdge) {
+      int offset = side * graph.nodeCount();
+      reached[offset + node] = generation;
+      distances[offset + node] = distance;
+      parentEdges[offset + node] = parentEdge;
+      queues[side].insert(node, distance);
+    }
+
+    private void meet(int node) {
+      int nodeCount = graph.nodeCount();
+      if (reached[node] == generation && reached[nodeCount + node] == generation) {
+        long distance = (long) distances[node] + distances[nodeCount + node];
+        if (distance < best) {
+          best = (int) distance;
+          meeting = node;
+        }
+      }
+    }
+
+    /**
+     * Follows the parent edges from the meeting star back to the source and on to the target, and
+     * unpacks every shortcut on the way.
+     */
+    private Route route(int source, int target) {
+      int nodeCount = graph.nodeCount();
+      // the edges of the route as (from, to, middle) triples
+      int[] hops = new int[12];
+      int hopCount = 0;
+      for (int node = meeting; node != source; ) {
+        int edge = parentEdges[node];
+        int from = upward.sources[edge];
+        hops = push(hops, hopCount++, from, node, upward.middles[edge]);
+        node = from;
+      }
+      // the upward part has been collected backwards
+      for (int i = 0, j = hopCount - 1; i < j; i++, j--) {
+        for (int k = 0; k < 3; k++) {
+          int swap = hops[3 * i + k];
+          hops[3 * i + k] = hops[3 * j + k];
+          hops[3 * j + k] = swap;
+        }
+      }
+      for (int node = meeting; node != target; ) {
+        int edge = parentEdges[nodeCount + node];
+        int to = downward.sources[edge];
+        hops = push(hops, hopCount++, node, to, downward.middles[edge]);
+        node = to;
+      }
+
+      int[] path = new int[8];
+      int length = 0;
+      path[length++] = source;
+      int[] stack = new int[12];
+      for (int hop = 0; hop < hopCount; hop++) {
+        int depth = 0;
+        stack = push(stack, depth++, hops[3 * hop], hops[3 * hop + 1], hops[3 * hop + 2]);
+        while (depth > 0) {
+          depth--;
+          int from = stack[3 * depth];
+          int to = stack[3 * depth + 1];
+          int middle = stack[3 * depth + 2];
+          if (middle == NO_MIDDLE) {
+            if (length == path.length) {
+              path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = to;
+            continue;
+          }
+          // the second half goes on the stack first, so the first half is unpacked first
+          stack = push(stack, depth++, middle, to, upward.middle(middle, to));
+          stack = push(stack, depth++, from, middle, downward.middle(middle, from));
+        }
+      }
+      return Route.of(new CompactRoute(graph, Arrays.copyOf(path, length), best));
+    }
+
+    private int[] push(int[] triples, int position, int first, int second, int third) {
+      if (3 * position + 3 > triples.length) {
+        triples = Arrays.copyOf(triples, triples.length * 2);
+      }
+      triples[3 * position] = first;
+      triples[3 * position + 1] = second;
+      triples[3 * position + 2] = third;
+      return triples;
+    }
+  }
+
+  /**
+   * The upward or the downward edges of every star in compressed sparse row form. An upward edge
+   * leads from its source to a star of higher rank; a downward edge is stored with the star it
+   * leads to, and its target is the star of higher rank it comes from.
+   */
+  private static final class EdgeTable {
+
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] middles;
+
+    private EdgeTable(int[] offsets, int[] targets, int[] weights, int[] middles) {
+      this.offsets = offsets;
+      this.targets = targets;
+      this.weights = weights;
+      this.middles = middles;
+      this.sources = new int[targets.length];
+      for (int node = 0; node + 1 < offsets.length; node++) {
+        Arrays.fill(sources, offsets[node], offsets[node + 1], node);
+      }
+    }
+
+    private static EdgeTable of(Edges[] edges) {
+      int[] offsets = new int[edges.length + 1];
+      for (int node = 0; node < edges.length; node++) {
+        offsets[node + 1] = offsets[node] + edges[node].size;
+      }
+      int edgeCount = offsets[edges.length];
+      int[] targets = new int[edgeCount];
+      int[] weights = new int[edgeCount];
+      int[] middles = new int[edgeCount];
+      for (int node = 0; node < edges.length; node++) {
+        System.arraycopy(edges[node].nodes, 0, targets, offsets[node], edges[node].size);
+        System.arraycopy(edges[node].weights, 0, weights, offsets[node], edges[node].size);
+        System.arraycopy(edges[node].middles, 0, middles, offsets[node], edges[node].size);
+      }
+      return new EdgeTable(offsets, targets, weights, middles);
+    }
+
+    private static EdgeTable read(IntBuffer data, int nodeCount) {
+      int[] offsets = new int[nodeCount + 1];
+      data.get(offsets);
+      int edgeCount = offsets[nodeCount];
+      int[] targets = new int[edgeCount];
+      int[] weights = new int[edgeCount];
+      int[] middles = new int[edgeCount];
+      data.get(targets).get(weights).get(middles);
+      return new EdgeTable(offsets, targets, weights, middles);
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      for (int[] array : new int[][]{offsets, targets, weights, middles}) {
+        for (int value : array) {
+          out.writeInt(value);
+        }
+      }
+    }
+
+    /**
+     * @return the star skipped by the edge between the star and its neighbour
+     */
+    private int middle(int node, int neighbour) {
+      for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+        if (targets[edge] == neighbour) {
+          return middles[edge];
+        }
+      }
+      throw new IllegalStateException("the hierarchy has no edge between " + node + " and "
+          + neighbour);
+    }
+
+    private int shortcutCount() {
+      int count = 0;
+      for (int middle : middles) {
+        if (middle != NO_MIDDLE) {
+          count++;
+        }
+      }
+      return count;
+    }
+  }
+}
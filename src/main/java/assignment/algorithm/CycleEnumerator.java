@@ -0,0 +1,374 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Enumerates the elementary cycles through one star with the circuit search of Johnson's algorithm.
+ * The DFS stays inside the strongly connected component of the star, and a star it has left
+ * without finding a cycle stays blocked until a cycle is found through one of its successors. A
+ * plain DFS walks into the same dead ends again for every path leading to them, which on dense
+ * clusters costs far more than the cycles it finds; here the time between two cycles is linear in
+ * the size of the component.
+ * <p>
+ * Cycles come in the order the DFS of {@link RouteEnumerator} finds them, as blocking only skips
+ * branches without cycles. A branch cut off by the constraints might still lead back to the star,
+ * so the star it leaves is unblocked as if a cycle had been found; with tight limits the search
+ * is then as fast as the pruned DFS.
+ * <p>
+ * The stack lives in a pooled {@link DfsState}, whose visited stars are the blocked ones, and the
+ * lists of the stars to unblock with a star in a pooled {@link BlockLists}.
+ */
+final class CycleEnumerator implements RouteIterator {
+
+  /**
+   * The deadline of an enumeration without a time limit
+   */
+  static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  // the clock is read once per this many edges, a power of two
+  private static final int CLOCK_INTERVAL = 1024;
+
+  private final CompiledStarGraph graph;
+  private final StronglyConnectedComponents components;
+  private final int source;
+  private final int component;
+  private final PathConstraints constraints;
+  private final PathConstraints pruning;
+  private final long deadline;
+  private DfsState state;
+  private BlockLists lists;
+  private int depth;
+  private int cycleLength;
+  private int cycleTravelTime;
+  private boolean ready;
+  private boolean timedOut;
+  private volatile boolean cancelled;
+  private long nodesExpanded;
+  private long edgesRelaxed;
+  private long routesEmitted;
+  private long routesPruned;
+
+  /**
+   * @param deadline the {@link System#nanoTime()} at which the enumeration stops, or
+   *                 {@link #NO_DEADLINE}
+   */
+  CycleEnumerator(CompiledStarGraph graph, StronglyConnectedComponents components, int source,
+      PathConstraints constraints, long deadline) {
+    this.graph = graph;
+    this.components = components;
+    this.source = source;
+    this.component = components.component(source);
+    this.constraints = constraints;
+    // pruning on travel time needs the travel time of a path to grow with every stop
+    this.pruning = graph.hasNegativeWeights() ? PathConstraints.builder()
+        .maxStops(constraints.getMaxStops())
+        .intermediateStops(constraints.getIntermediateStops()).build() : constraints;
+    this.deadline = deadline;
+    this.state = DfsState.acquire(graph.nodeCount());
+    this.lists = BlockLists.acquire(graph.nodeCount(), graph.edgeCount());
+    depth = -1;
+    push(source, 0);
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!ready) {
+      ready = advance();
+    }
+    return ready;
+  }
+
+  @Override
+  public Route next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("there is not any more route");
+    }
+    ready = false;
+    return Route.of(new CompactRoute(graph, Arrays.copyOf(state.path, cycleLength),
+        cycleTravelTime));
+  }
+
+  /**
+   * Continues the search until the next cycle, without building a route for it.
+   *
+   * @return false if there are no more cycles, or the enumeration has been cancelled or has timed
+   * out
+   */
+  boolean advance() {
+    if (state == null) {
+      return false;
+    }
+    int[] path = state.path;
+    int[] cursors = state.cursors;
+    boolean[] found = lists.found;
+    while (depth >= 0 && !cancelled) {
+      int from = path[depth];
+      if (cursors[depth] == graph.edgeEnd(from)) {
+        finish(from);
+        continue;
+      }
+      int edge = cursors[depth]++;
+      if ((++edgesRelaxed & (CLOCK_INTERVAL - 1)) == 0 && deadline != NO_DEADLINE
+          && System.nanoTime() - deadline > 0) {
+        timedOut = true;
+        break;
+      }
+      int node = graph.target(edge);
+      if (components.component(node) != component) {
+        // no route from there leads back
+        continue;
+      }
+      int travelTime = state.travelTimes[depth] + graph.weight(edge);
+      if (node == source) {
+        found[depth] = true;
+        if (travelTime > 0 && matches(depth + 1, travelTime)) {
+          path[depth + 1] = source;
+          cycleLength = depth + 2;
+          cycleTravelTime = travelTime;
+          routesEmitted++;
+          return true;
+        }
+      } else if (!state.isVisited(node)) {
+        // any cycle through node closes with at least depth + 2 stops
+        if (pruning.canExtend(depth + 2, travelTime)) {
+          push(node, travelTime);
+        } else {
+          found[depth] = true;
+          routesPruned++;
+        }
+      }
+    }
+    close();
+    return false;
+  }
+
+  /**
+   * @return whether the enumeration has stopped at its deadline before it found all cycles
+   */
+  boolean timedOut() {
+    return timedOut;
+  }
+
+  /**
+   * Gives the pooled state back before the enumeration is exhausted. Unlike {@link #cancel()} it
+   * has to be called by the thread which runs the enumeration.
+   */
+  void close() {
+    if (state != null) {
+      state.release();
+      lists.release();
+      state = null;
+      lists = null;
+    }
+  }
+
+  @Override
+  public long nodesExpanded() {
+    return nodesExpanded;
+  }
+
+  @Override
+  public long edgesRelaxed() {
+    return edgesRelaxed;
+  }
+
+  @Override
+  public long routesEmitted() {
+    return routesEmitted;
+  }
+
+  @Override
+  public long routesPruned() {
+    return routesPruned;
+  }
+
+  /**
+   * Checks a complete cycle against the constraints, counting the cycles which do not match.
+   */
+  private boolean matches(int stops, int travelTime) {
+    if (constraints.matches(stops, travelTime)) {
+      return true;
+    }
+    routesPruned++;
+    return false;
+  }
+
+  private void push(int node, int travelTime) {
+    nodesExpanded++;
+    depth++;
+    state.path[depth] = node;
+    state.cursors[depth] = graph.edgeStart(node);
+    state.travelTimes[depth] = travelTime;
+    lists.found[depth] = false;
+    state.visit(node);
+  }
+
+  /**
+   * Leaves the star on top of the stack. If some cycle went through it, it is unblocked with the
+   * stars waiting for it; otherwise it stays blocked until one of its successors is unblocked.
+   */
+  private void finish(int node) {
+    boolean found = lists.found[depth];
+    if (found) {
+      unblock(node);
+    } else {
+      for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+        int successor = graph.target(edge);
+        if (components.component(successor) == component) {
+          lists.add(successor, node, edge);
+        }
+      }
+    }
+    depth--;
+    if (depth >= 0 && found) {
+      lists.found[depth] = true;
+    }
+  }
+
+  private void unblock(int node) {
+    int[] stack = lists.unblocked;
+    int size = 0;
+    state.leave(node);
+    stack[size++] = node;
+    while (size > 0) {
+      int star = stack[--size];
+      for (int entry = lists.head(star); entry >= 0; entry = lists.remove(entry)) {
+        int waiting = lists.star(entry);
+        if (state.isVisited(waiting)) {
+          state.leave(waiting);
+          stack[size++] = waiting;
+        }
+      }
+      lists.clear(star);
+    }
+  }
+
+  /**
+   * The B lists of Johnson's algorithm: for every blocked star, the stars which have been left
+   * without a cycle while it was blocked and are unblocked with it. An entry is added for an edge
+   * to the star, at most once, which a bitset over the edges tracks. Heads are tagged with the
+   * generation of the enumeration, so a new one starts with empty lists without clearing them.
+   * <p>
+   * Pooled like {@link DfsState}: every thread keeps one released instance for its next
+   * enumeration.
+   */
+  private static final class BlockLists {
+
+    private static final ThreadLocal<BlockLists> RELEASED = new ThreadLocal<>();
+
+    private final int nodeCapacity;
+    private final int edgeCapacity;
+    private final boolean[] found;
+    private final int[] unblocked;
+    private final int[] heads;
+    private final int[] headGenerations;
+    private final long[] listed;
+    private int[] stars = new int[64];
+    private int[] edges = new int[64];
+    private int[] next = new int[64];
+    private int entryCount;
+    private int free = -1;
+    private int generation;
+
+    private BlockLists(int nodeCapacity, int edgeCapacity) {
+      this.nodeCapacity = nodeCapacity;
+      this.edgeCapacity = edgeCapacity;
+      // whether a cycle has been found through the star at every depth of the stack
+      this.found = new boolean[nodeCapacity + 1];
+      this.unblocked = new int[nodeCapacity];
+      this.heads = new int[nodeCapacity];
+      this.headGenerations = new int[nodeCapacity];
+      this.listed = new long[(edgeCapacity + 63) >>> 6];
+    }
+
+    static BlockLists acquire(int nodeCount, int edgeCount) {
+      BlockLists lists = RELEASED.get();
+      if (lists == null || lists.nodeCapacity < nodeCount || lists.edgeCapacity < edgeCount) {
+        lists = new BlockLists(nodeCount, edgeCount);
+      } else {
+        RELEASED.remove();
+      }
+      if (++lists.generation == 0) {
+        // the tags went around, older lists could look current again
+        Arrays.fill(lists.headGenerations, 0);
+        lists.generation = 1;
+      }
+      return lists;
+    }
+
+    /**
+     * Empties the lists an enumeration stopped half way has left and keeps them for the next one.
+     */
+    void release() {
+      for (int entry = 0; entry < entryCount; entry++) {
+        listed[edges[entry] >>> 6] &= ~(1L << edges[entry]);
+      }
+      entryCount = 0;
+      free = -1;
+      RELEASED.set(this);
+    }
+
+    int head(int star) {
+      return headGenerations[star] == generation ? heads[star] : -1;
+    }
+
+    int star(int entry) {
+      return stars[entry];
+    }
+
+    /**
+     * Puts the star which has been left on the list of its blocked successor, unless the edge
+     * between them is on it already.
+     */
+    void add(int successor, int star, int edge) {
+      if ((listed[edge >>> 6] & (1L << edge)) != 0) {
+        return;
+      }
+      listed[edge >>> 6] |= 1L << edge;
+      int entry = free;
+      if (entry >= 0) {
+        free = next[entry];
+      } else {
+        if (entryCount == stars.length) {
+          stars = Arrays.copyOf(stars, entryCount * 2);
+          edges = Arrays.copyOf(edges, entryCount * 2);
+          next = Arrays.copyOf(next, entryCount * 2);
+        }
+        entry = entryCount++;
+      }
+      stars[entry] = star;
+      edges[entry] = edge;
+      next[entry] = head(successor);
+      heads[successor] = entry;
+      headGenerations[successor] = generation;
+    }
+
+    /**
+     * Frees the entry.
+     *
+     * @return the entry after it in its list
+     */
+    int remove(int entry) {
+      listed[edges[entry] >>> 6] &= ~(1L << edges[entry]);
+      int following = next[entry];
+      next[entry] = free;
+      free = entry;
+      return following;
+    }
+
+    void clear(int star) {
+      heads[star] = -1;
+      headGenerations[star] = generation;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package assignment.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The mutable state of a DFS over int indexed stars: a {@code long[]} bitset of the stars on the
+ * current path and, for every depth, the star, the next edge to follow and the travel time so far.
+ * <p>
+ * Allocating these arrays for every query is what made path enumeration expensive on large maps,
+ * so every thread keeps one released state around and hands it to the next query. A state is owned
+ * by one enumeration at a time; a thread running two enumerations at once gets a second one.
+ */
+final class DfsState {
+
+  private static final ThreadLocal<DfsState> RELEASED = new ThreadLocal<>();
+
+  final int[] path;
+  final int[] cursors;
+  final int[] travelTimes;
+  private final long[] visited;
+  private final int capacity;
+
+  private DfsState(int capacity) {
+    this.capacity = capacity;
+    // a simple path can not be longer than the number of stars, cycles close with one more stop
+    this.path = new int[capacity + 1];
+    this.cursors = new int[capacity + 1];
+    this.travelTimes = new int[capacity + 1];
+    this.visited = new long[(capacity + 63) >>> 6];
+  }
+
+  /**
+   * @param nodeCount the number of stars of the graph to traverse
+   * @return a state with no visited star, owned by the caller until it is released
+   */
+  static DfsState acquire(int nodeCount) {
+    DfsState state = RELEASED.get();
+    if (state == null || state.capacity < nodeCount) {
+      return new DfsState(nodeCount);
+    }
+    RELEASED.remove();
+    return state;
+  }
+
+  /**
+   * Hands the state back for the next enumeration of the current thread. An enumeration which has
+   * been stopped half way can leave stars marked, so they are cleared here.
+   */
+  void release() {
+    Arrays.fill(visited, 0L);
+    RELEASED.set(this);
+  }
+
+  boolean isVisited(int node) {
+    return (visited[node >>> 6] & (1L << node)) != 0;
+  }
+
+  void visit(int node) {
+    visited[node >>> 6] |= 1L << node;
+  }
+
+  void leave(int node) {
+    visited[node >>> 6] &= ~(1L << node);
+  }
+}
@@ -0,0 +1,63 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The shortest travel times from a list of source stars to a list of target stars, kept in one
+ * {@code int[]} of {@code sources x targets} entries. Routes are not kept; {@link #route(int, int)}
+ * asks the {@link PathFinder} which built the matrix for the one which is wanted, so it uses the
+ * same tables or hierarchy and reports to the same listener.
+ */
+public final class DistanceMatrix {
+
+  /**
+   * The travel time of a target which can not be reached from the source
+   */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final PathFinder finder;
+  private final List<Star> sources;
+  private final List<Star> targets;
+  private final int[] distances;
+
+  DistanceMatrix(PathFinder finder, List<Star> sources, List<Star> targets, int[] distances) {
+    this.finder = finder;
+    this.sources = sources;
+    this.targets = targets;
+    this.distances = distances;
+  }
+
+  public List<Star> sources() {
+    return sources;
+  }
+
+  public List<Star> targets() {
+    return targets;
+  }
+
+  /**
+   * @param source the position of the source in {@link #sources()}
+   * @param target the position of the target in {@link #targets()}
+   * @return the travel time of the shortest route or {@link #UNREACHABLE}
+   * @throws IndexOutOfBoundsException if either position is outside its list
+   */
+  public int distance(int source, int target) {
+    Objects.checkIndex(source, sources.size());
+    Objects.checkIndex(target, targets.size());
+    return distances[source * targets.size() + target];
+  }
+
+  /**
+   * @return the shortest route from the source to the target, or null if there is none
+   * @throws IndexOutOfBoundsException if either position is outside its list
+   */
+  public Route route(int source, int target) {
+    if (distance(source, target) == UNREACHABLE) {
+      return null;
+    }
+    return finder.findShortestPath(sources.get(source), targets.get(target));
+  }
+}
@@ -0,0 +1,195 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraph;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A star graph whose highways can be inserted, removed and reweighted. The shortest path trees of
+ * the tracked source stars are repaired after every update by {@link ShortestPathTree}, so their
+ * queries never search the graph again.
+ * <p>
+ * Updates and queries are guarded by a read-write lock: a query sees the graph either before or
+ * after an update, never in between. {@link #snapshot()} compiles the graph into an immutable
+ * {@link PathFinder} which stays consistent however the graph changes afterwards; it is compiled
+ * again only after an update.
+ * <p>
+ * The travel times must not be negative. In an undirected graph a highway leads both ways, and an
+ * update repairs the trees in both directions.
+ */
+public class DynamicStarGraph {
+
+  private final MutableValueGraph<Star, Integer> graph;
+  private final Map<Star, Integer> indexes = new HashMap<>();
+  private final List<Star> stars = new ArrayList<>();
+  private final Map<Star, ShortestPathTree> trees = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private PathFinder snapshot;
+
+  public DynamicStarGraph(ValueGraph<Star, Integer> graph) {
+    Objects.requireNonNull(graph, "graph should not be null");
+    for (Star from : graph.nodes()) {
+      for (Star to : graph.successors(from)) {
+        requireTravelTime(graph.edgeValueOrDefault(from, to, 0));
+      }
+    }
+    this.graph = Graphs.copyOf(graph);
+    for (Star star : this.graph.nodes()) {
+      index(star);
+    }
+  }
+
+  /**
+   * Inserts the highway from one star to another, or changes its travel time. Stars which are not
+   * part of the graph yet are added.
+   */
+  public void putEdge(Star from, Star to, int travelTime) {
+    requireTravelTime(travelTime);
+    lock.writeLock().lock();
+    try {
+      Integer previous = graph.putEdgeValue(from, to, travelTime);
+      int fromIndex = index(from);
+      int toIndex = index(to);
+      snapshot = null;
+      for (ShortestPathTree tree : trees.values()) {
+        if (previous == null || travelTime < previous) {
+          tree.edgeDecreased(fromIndex, toIndex, travelTime);
+          if (!graph.isDirected()) {
+            tree.edgeDecreased(toIndex, fromIndex, travelTime);
+          }
+        } else if (travelTime > previous) {
+          tree.edgeIncreased(fromIndex, toIndex);
+          if (!graph.isDirected()) {
+            tree.edgeIncreased(toIndex, fromIndex);
+          }
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the highway from one star to another.
+   *
+   * @return false if there was no such highway
+   */
+  public boolean removeEdge(Star from, Star to) {
+    lock.writeLock().lock();
+    try {
+      if (graph.removeEdge(from, to) == null) {
+        return false;
+      }
+      snapshot = null;
+      for (ShortestPathTree tree : trees.values()) {
+        tree.edgeIncreased(indexes.get(from), indexes.get(to));
+        if (!graph.isDirected()) {
+          tree.edgeIncreased(indexes.get(to), indexes.get(from));
+        }
+      }
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Keeps the shortest path tree of the source up to date from now on. Every update costs a repair
+   * of every tracked tree, so only the sources which are queried often should be tracked.
+   */
+  public void track(Star source) {
+    lock.writeLock().lock();
+    try {
+      int index = requireIndex(source);
+      trees.computeIfAbsent(source,
+          star -> new ShortestPathTree(graph, indexes, stars, index));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void untrack(Star source) {
+    lock.writeLock().lock();
+    try {
+      trees.remove(source);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the shortest route, from the tree of the source if it is tracked and with a search of the
+   * current snapshot otherwise.
+   *
+   * @return the shortest route, or null if the target can not be reached
+   * @see PathFinder#findShortestPath(Star, Star)
+   */
+  public Route findShortestPath(Star source, Star target) {
+    lock.readLock().lock();
+    try {
+      ShortestPathTree tree = trees.get(source);
+      if (tree != null) {
+        return tree.route(requireIndex(target));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return snapshot().findShortestPath(source, target);
+  }
+
+  /**
+   * @return a PathFinder over the graph as it is now, which later updates do not change
+   */
+  public PathFinder snapshot() {
+    lock.readLock().lock();
+    try {
+      if (snapshot != null) {
+        return snapshot;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    lock.writeLock().lock();
+    try {
+      if (snapshot == null) {
+        snapshot = new PathFinder(new CompiledStarGraph(graph));
+      }
+      return snapshot;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int index(Star star) {
+    Integer index = indexes.get(star);
+    if (index == null) {
+      index = stars.size();
+      stars.add(star);
+      indexes.put(star, index);
+    }
+    return index;
+  }
+
+  private int requireIndex(Star star) {
+    Integer index = indexes.get(star);
+    if (index == null) {
+      throw new IllegalArgumentException("Node " + star + " is not an element of this graph.");
+    }
+    return index;
+  }
+
+  private static void requireTravelTime(int travelTime) {
+    if (travelTime < 0) {
+      throw new IllegalArgumentException("travel time should not be negative");
+    }
+  }
+}
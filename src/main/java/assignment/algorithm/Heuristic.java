@@ -0,0 +1,25 @@
+package assignment.algorithm;
+
+/**
+ * A lower bound of the travel time between two stars of a
+ * {@link assignment.algorithm.datastructure.CompiledStarGraph}, used by the A* search of
+ * {@link PathFinder#findShortestPath(assignment.algorithm.datastructure.Star,
+ * assignment.algorithm.datastructure.Star, Heuristic)}. The bound has to be consistent: for every
+ * edge {@code u -> v} with travel time {@code w}, {@code estimate(u, t) <= w + estimate(v, t)}.
+ * Otherwise A* may return a route which is not the shortest.
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+  /**
+   * Estimates nothing, which turns A* into Dijkstra
+   */
+  Heuristic NONE = (node, target) -> 0;
+
+  /**
+   * @param node   the index of the star the search has reached
+   * @param target the index of the star the search is looking for
+   * @return a travel time which is not larger than the one of the shortest route
+   */
+  int estimate(int node, int target);
+}
@@ -0,0 +1,256 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.IndexedMinHeap;
+import java.util.Arrays;
+
+/**
+ * The preprocessing of a {@link ContractionHierarchy}. Stars are contracted one by one, least
+ * important first: a contracted star is removed from the remaining graph, and a shortcut replaces
+ * every route through it which no other route (a witness) is as short as. The edges a star has when
+ * it is contracted all lead to more important stars, they become its upward edges.
+ * <p>
+ * The importance of a star is twice the number of shortcuts its contraction adds minus the edges it
+ * removes, plus the number of its neighbours contracted already and its level (one above the
+ * highest level of those neighbours), so contractions are spread over the map and the hierarchy
+ * stays flat. Importances change while the graph shrinks; they are recomputed lazily when a star
+ * comes first in the queue. A witness search gives up after {@link #SETTLE_LIMIT} stars, or
+ * {@link #ESTIMATE_SETTLE_LIMIT} while the importance is only estimated, which can only add
+ * unnecessary shortcuts, never wrong ones.
+ * <p>
+ * Maps with a hierarchy, like grids of highways or hubs, contract well. Random maps do not: their
+ * remaining graph becomes dense, and preprocessing them takes long and adds many shortcuts.
+ */
+final class HierarchyBuilder {
+
+  private static final int SETTLE_LIMIT = 500;
+  private static final int ESTIMATE_SETTLE_LIMIT = 50;
+
+  private final int nodeCount;
+  private final Edges[] outgoing;
+  private final Edges[] incoming;
+  private final int[] contractedNeighbours;
+  private final int[] levels;
+  private final int[] witnessDistances;
+  private final int[] witnessReached;
+  private final IndexedMinHeap witnessQueue;
+  private int generation;
+
+  private final Edges[] upward;
+  private final Edges[] downward;
+
+  HierarchyBuilder(CompiledStarGraph graph) {
+    this.nodeCount = graph.nodeCount();
+    this.outgoing = new Edges[nodeCount];
+    this.incoming = new Edges[nodeCount];
+    for (int node = 0; node < nodeCount; node++) {
+      outgoing[node] = new Edges();
+      incoming[node] = new Edges();
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+        int target = graph.target(edge);
+        int weight = graph.weight(edge);
+        if (weight < 0) {
+          throw new IllegalArgumentException("contraction needs travel times which are not negative");
+        }
+        if (target != node && weight != Integer.MAX_VALUE) {
+          addEdge(node, target, weight, ContractionHierarchy.NO_MIDDLE);
+        }
+      }
+    }
+    this.contractedNeighbours = new int[nodeCount];
+    this.levels = new int[nodeCount];
+    this.witnessDistances = new int[nodeCount];
+    this.witnessReached = new int[nodeCount];
+    this.witnessQueue = new IndexedMinHeap(nodeCount);
+    this.upward = new Edges[nodeCount];
+    this.downward = new Edges[nodeCount];
+  }
+
+  /**
+   * Contracts every star.
+   *
+   * @return the upward edges of every star followed by its downward edges, which lead from more
+   * important stars to it
+   */
+  Edges[][] contract() {
+    IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+    for (int node = 0; node < nodeCount; node++) {
+      queue.insert(node, importance(node));
+    }
+    while (!queue.isEmpty()) {
+      int node = queue.pollMin();
+      int importance = importance(node);
+      if (!queue.isEmpty() && importance > queue.priority(queue.peekMin())) {
+        // the importance has grown since it was queued, another star comes first
+        queue.insert(node, importance);
+        continue;
+      }
+      upward[node] = outgoing[node];
+      downward[node] = incoming[node];
+      shortcuts(node, true);
+      // the remaining graph does not need the edges of the star any more
+      for (int i = 0; i < upward[node].size; i++) {
+        detach(node, upward[node].nodes[i], incoming);
+      }
+      for (int i = 0; i < downward[node].size; i++) {
+        detach(node, downward[node].nodes[i], outgoing);
+      }
+      outgoing[node] = null;
+      incoming[node] = null;
+    }
+    return new Edges[][]{upward, downward};
+  }
+
+  private void detach(int node, int neighbour, Edges[] edges) {
+    if (edges[neighbour].remove(node)) {
+      contractedNeighbours[neighbour]++;
+      levels[neighbour] = Math.max(levels[neighbour], levels[node] + 1);
+    }
+  }
+
+  private int importance(int node) {
+    int removed = outgoing[node].size + incoming[node].size;
+    return 2 * (shortcuts(node, false) - removed) + contractedNeighbours[node] + levels[node];
+  }
+
+  /**
+   * Finds the shortcuts the contraction of the star needs.
+   *
+   * @param add whether to add them to the remaining graph or only count them
+   * @return the number of shortcuts
+   */
+  private int shortcuts(int node, boolean add) {
+    Edges in = incoming[node];
+    Edges out = outgoing[node];
+    int count = 0;
+    for (int i = 0; i < in.size; i++) {
+      int from = in.nodes[i];
+      int limit = 0;
+      for (int j = 0; j < out.size; j++) {
+        if (out.nodes[j] != from) {
+          limit = Math.max(limit, in.weights[i] + out.weights[j]);
+        }
+      }
+      witnessSearch(from, node, limit, add ? SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+      for (int j = 0; j < out.size; j++) {
+        int to = out.nodes[j];
+        if (to == from) {
+          continue;
+        }
+        int via = in.weights[i] + out.weights[j];
+        if (witnessReached[to] != generation || witnessDistances[to] > via) {
+          count++;
+          if (add) {
+            addEdge(from, to, via, node);
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Dijkstra in the remaining graph without the star to contract, up to the limit distance.
+   */
+  private void witnessSearch(int source, int skipped, int limit, int settleLimit) {
+    if (++generation == 0) {
+      Arrays.fill(witnessReached, 0);
+      generation = 1;
+    }
+    witnessQueue.clear();
+    witnessReached[source] = generation;
+    witnessDistances[source] = 0;
+    witnessQueue.insert(source, 0);
+    int settled = 0;
+    while (!witnessQueue.isEmpty() && settled++ < settleLimit) {
+      int node = witnessQueue.pollMin();
+      int distance = witnessDistances[node];
+      if (distance > limit) {
+        break;
+      }
+      Edges out = outgoing[node];
+      for (int i = 0; i < out.size; i++) {
+        int next = out.nodes[i];
+        if (next == skipped) {
+          continue;
+        }
+        int nextDistance = distance + out.weights[i];
+        if (witnessReached[next] != generation) {
+          witnessReached[next] = generation;
+          witnessDistances[next] = nextDistance;
+          witnessQueue.insert(next, nextDistance);
+        } else if (nextDistance < witnessDistances[next] && witnessQueue.contains(next)) {
+          witnessDistances[next] = nextDistance;
+          witnessQueue.decreaseKey(next, nextDistance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the edge, or lowers the weight of the edge between the two stars if it is longer.
+   */
+  private void addEdge(int from, int to, int weight, int middle) {
+    Edges out = outgoing[from];
+    int position = out.indexOf(to);
+    if (position < 0) {
+      out.add(to, weight, middle);
+      incoming[to].add(from, weight, middle);
+    } else if (weight < out.weights[position]) {
+      out.set(position, weight, middle);
+      Edges in = incoming[to];
+      in.set(in.indexOf(from), weight, middle);
+    }
+  }
+
+  /**
+   * The edges of a star as growing arrays of the stars at their other ends, their weights and the
+   * stars the shortcuts among them skip.
+   */
+  static final class Edges {
+
+    int[] nodes = new int[4];
+    int[] weights = new int[4];
+    int[] middles = new int[4];
+    int size;
+
+    void add(int node, int weight, int middle) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+        weights = Arrays.copyOf(weights, size * 2);
+        middles = Arrays.copyOf(middles, size * 2);
+      }
+      nodes[size] = node;
+      weights[size] = weight;
+      middles[size++] = middle;
+    }
+
+    void set(int position, int weight, int middle) {
+      weights[position] = weight;
+      middles[position] = middle;
+    }
+
+    int indexOf(int node) {
+      for (int i = 0; i < size; i++) {
+        if (nodes[i] == node) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    boolean remove(int node) {
+      int position = indexOf(node);
+      if (position < 0) {
+        return false;
+      }
+      size--;
+      nodes[position] = nodes[size];
+      weights[position] = weights[size];
+      middles[position] = middles[size];
+      return true;
+    }
+  }
+}
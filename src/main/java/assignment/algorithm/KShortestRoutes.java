@@ -0,0 +1,156 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Yen's k-shortest loopless paths. Every call to {@link #next()} returns the next route in travel
+ * time order, so the k shortest routes cost k rounds of spur searches instead of enumerating all
+ * routes. When the source and the target are the same star, the routes are the simple cycles
+ * through it.
+ * <p>
+ * A round takes the last route found, and for every star on it (the spur node) searches the
+ * shortest deviation which keeps the route up to the spur node (the root path) but leaves the spur
+ * node through an edge none of the already found routes with the same root path used. Stars of the
+ * root path are blocked, so the deviations stay loopless. The deviations are the candidates of the
+ * next rounds.
+ */
+class KShortestRoutes implements Iterator<Route> {
+
+  private final CompiledStarGraph graph;
+  private final ShortestPathSearch search;
+  private final int source;
+  private final int target;
+  private final List<Candidate> found = new ArrayList<>();
+  private final PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+      Comparator.comparingInt((Candidate candidate) -> candidate.travelTime)
+          .thenComparingLong(candidate -> candidate.sequence));
+  private final Set<Candidate> seen = new HashSet<>();
+  private long sequence;
+  private Candidate next;
+
+  KShortestRoutes(CompiledStarGraph graph, int source, int target) {
+    this.graph = graph;
+    this.search = new ShortestPathSearch(graph);
+    this.source = source;
+    this.target = target;
+    if (search.search(source, target)) {
+      offer(search.path(source, target), search.distance(target));
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (next == null && !candidates.isEmpty()) {
+      Candidate candidate = candidates.poll();
+      found.add(candidate);
+      spur(candidate);
+      // routes without travel time are not reported by the DFS either
+      if (candidate.travelTime > 0) {
+        next = candidate;
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public Route next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("there is not any more route");
+    }
+    Candidate candidate = next;
+    next = null;
+    return Route.of(new CompactRoute(graph, candidate.path, candidate.travelTime));
+  }
+
+  private void spur(Candidate last) {
+    int[] path = last.path;
+    int rootTravelTime = 0;
+    for (int i = 0; i < path.length - 1; i++) {
+      int spurNode = path[i];
+      // Leave the spur node through edges the found routes with this root path did not use
+      List<Integer> blockedEdges = new ArrayList<>();
+      for (Candidate route : found) {
+        if (route.path.length > i + 1 && Arrays.equals(route.path, 0, i + 1, path, 0, i + 1)) {
+          int edge = edgeIndex(route.path[i], route.path[i + 1]);
+          search.blockEdge(edge, true);
+          blockedEdges.add(edge);
+        }
+      }
+      // The root path stays loopless, the target of a cycle is the only star which can repeat
+      for (int j = 0; j < i; j++) {
+        if (path[j] != target) {
+          search.blockNode(path[j], true);
+        }
+      }
+
+      if (search.search(spurNode, target)) {
+        int[] spurPath = search.path(spurNode, target);
+        int[] candidate = Arrays.copyOf(path, i + spurPath.length);
+        System.arraycopy(spurPath, 0, candidate, i, spurPath.length);
+        offer(candidate, rootTravelTime + search.distance(target));
+      }
+
+      for (int j = 0; j < i; j++) {
+        search.blockNode(path[j], false);
+      }
+      for (int edge : blockedEdges) {
+        search.blockEdge(edge, false);
+      }
+      rootTravelTime += graph.edgeWeight(path[i], path[i + 1]);
+    }
+  }
+
+  private void offer(int[] path, int travelTime) {
+    Candidate candidate = new Candidate(path, travelTime, sequence++);
+    if (seen.add(candidate)) {
+      candidates.add(candidate);
+    }
+  }
+
+  private int edgeIndex(int from, int to) {
+    for (int edge = graph.edgeStart(from); edge < graph.edgeEnd(from); edge++) {
+      if (graph.target(edge) == to) {
+        return edge;
+      }
+    }
+    throw new IllegalStateException("there is no edge between " + from + " and " + to);
+  }
+
+  /**
+   * A route as star indexes. Equality only looks at the stars, so the same deviation found from
+   * different spur nodes is kept once.
+   */
+  private static final class Candidate {
+
+    private final int[] path;
+    private final int travelTime;
+    private final long sequence;
+
+    private Candidate(int[] path, int travelTime, long sequence) {
+      this.path = path;
+      this.travelTime = travelTime;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Candidate && Arrays.equals(path, ((Candidate) other).path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(path);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import java.util.Arrays;
+
+/**
+ * The ALT heuristic (A*, landmarks and the triangle inequality). For a few landmark stars the
+ * distances from and to every star are precomputed; by the triangle inequality
+ * {@code d(L, t) - d(L, v)} and {@code d(v, L) - d(t, L)} are lower bounds of {@code d(v, t)} for
+ * every landmark L, and the largest of them is the estimate.
+ * <p>
+ * The landmarks are picked one after the other as the star farthest from the ones picked so far,
+ * which puts them on the border of the map where they give the tightest bounds.
+ */
+public final class LandmarkHeuristic implements Heuristic {
+
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final int[] landmarks;
+  // distances[landmark][star] from the landmark, reverseDistances[landmark][star] to the landmark
+  private final int[][] distances;
+  private final int[][] reverseDistances;
+
+  private LandmarkHeuristic(int[] landmarks, int[][] distances, int[][] reverseDistances) {
+    this.landmarks = landmarks;
+    this.distances = distances;
+    this.reverseDistances = reverseDistances;
+  }
+
+  /**
+   * Picks the landmarks and computes their distance vectors with two Dijkstra searches each.
+   *
+   * @param graph     the graph the heuristic is used on, its travel times should not be negative
+   * @param landmarks the number of landmarks, more of them give tighter bounds for more memory
+   */
+  public static LandmarkHeuristic compute(CompiledStarGraph graph, int landmarks) {
+    if (graph.hasNegativeWeights()) {
+      throw new IllegalArgumentException("landmark bounds need non-negative travel times");
+    }
+    int count = Math.min(landmarks, graph.nodeCount());
+    int[] chosen = new int[count];
+    int[][] distances = new int[count][];
+    int[][] reverseDistances = new int[count][];
+    ShortestPathSearch forward = new ShortestPathSearch(graph);
+    ShortestPathSearch backward = new ShortestPathSearch(graph.reverse());
+    // the distance of every star to the closest landmark picked so far, in both directions
+    long[] closest = new long[graph.nodeCount()];
+    Arrays.fill(closest, Long.MAX_VALUE);
+
+    int next = 0;
+    for (int i = 0; i < count; i++) {
+      chosen[i] = next;
+      distances[i] = distancesFrom(forward, next, graph.nodeCount());
+      reverseDistances[i] = distancesFrom(backward, next, graph.nodeCount());
+      long farthest = -1;
+      for (int node = 0; node < graph.nodeCount(); node++) {
+        long distance = (long) Math.min(distances[i][node], reverseDistances[i][node]);
+        closest[node] = Math.min(closest[node], distance);
+        if (closest[node] > farthest) {
+          farthest = closest[node];
+          next = node;
+        }
+      }
+    }
+    return new LandmarkHeuristic(chosen, distances, reverseDistances);
+  }
+
+  /**
+   * @return the indexes of the landmark stars
+   */
+  public int[] landmarks() {
+    return landmarks.clone();
+  }
+
+  @Override
+  public int estimate(int node, int target) {
+    int estimate = 0;
+    for (int i = 0; i < landmarks.length; i++) {
+      int[] from = distances[i];
+      if (from[target] != UNREACHABLE && from[node] != UNREACHABLE) {
+        estimate = Math.max(estimate, from[target] - from[node]);
+      }
+      int[] to = reverseDistances[i];
+      if (to[node] != UNREACHABLE && to[target] != UNREACHABLE) {
+        estimate = Math.max(estimate, to[node] - to[target]);
+      }
+    }
+    return estimate;
+  }
+
+  private static int[] distancesFrom(ShortestPathSearch search, int landmark, int nodeCount) {
+    int[] distances = new int[nodeCount];
+    Arrays.fill(distances, UNREACHABLE);
+    search.searchAll(landmark);
+    for (int i = 0; i < search.settledCount(); i++) {
+      int node = search.settled(i);
+      distances[node] = search.distance(node);
+    }
+    return distances;
+  }
+}
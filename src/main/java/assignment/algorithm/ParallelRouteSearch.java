@@ -0,0 +1,76 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Enumerates the routes below a path prefix as a fork-join task. Down to the split depth a task
+ * only walks one level of the DFS tree: the routes it finds there go into its own buffer and every
+ * subtree becomes a forked task which idle workers can steal. Below the split depth a subtree is
+ * enumerated sequentially.
+ * <p>
+ * The buffers are merged in the order the subtrees appear in the DFS, so the merged list is exactly
+ * the order the sequential {@link RouteEnumerator} produces.
+ */
+class ParallelRouteSearch extends RecursiveTask<List<Route>> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final CompiledStarGraph graph;
+  private final int[] prefix;
+  private final int travelTime;
+  private final int target;
+  private final PathConstraints constraints;
+  private final int splitDepth;
+
+  ParallelRouteSearch(CompiledStarGraph graph, int source, int target,
+      PathConstraints constraints, int splitDepth) {
+    this(graph, new int[]{source}, 0, target, constraints, splitDepth);
+  }
+
+  private ParallelRouteSearch(CompiledStarGraph graph, int[] prefix, int travelTime, int target,
+      PathConstraints constraints, int splitDepth) {
+    this.graph = graph;
+    this.prefix = prefix;
+    this.travelTime = travelTime;
+    this.target = target;
+    this.constraints = constraints;
+    this.splitDepth = splitDepth;
+  }
+
+  @Override
+  protected List<Route> compute() {
+    boolean split = prefix.length <= splitDepth;
+    RouteEnumerator enumerator = new RouteEnumerator(graph, prefix, travelTime, target,
+        constraints, split ? prefix.length : Integer.MAX_VALUE);
+    // routes and subtree tasks in DFS order, a route stands for itself
+    List<Object> parts = new ArrayList<>();
+    while (enumerator.advance()) {
+      int[] subtree = enumerator.subtree();
+      if (subtree == null) {
+        parts.add(enumerator.route());
+      } else {
+        int length = subtree.length - 1;
+        ParallelRouteSearch task = new ParallelRouteSearch(graph,
+            Arrays.copyOf(subtree, length), subtree[length], target, constraints, splitDepth);
+        task.fork();
+        parts.add(task);
+      }
+    }
+
+    List<Route> routes = new ArrayList<>();
+    for (Object part : parts) {
+      if (part instanceof ParallelRouteSearch) {
+        routes.addAll(((ParallelRouteSearch) part).join());
+      } else {
+        routes.add((Route) part);
+      }
+    }
+    return routes;
+  }
+}
@@ -1,35 +1,108 @@
 package assignment.algorithm;
 
-import assignment.algorithm.datastructure.NodePriorityQueue;
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.QueryType;
 import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.RouteSearchResult;
+import assignment.algorithm.datastructure.SearchBudget;
 import assignment.algorithm.datastructure.Star;
+import assignment.algorithm.metrics.QueryListener;
+import assignment.algorithm.metrics.QueryStats;
 import com.google.common.graph.ValueGraph;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * This class is mainly using DFS algorithm for find all paths and cycles in a graph. For the
  * shortest path that is not having cycle I used Dijkstra algorithm. For the shortest path that has
- * a cycle, I looked for the cycles and sort the results asc and get the first which should be the
- * shortest path.
+ * a cycle, Dijkstra starts from the successors of the star and searches the way back to it.
+ * <p>
+ * The graph is compiled into a {@link CompiledStarGraph} once, so the searches walk primitive
+ * arrays instead of the {@link ValueGraph} views. Cycles are enumerated with Johnson's algorithm
+ * inside the strongly connected component of the star, the components are found on the first cycle
+ * query.
  */
 @Slf4j
 public class PathFinder {
 
-  private final ValueGraph<Star, Integer> graph;
+  /**
+   * The number of DFS levels which are split into fork-join tasks by default
+   */
+  public static final int DEFAULT_SPLIT_DEPTH = 4;
+
+  // some virtual machines reserve a few header words in an array
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  private final CompiledStarGraph graph;
+  private final AllPairsShortestPaths shortestPaths;
+  private final ContractionHierarchy hierarchy;
+  private volatile StronglyConnectedComponents components;
+  private volatile QueryListener listener;
 
   public PathFinder(ValueGraph<Star, Integer> graph) {
+    this(new CompiledStarGraph(graph));
+  }
+
+  public PathFinder(CompiledStarGraph graph) {
     this.graph = graph;
+    this.shortestPaths = null;
+    this.hierarchy = null;
+  }
+
+  /**
+   * A PathFinder which answers {@link #findShortestPath(Star, Star)} from precomputed tables
+   * instead of running Dijkstra.
+   *
+   * @param shortestPaths the tables loaded for the graph to search
+   */
+  public PathFinder(AllPairsShortestPaths shortestPaths) {
+    this.graph = shortestPaths.getGraph();
+    this.shortestPaths = shortestPaths;
+    this.hierarchy = null;
+  }
+
+  /**
+   * A PathFinder which answers {@link #findShortestPath(Star, Star)} with bidirectional searches
+   * in a contraction hierarchy instead of running Dijkstra.
+   *
+   * @param hierarchy the hierarchy built or loaded for the graph to search
+   */
+  public PathFinder(ContractionHierarchy hierarchy) {
+    this.graph = hierarchy.getGraph();
+    this.shortestPaths = null;
+    this.hierarchy = hierarchy;
+  }
+
+  public CompiledStarGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * Installs a listener which receives the {@link QueryStats} of every {@link #findPaths},
+   * {@link #findShortestPath}, {@link #findShortestPathInCycle} and counting query, for example
+   * {@link assignment.algorithm.metrics.PathFinderMetrics}. Without a listener the queries do not
+   * even read the clock.
+   *
+   * @param listener the listener, or null to stop reporting
+   */
+  public void setQueryListener(QueryListener listener) {
+    this.listener = listener;
   }
 
   /**
@@ -41,209 +114,692 @@ public class PathFinder {
    * @return the list of available routes between the starting and target Star
    */
   public List<Route> findPath(Star from, Star to) {
-    LinkedList<Star> notVisited = new LinkedList<>(graph.nodes());
-    LinkedList<Star> pathList = new LinkedList<>();
-    LinkedList<Route> routes = new LinkedList<>();
-    //add source to path list
-    pathList.add(from);
+    return findPaths(from, to, PathConstraints.none());
+  }
 
-    // Call recursive method
-    if (from.equals(to)) {
-      findAllCycles(from, to, notVisited, pathList, routes);
-    } else {
-      findAllPath(from, to, notVisited, pathList, routes);
+  /**
+   * Finds the routes between two stars which match the constraints. Unlike filtering the result of
+   * {@link #findPath(Star, Star)}, the constraints are checked during the DFS and a branch is left
+   * as soon as it can not produce a matching route any more.
+   *
+   * @param from        the starting Star
+   * @param to          the target Star
+   * @param constraints the stops and travel time limits of the routes
+   * @return the matching routes sorted by travel time ascending
+   */
+  public List<Route> findPaths(Star from, Star to, PathConstraints constraints) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    QueryListener listener = this.listener;
+    long start = listener == null ? 0 : System.nanoTime();
+    RouteIterator enumerator = enumerator(requireIndex(from), requireIndex(to), constraints);
+    LinkedList<Route> routes = enumerate(enumerator);
+    if (listener != null) {
+      report(listener, QueryType.FIND_PATHS, start, enumerator);
     }
-    //sort the routes based on travel time ascending
-    routes.sort(Comparator.comparing(Route::getTotalTravelTime));
     return routes;
   }
 
   /**
-   * This method implements the DFS in recursive. It travers the graph to find the routes between
-   * source and target
+   * Same as {@link #findPaths(Star, Star, PathConstraints)}, with the subtrees of the DFS searched
+   * in parallel on the common fork-join pool.
+   */
+  public List<Route> findPathsInParallel(Star from, Star to, PathConstraints constraints) {
+    return findPathsInParallel(from, to, constraints, ForkJoinPool.commonPool(),
+        DEFAULT_SPLIT_DEPTH);
+  }
+
+  /**
+   * Finds the same routes in the same order as {@link #findPaths(Star, Star, PathConstraints)},
+   * but searches the subtrees of the DFS in parallel. Every star down to the split depth becomes a
+   * fork-join task; subtrees below it are searched sequentially by the worker which took them.
    *
-   * @param from       The source which is a Star
-   * @param to         The target which is a Star
-   * @param notVisited The List of not visited nodes in finding the path
-   * @param path       the list of stars in the current path in the recursive call
-   * @param routes     the list of Routes will be found and returned after recursive method ends.
+   * @param from        the starting Star
+   * @param to          the target Star
+   * @param constraints the stops and travel time limits of the routes
+   * @param pool        the pool to run the search in
+   * @param splitDepth  the number of DFS levels split into tasks, 0 searches sequentially
+   * @return the matching routes sorted by travel time ascending
    */
-  private void findAllPath(Star from, Star to, List<Star> notVisited, List<Star> path,
-      List<Route> routes) {
+  public List<Route> findPathsInParallel(Star from, Star to, PathConstraints constraints,
+      ForkJoinPool pool, int splitDepth) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    if (splitDepth < 0) {
+      throw new IllegalArgumentException("split depth should not be negative");
+    }
+    List<Route> routes = pool.invoke(new ParallelRouteSearch(graph, requireIndex(from),
+        requireIndex(to), constraints, splitDepth));
+    //sort the routes based on travel time ascending
+    LinkedList<Route> sorted = new LinkedList<>(routes);
+    sorted.sort(Comparator.comparing(Route::getTotalTravelTime));
+    return sorted;
+  }
 
-    if (from.equals(to)) {
-      // if match found, it means we have reached to the destination.
-      // We should create the Route and add it to the list of Routes
-      Route route = Route.builder().path(new LinkedList<>(path))
-          .totalTravelTime(calculateTotalTravelTime(path)).build();
-      if (route.getTotalTravelTime() > 0) {
-        routes.add(route);
-        log.debug("Completed path:{}", route);
-      }
-      return;
-    }
-    // Mark the current node by removing from the notVisited list as we have seen it
-    notVisited.remove(from);
-    // Recur for all of the stars are exiting from the current Star (from)
-    for (Star node : graph.successors(from)) {
-      if (notVisited.contains(node)) {
-        // It's a new node should be added to path
-        path.add(node);
-        findAllPath(node, to, notVisited, path, routes);
-        // After recursion, it is not needed to be in the path. It's been added in other recursions
-        path.remove(node);
+  /**
+   * Lazily enumerates the routes between two stars. Routes are found while the stream is consumed
+   * and in DFS order rather than sorted, so short-circuiting operations like {@code limit},
+   * {@code findFirst} or {@code anyMatch} stop the search early. Closing the stream cancels it.
+   *
+   * @param from        the starting Star
+   * @param to          the target Star
+   * @param constraints the stops and travel time limits of the routes
+   * @return the stream of matching routes
+   */
+  public Stream<Route> streamPaths(Star from, Star to, PathConstraints constraints) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    RouteIterator enumerator = enumerator(requireIndex(from), requireIndex(to), constraints);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(enumerator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(enumerator::cancel);
+  }
+
+  /**
+   * Finds the cycles through a star which match the constraints, as far as the budget allows. The
+   * search stops when it has found {@link SearchBudget#getMaxRoutes()} cycles or its time is up, so
+   * a dense cluster with more cycles than anyone could use answers with a part of them instead of
+   * running for hours. Without a budget the result is the one of
+   * {@link #findPaths(Star, Star, PathConstraints)} from the star to itself.
+   * <p>
+   * Cycles are found in DFS order, so a cut short result holds the first cycles the search has
+   * found, sorted by travel time, not the shortest ones; {@link #streamShortestPaths(Star, Star)}
+   * finds those.
+   *
+   * @param star        the star the cycles start and end at
+   * @param constraints the stops and travel time limits of the cycles
+   * @param budget      the number of cycles and the time the search may take
+   * @return the cycles found sorted by travel time ascending, and whether they are all of them
+   */
+  public RouteSearchResult findCycles(Star star, PathConstraints constraints,
+      SearchBudget budget) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    Objects.requireNonNull(budget, "budget should not be null");
+    if (budget.getMaxRoutes() < 0) {
+      throw new IllegalArgumentException("max routes should not be negative");
+    }
+    int source = requireIndex(star);
+    QueryListener listener = this.listener;
+    long start = listener == null && budget.getTimeout() == null ? 0 : System.nanoTime();
+    long deadline = budget.getTimeout() == null ? CycleEnumerator.NO_DEADLINE
+        : start + budget.getTimeout().toNanos();
+    CycleEnumerator enumerator = new CycleEnumerator(graph, components(), source, constraints,
+        deadline);
+    LinkedList<Route> routes = new LinkedList<>();
+    boolean complete;
+    try {
+      while (routes.size() < budget.getMaxRoutes() && enumerator.hasNext()) {
+        routes.add(enumerator.next());
       }
+      // one more step tells whether the last cycle allowed was the last one
+      complete = !enumerator.hasNext() && !enumerator.timedOut();
+    } finally {
+      enumerator.close();
     }
-    // Mark the current node by adding it to the list as it should be available for other recursions
-    notVisited.add(from);
+    //sort the routes based on travel time ascending
+    routes.sort(Comparator.comparing(Route::getTotalTravelTime));
+    if (listener != null) {
+      report(listener, QueryType.FIND_CYCLES, start, enumerator);
+    }
+    return new RouteSearchResult(routes, complete);
   }
 
-  private void findAllCycles(Star from, Star to, List<Star> notVisited, List<Star> path,
-      List<Route> routes) {
+  /**
+   * Lazily enumerates the routes between two stars in travel time order with Yen's k-shortest paths
+   * algorithm. Taking the first k routes costs k rounds of shortest path searches, however many
+   * routes the graph has. When from and to are the same star, the cycles through it are returned.
+   *
+   * @param from the starting Star
+   * @param to   the target Star
+   * @return the stream of routes, shortest first
+   */
+  public Stream<Route> streamShortestPaths(Star from, Star to) {
+    KShortestRoutes routes = new KShortestRoutes(graph, requireIndex(from), requireIndex(to));
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(routes,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * @param from the starting Star
+   * @param to   the target Star
+   * @param k    the number of routes to find
+   * @return the k shortest routes (or all of them if there are less) sorted by travel time
+   */
+  public List<Route> findKShortestPaths(Star from, Star to, int k) {
+    return streamShortestPaths(from, to).limit(k).collect(Collectors.toList());
+  }
 
-    // Mark the current node
-    notVisited.remove(from);
+  /**
+   * Counts the walks between two stars which match the constraints, without building them. Unlike
+   * {@link #findPaths(Star, Star, PathConstraints)} a walk may visit stars more than once, and
+   * passing the target does not end it; "the trips from C to C with exactly 4 stops" are walks.
+   * The count is computed by dynamic programming over the stops and travel times, however many
+   * walks there are: a limit on the stops or on the travel time costs one pass over the graph per
+   * stop or unit of time, both limits together O(stops * travel time * stars). As in findPaths, a
+   * walk without travel time is not counted.
+   *
+   * @param from        the starting Star
+   * @param to          the target Star
+   * @param constraints the limits of the walks, the stops or the travel time have to be limited
+   * @return the number of walks, {@link Long#MAX_VALUE} if it does not fit in a long
+   * @throws IllegalArgumentException if neither the stops nor the travel time are limited, if a
+   *                                  travel time is negative, if only the travel time is limited
+   *                                  and a travel time is zero, or if the travel times are too large
+   *                                  to keep a count for every star and unit of travel time
+   */
+  public long countWalks(Star from, Star to, PathConstraints constraints) {
+    return count(QueryType.COUNT_WALKS, from, to, constraints, Long.MAX_VALUE);
+  }
 
-    for (Star node : graph.successors(from)) {
-      if (notVisited.contains(node)) {
-        // store current node in the path
-        path.add(node);
+  /**
+   * @return whether {@link #countWalks(Star, Star, PathConstraints)} would find any walk, stopping
+   * at the first limit which has one
+   */
+  public boolean hasWalk(Star from, Star to, PathConstraints constraints) {
+    return count(QueryType.COUNT_WALKS, from, to, constraints, 1) > 0;
+  }
 
-        findAllCycles(node, to, notVisited, path, routes);
+  /**
+   * Counts the routes {@link #findPaths(Star, Star, PathConstraints)} finds without building them.
+   * Simple paths have no polynomial counting algorithm, so this runs the same pruned DFS, but
+   * allocates nothing per route. Every cycle is counted once.
+   *
+   * @param from        the starting Star
+   * @param to          the target Star
+   * @param constraints the stops and travel time limits of the routes
+   * @return the number of routes, {@link Long#MAX_VALUE} if it does not fit in a long
+   */
+  public long countPaths(Star from, Star to, PathConstraints constraints) {
+    return count(QueryType.COUNT_PATHS, from, to, constraints, Long.MAX_VALUE);
+  }
 
-        //remove current node in the path
-        path.remove(node);
+  /**
+   * @return whether {@link #countPaths(Star, Star, PathConstraints)} would find any route, stopping
+   * the DFS at the first one
+   */
+  public boolean hasPath(Star from, Star to, PathConstraints constraints) {
+    return count(QueryType.COUNT_PATHS, from, to, constraints, 1) > 0;
+  }
 
-      } else {
-        //if we reach her, in the recursions, it means that we have found the cycle,
-        // and the result can be updated
-        LinkedList<Star> stars = new LinkedList<>(path);
-        stars.addLast(to);
-        Route route = Route.builder().path(stars)
-            .totalTravelTime(calculateTotalTravelTime(new ArrayList<>(stars))).build();
-        if (route.getTotalTravelTime() > 0) {
-          routes.add(route);
-          log.debug("Completed path:{}", route);
-        }
-      }
+  private long count(QueryType type, Star from, Star to, PathConstraints constraints,
+      long limit) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    QueryListener listener = this.listener;
+    long start = listener == null ? 0 : System.nanoTime();
+    int source = requireIndex(from);
+    int target = requireIndex(to);
+    RouteCounter counter = new RouteCounter(graph, source, target,
+        source == target ? components() : null, constraints, limit);
+    long count = type == QueryType.COUNT_WALKS ? counter.countWalks() : counter.countPaths();
+    if (listener != null) {
+      listener.queryCompleted(QueryStats.builder().type(type)
+          .latencyNanos(System.nanoTime() - start)
+          .nodesExpanded(counter.nodesExpanded())
+          .edgesRelaxed(counter.edgesRelaxed())
+          .routesPruned(counter.routesPruned()).build());
     }
-    // Mark the current node
-    notVisited.add(from);
+    return count;
   }
 
   /**
-   * DFS doesn't consider the weights in the path finding. We need to calculate the path total cost
-   * in this method
-   *
-   * @param path List of stars which composed the path between source and target
-   * @return the value representing the amount time which should be spent for this path travelling
+   * @return the enumeration of the routes from source to target, the cycles through it when they
+   * are the same star
    */
-  private int calculateTotalTravelTime(List<Star> path) {
-    Objects.requireNonNull(path, "path list should not be null");
-    int sum = 0;
-    if (path.size() > 0) {
-      Star start = path.get(0);
-      for (int i = 1; i < path.size(); i++) {
-        sum = sum + graph.edgeValueOrDefault(start, path.get(i), Integer.MAX_VALUE);
-        start = path.get(i);
-      }
+  private RouteIterator enumerator(int source, int target, PathConstraints constraints) {
+    return source == target ? new CycleEnumerator(graph, components(), source, constraints,
+        CycleEnumerator.NO_DEADLINE) : new RouteEnumerator(graph, source, target, constraints);
+  }
+
+  private StronglyConnectedComponents components() {
+    StronglyConnectedComponents components = this.components;
+    if (components == null) {
+      // two threads may both find them, with the same result
+      components = StronglyConnectedComponents.of(graph);
+      this.components = components;
+    }
+    return components;
+  }
+
+  private static LinkedList<Route> enumerate(RouteIterator enumerator) {
+    LinkedList<Route> routes = new LinkedList<>();
+    enumerator.forEachRemaining(routes::add);
+    //sort the routes based on travel time ascending
+    routes.sort(Comparator.comparing(Route::getTotalTravelTime));
+    return routes;
+  }
+
+  private static void report(QueryListener listener, QueryType type, long start,
+      RouteIterator enumerator) {
+    listener.queryCompleted(QueryStats.builder().type(type)
+        .latencyNanos(System.nanoTime() - start)
+        .nodesExpanded(enumerator.nodesExpanded())
+        .edgesRelaxed(enumerator.edgesRelaxed())
+        .routesEmitted(enumerator.routesEmitted())
+        .routesPruned(enumerator.routesPruned()).build());
+  }
+
+  private static void report(QueryListener listener, QueryType type, long start,
+      ShortestPathSearch search, Route route) {
+    QueryStats.QueryStatsBuilder stats = QueryStats.builder().type(type)
+        .latencyNanos(System.nanoTime() - start)
+        .routesEmitted(route == null ? 0 : 1);
+    if (search != null) {
+      stats.nodesExpanded(search.settledCount())
+          .edgesRelaxed(search.edgesRelaxed())
+          .heapOperations(search.heapOperations());
+    }
+    listener.queryCompleted(stats.build());
+  }
+
+  private int requireIndex(Star star) {
+    int index = graph.indexOf(star);
+    if (index < 0) {
+      throw new IllegalArgumentException("Node " + star + " is not an element of this graph.");
     }
-    return sum;
+    return index;
   }
 
   /**
-   * In order to find the shortest cycle length, I managed to find the cycles and sort them and
-   * finally return the first one from the list. This solution has been selected due to the
-   * time-being.
+   * Finds the shortest route of {@link #findPath(Star, Star)} without enumerating the routes. For a
+   * cycle, Dijkstra starts from the successors of the star and stops when it comes back to it, so
+   * the cost is polynomial however many cycles go through the star.
+   * <p>
+   * When several routes are equally short, the one the enumeration lists first is returned: a
+   * second Dijkstra from the target over the reversed graph finds which edges lie on a shortest
+   * route, and the route takes the first of them at every star, like the DFS does. Only ties
+   * through an edge without travel time may be broken differently.
    *
    * @param from Starting star
    * @param to   Ending Star
    * @return The route which has been found to be the minimum cycle.
    */
   public Route findShortestPathInCycle(Star from, Star to) {
-    List<Route> path = this.findPath(from, to);
-    return path.stream().sorted().findFirst()
-        .orElseThrow(() -> new IllegalStateException("there is not any route"));
+    int source = requireIndex(from);
+    int target = requireIndex(to);
+    QueryListener listener = this.listener;
+    long start = listener == null ? 0 : System.nanoTime();
+    Route route;
+    if (graph.hasNegativeWeights()) {
+      // Dijkstra can not rule out shorter routes behind a negative travel time
+      RouteIterator enumerator = enumerator(source, target, PathConstraints.none());
+      route = enumerate(enumerator).peekFirst();
+      if (listener != null) {
+        report(listener, QueryType.SHORTEST_CYCLE, start, enumerator);
+      }
+    } else {
+      ShortestPathSearch search = ShortestPathSearch.acquire(graph);
+      try {
+        if (!search.search(source, target)) {
+          route = null;
+        } else if (search.distance(target) > 0) {
+          route = firstShortestRoute(source, target, search.distance(target));
+          if (route == null) {
+            route = search.route(source, target);
+          }
+        } else {
+          // routes without travel time are not reported by findPath, take the next ones in order
+          route = streamShortestPaths(from, to).findFirst().orElse(null);
+        }
+        if (listener != null) {
+          report(listener, QueryType.SHORTEST_CYCLE, start, search, route);
+        }
+      } finally {
+        search.release();
+      }
+    }
+    if (route == null) {
+      throw new IllegalStateException("there is not any route");
+    }
+    return route;
+  }
+
+  /**
+   * Follows, from the source, the first edge of every star which still reaches the target within
+   * the remaining travel time. Among the shortest routes this is the first one in DFS order.
+   *
+   * @param travelTime the travel time of the shortest route
+   * @return the route, or null if an edge without travel time is on a shortest route, which could
+   * make the walk go around in circles
+   */
+  private Route firstShortestRoute(int source, int target, int travelTime) {
+    ShortestPathSearch backward = ShortestPathSearch.acquire(graph.reverse());
+    try {
+      // every star which reaches the target within the travel time gets its exact distance
+      backward.begin(target);
+      while (backward.hasQueued() && backward.minDistance() <= travelTime) {
+        backward.settleNext();
+      }
+      int[] path = new int[16];
+      path[0] = source;
+      int length = 1;
+      int node = source;
+      int remaining = travelTime;
+      do {
+        int next = -1;
+        for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node) && next < 0; edge++) {
+          int successor = graph.target(edge);
+          if (backward.isSettled(successor)
+              && graph.weight(edge) + backward.distance(successor) == remaining) {
+            if (graph.weight(edge) == 0) {
+              return null;
+            }
+            next = successor;
+            remaining -= graph.weight(edge);
+          }
+        }
+        if (length == path.length) {
+          path = Arrays.copyOf(path, length * 2);
+        }
+        path[length++] = next;
+        node = next;
+      } while (node != target);
+      return Route.of(new CompactRoute(graph, Arrays.copyOf(path, length), travelTime));
+    } finally {
+      backward.release();
+    }
   }
 
   /**
    * This is the implementation of Dijkstra algorithm for finding the shortest path.
+   * <p>
+   * Of several shortest routes, Dijkstra returns the one on which every star is reached from its
+   * predecessor with the smallest index in the graph. With positive travel times that choice does
+   * not depend on the order of the search, and a
+   * {@link assignment.algorithm.shard.ShardCoordinator} finds the same route. Tables and
+   * contraction hierarchies find a route of the same travel time, which may be another one.
    *
    * @param source The Star we start from
    * @param target The Star we should reach.
    * @return The Route we found as having the minimum cost
    */
   public Route findShortestPath(Star source, Star target) {
-    Map<Star, NodePriorityQueue<Star>> nodeWrappers = new HashMap<>();
-    PriorityQueue<NodePriorityQueue<Star>> queue = new PriorityQueue<>();
-    Set<Star> shortestPathFound = new HashSet<>();
-
-    // Add source to queue
-    NodePriorityQueue<Star> sourceWrapper = new NodePriorityQueue<>(source, 0, null);
-    nodeWrappers.put(source, sourceWrapper);
-    queue.add(sourceWrapper);
-
-    while (!queue.isEmpty()) {
-      NodePriorityQueue<Star> nodeWrapper = queue.poll();
-      Star node = nodeWrapper.getNode();
-      shortestPathFound.add(node);
-
-      // We have reached the target. Then, we can build our Route
-      if (node.equals(target)) {
-        return buildPath(nodeWrapper);
+    QueryListener listener = this.listener;
+    long start = listener == null ? 0 : System.nanoTime();
+    ShortestPathSearch search = null;
+    Route route;
+    try {
+      if (shortestPaths != null) {
+        route = shortestPaths.route(source, target);
+      } else if (hierarchy != null) {
+        route = hierarchy.route(source, target);
+      } else {
+        int sourceIndex = requireIndex(source);
+        int targetIndex = requireIndex(target);
+        if (sourceIndex == targetIndex) {
+          // We are already there, the shortest cycle is searched by findShortestPathInCycle
+          route = Route.builder().path(new LinkedList<>(List.of(source))).totalTravelTime(0)
+              .build();
+        } else {
+          search = ShortestPathSearch.acquire(graph);
+          // We couldn't build a Route if the target can't be reached
+          route = search.search(sourceIndex, targetIndex)
+              ? search.route(sourceIndex, targetIndex) : null;
+        }
+      }
+      if (listener != null) {
+        report(listener, QueryType.SHORTEST_PATH, start, search, route);
       }
+    } finally {
+      if (search != null) {
+        search.release();
+      }
+    }
+    return route;
+  }
+
+  /**
+   * Shortest path from several sources, each of which starts with a travel time of its own, like
+   * the stars where the rest of a graph enters a part of it. The route starts at the source it
+   * leaves from, and its travel time includes the travel time of that source. Ties are broken like
+   * {@link #findShortestPath(Star, Star)} does, and a route passes through another source rather
+   * than start there if that is as short and the star it comes from has a smaller index.
+   *
+   * @param sources the travel time every source starts with
+   * @param target  The Star we should reach
+   * @return the route from the source it is shortest from, or null if the target can not be
+   * reached from any of them
+   */
+  public Route findShortestPath(Map<Star, Integer> sources, Star target) {
+    int targetIndex = requireIndex(target);
+    int[] sourceIndexes = new int[sources.size()];
+    int[] sourceDistances = new int[sources.size()];
+    int i = 0;
+    for (Map.Entry<Star, Integer> source : sources.entrySet()) {
+      sourceIndexes[i] = requireIndex(source.getKey());
+      sourceDistances[i++] = source.getValue();
+    }
+    ShortestPathSearch search = ShortestPathSearch.acquire(graph);
+    try {
+      if (!search.search(sourceIndexes, sourceDistances, targetIndex)) {
+        return null;
+      }
+      int first = targetIndex;
+      while (search.previous(first) >= 0) {
+        first = search.previous(first);
+      }
+      return search.route(first, targetIndex);
+    } finally {
+      search.release();
+    }
+  }
 
-      // We should iterate over all neighbours
-      for (Star neighbor : graph.successors(node)) {
-        // if we found the neighbor in path, we would ignore it
-        if (shortestPathFound.contains(neighbor)) {
-          continue;
+  /**
+   * One-to-many shortest paths: a single Dijkstra from the source runs until all targets are
+   * settled, instead of one search per target. A PathFinder with precomputed tables or a
+   * contraction hierarchy looks every target up there instead.
+   *
+   * @param source  The Star we start from
+   * @param targets The Stars we should reach
+   * @return the shortest route to every target which can be reached, in the order of the targets
+   */
+  public Map<Star, Route> findShortestPaths(Star source, Collection<Star> targets) {
+    if (shortestPaths != null || hierarchy != null) {
+      Map<Star, Route> routes = new LinkedHashMap<>();
+      for (Star target : targets) {
+        Route route = findShortestPath(source, target);
+        if (route != null) {
+          routes.put(target, route);
+        }
+      }
+      return routes;
+    }
+    int sourceIndex = requireIndex(source);
+    int[] targetIndexes = targets.stream().mapToInt(this::requireIndex).toArray();
+    ShortestPathSearch search = ShortestPathSearch.acquire(graph);
+    try {
+      search.searchAll(sourceIndex, targetIndexes);
+      Map<Star, Route> routes = new LinkedHashMap<>();
+      int i = 0;
+      for (Star target : targets) {
+        int targetIndex = targetIndexes[i++];
+        if (search.isSettled(targetIndex)) {
+          routes.put(target, search.route(sourceIndex, targetIndex));
         }
+      }
+      return routes;
+    } finally {
+      search.release();
+    }
+  }
 
-        // The cost of travelling should be calculated here.
-        int distance = graph.edgeValueOrDefault(node, neighbor, Integer.MAX_VALUE);
-        if (distance == Integer.MAX_VALUE) {
-          continue;
+  /**
+   * Many-to-many shortest travel times on the common fork-join pool.
+   *
+   * @see #findDistanceMatrix(Collection, Collection, ForkJoinPool)
+   */
+  public DistanceMatrix findDistanceMatrix(Collection<Star> sources, Collection<Star> targets) {
+    return findDistanceMatrix(sources, targets, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Many-to-many shortest travel times. The searches run from the smaller side of the matrix: one
+   * Dijkstra per distinct source which stops when all targets are settled, or, if there are fewer
+   * distinct targets than sources, one per distinct target on the reversed graph which stops when
+   * all sources are settled. They run in parallel, each on the pooled arrays of its worker, and
+   * write their rows or columns straight into the matrix. A PathFinder with precomputed tables or a
+   * contraction hierarchy looks every travel time up there instead. Only the travel times are kept,
+   * routes are built by {@link DistanceMatrix#route(int, int)} when they are asked for.
+   *
+   * @param sources The Stars we start from
+   * @param targets The Stars we should reach
+   * @param pool    the pool to run the searches in
+   * @return the travel times from every source to every target
+   * @throws IllegalArgumentException if the matrix has more entries than an array can hold
+   */
+  public DistanceMatrix findDistanceMatrix(Collection<Star> sources, Collection<Star> targets,
+      ForkJoinPool pool) {
+    List<Star> sourceList = List.copyOf(sources);
+    List<Star> targetList = List.copyOf(targets);
+    long size = (long) sourceList.size() * targetList.size();
+    if (size > MAX_ARRAY_SIZE) {
+      throw new IllegalArgumentException("a matrix of " + sourceList.size() + " x "
+          + targetList.size() + " travel times does not fit in an array");
+    }
+    int[] targetIndexes = targetList.stream().mapToInt(this::requireIndex).toArray();
+    int[] sourceIndexes = sourceList.stream().mapToInt(this::requireIndex).toArray();
+    int rowSize = targetIndexes.length;
+    int[] distances = new int[(int) size];
+    long[] rowsBySource = groupByStar(sourceIndexes);
+    long[] columnsByTarget = groupByStar(targetIndexes);
+    int[] firstRows = firstOfEveryStar(rowsBySource);
+    int[] firstColumns = firstOfEveryStar(columnsByTarget);
+
+    if (shortestPaths != null || hierarchy != null) {
+      pool.submit(() -> IntStream.of(firstRows).parallel().forEach(row -> {
+        Star source = sourceList.get(row);
+        int offset = row * rowSize;
+        for (int j = 0; j < rowSize; j++) {
+          // both answer Integer.MAX_VALUE, which is DistanceMatrix.UNREACHABLE, for no route
+          distances[offset + j] = shortestPaths != null
+              ? shortestPaths.distance(source, targetList.get(j))
+              : hierarchy.distance(source, targetList.get(j));
         }
-        int totalDistance = nodeWrapper.getTotalDistance() + distance;
-
-        // checking the neighbors
-        NodePriorityQueue<Star> neighborWrapper = nodeWrappers.get(neighbor);
-        if (neighborWrapper == null) {
-          neighborWrapper = new NodePriorityQueue<>(neighbor, totalDistance, nodeWrapper);
-          nodeWrappers.put(neighbor, neighborWrapper);
-          queue.add(neighborWrapper);
+      })).join();
+    } else if (firstColumns.length < firstRows.length) {
+      CompiledStarGraph reverse = graph.reverse();
+      pool.submit(() -> IntStream.of(firstColumns).parallel().forEach(column -> {
+        ShortestPathSearch search = ShortestPathSearch.acquire(reverse);
+        try {
+          search.searchAll(targetIndexes[column], sourceIndexes);
+          for (int i = 0; i < sourceIndexes.length; i++) {
+            distances[i * rowSize + column] = search.isSettled(sourceIndexes[i])
+                ? search.distance(sourceIndexes[i]) : DistanceMatrix.UNREACHABLE;
+          }
+        } finally {
+          search.release();
         }
-        // If we found the neighbor and its cost is less we should update the queue
-        else if (totalDistance < neighborWrapper.getTotalDistance()) {
-          neighborWrapper.setTotalDistance(totalDistance);
-          neighborWrapper.setPrevious(nodeWrapper);
-
-          // This is a priority queue. We have to delete and re-add it in order to change the position
-          // we have to remove and reinsert the node
-          queue.remove(neighborWrapper);
-          queue.add(neighborWrapper);
+      })).join();
+      for (int i = 1; i < columnsByTarget.length; i++) {
+        if (columnsByTarget[i] >>> 32 == columnsByTarget[i - 1] >>> 32) {
+          int from = (int) columnsByTarget[i - 1];
+          int to = (int) columnsByTarget[i];
+          for (int offset = 0; offset < distances.length; offset += rowSize) {
+            distances[offset + to] = distances[offset + from];
+          }
+        }
+      }
+      // the backward searches have filled the rows of the repeated sources as well
+      return new DistanceMatrix(this, sourceList, targetList, distances);
+    } else {
+      pool.submit(() -> IntStream.of(firstRows).parallel().forEach(row -> {
+        ShortestPathSearch search = ShortestPathSearch.acquire(graph);
+        try {
+          search.searchAll(sourceIndexes[row], targetIndexes);
+          int offset = row * rowSize;
+          for (int j = 0; j < rowSize; j++) {
+            distances[offset + j] = search.isSettled(targetIndexes[j])
+                ? search.distance(targetIndexes[j]) : DistanceMatrix.UNREACHABLE;
+          }
+        } finally {
+          search.release();
         }
+      })).join();
+    }
+
+    for (int i = 1; i < rowsBySource.length; i++) {
+      if (rowsBySource[i] >>> 32 == rowsBySource[i - 1] >>> 32) {
+        // a repeat, the row before it in the sorted order has been searched or copied already
+        System.arraycopy(distances, (int) rowsBySource[i - 1] * rowSize, distances,
+            (int) rowsBySource[i] * rowSize, rowSize);
       }
     }
+    return new DistanceMatrix(this, sourceList, targetList, distances);
+  }
 
-    // We couldn't build a Route
-    return null;
+  /**
+   * A star which is asked for twice is searched once, for the first of its positions; sorting the
+   * positions by (star, position) puts the first position of every star before its repeats.
+   */
+  private static long[] groupByStar(int[] indexes) {
+    long[] positionsByStar = new long[indexes.length];
+    for (int position = 0; position < indexes.length; position++) {
+      positionsByStar[position] = (long) indexes[position] << 32 | position;
+    }
+    Arrays.sort(positionsByStar);
+    return positionsByStar;
+  }
+
+  private static int[] firstOfEveryStar(long[] positionsByStar) {
+    return IntStream.range(0, positionsByStar.length)
+        .filter(i -> i == 0 || positionsByStar[i] >>> 32 != positionsByStar[i - 1] >>> 32)
+        .map(i -> (int) positionsByStar[i]).toArray();
   }
 
   /**
-   * Builds the Route coming from the Dijkstra algorithm.
+   * Bidirectional Dijkstra: searches forwards from the source and backwards from the target at the
+   * same time and stops when the two searches meet on the shortest route.
    *
-   * @param nodeWrapper The node data structure which we have completed the algorithm with it.
-   * @return the converted Route object
+   * @param source The Star we start from
+   * @param target The Star we should reach.
+   * @return a Route with the travel time of {@link #findShortestPath(Star, Star)}, or null
    */
-  private Route buildPath(NodePriorityQueue<Star> nodeWrapper) {
-    LinkedList<Star> path = new LinkedList<>();
-    while (nodeWrapper != null) {
-      path.add(nodeWrapper.getNode());
-      nodeWrapper = nodeWrapper.getPrevious();
+  public Route findShortestPathBidirectional(Star source, Star target) {
+    int sourceIndex = requireIndex(source);
+    int targetIndex = requireIndex(target);
+    if (sourceIndex == targetIndex) {
+      return findShortestPath(source, target);
+    }
+    QueryListener listener = this.listener;
+    long start = listener == null ? 0 : System.nanoTime();
+    BidirectionalSearch search = new BidirectionalSearch(graph);
+    try {
+      Route route = search.search(sourceIndex, targetIndex);
+      if (listener != null) {
+        listener.queryCompleted(QueryStats.builder().type(QueryType.SHORTEST_PATH)
+            .latencyNanos(System.nanoTime() - start)
+            .nodesExpanded(search.settledCount())
+            .routesEmitted(route == null ? 0 : 1).build());
+      }
+      return route;
+    } finally {
+      search.release();
+    }
+  }
+
+  /**
+   * A*: Dijkstra which settles the nodes in the order of their distance from the source plus the
+   * estimated distance to the target, for example a {@link LandmarkHeuristic}.
+   *
+   * @param source    The Star we start from
+   * @param target    The Star we should reach.
+   * @param heuristic a consistent lower bound of the travel time between two stars
+   * @return a Route with the travel time of {@link #findShortestPath(Star, Star)}, or null
+   */
+  public Route findShortestPath(Star source, Star target, Heuristic heuristic) {
+    Objects.requireNonNull(heuristic, "heuristic should not be null");
+    int sourceIndex = requireIndex(source);
+    int targetIndex = requireIndex(target);
+    if (sourceIndex == targetIndex) {
+      return findShortestPath(source, target);
+    }
+    QueryListener listener = this.listener;
+    long start = listener == null ? 0 : System.nanoTime();
+    ShortestPathSearch search = ShortestPathSearch.acquire(graph);
+    try {
+      Route route = search.search(sourceIndex, targetIndex, heuristic)
+          ? search.route(sourceIndex, targetIndex) : null;
+      if (listener != null) {
+        report(listener, QueryType.SHORTEST_PATH, start, search, route);
+      }
+      return route;
+    } finally {
+      search.release();
     }
-    Collections.reverse(path);
-    return Route.builder().path(path).totalTravelTime(calculateTotalTravelTime(path)).build();
   }
 }
@@ -0,0 +1,140 @@
+package assignment.algorithm;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current {@link PathFinder} while new versions of the graph are published. A PathFinder
+ * is safe for concurrent queries and its graph never changes, so readers never lock:
+ * {@link #current()} is a single volatile read, and a query keeps working on the version it has
+ * read however many versions are published meanwhile.
+ * <p>
+ * The heap of an old version is reclaimed by the garbage collector once no query references it.
+ * Resources which are not, like the memory-mapped tables of {@link AllPairsShortestPaths}, are
+ * released by the retirement callback. It runs exactly once per version, after the version has
+ * been replaced and the last {@link Lease} on it has been closed. Queries which read
+ * {@link #current()} without a lease are not waited for.
+ */
+@Slf4j
+public class PathFinderSnapshots {
+
+  private final AtomicReference<Version> current;
+  private final Consumer<PathFinder> onRetire;
+
+  public PathFinderSnapshots(PathFinder initial) {
+    this(initial, pathFinder -> {
+    });
+  }
+
+  /**
+   * @param onRetire releases the resources of a version nobody uses anymore
+   */
+  public PathFinderSnapshots(PathFinder initial, Consumer<PathFinder> onRetire) {
+    this.current = new AtomicReference<>(new Version(initial));
+    this.onRetire = Objects.requireNonNull(onRetire, "onRetire should not be null");
+  }
+
+  /**
+   * @return the latest published PathFinder
+   */
+  public PathFinder current() {
+    return current.get().pathFinder;
+  }
+
+  /**
+   * Pins the latest published PathFinder until the lease is closed, so it is not retired while it
+   * is in use.
+   */
+  public Lease acquire() {
+    while (true) {
+      Version version = current.get();
+      if (version.retain()) {
+        return new Lease(version);
+      }
+      // the version has been replaced and retired right after the read, read the new one
+    }
+  }
+
+  /**
+   * Runs the query on a leased PathFinder.
+   */
+  public <T> T query(Function<PathFinder, T> query) {
+    try (Lease lease = acquire()) {
+      return query.apply(lease.pathFinder());
+    }
+  }
+
+  /**
+   * Atomically makes the PathFinder the current one. The replaced version is retired once its last
+   * lease is closed.
+   */
+  public void publish(PathFinder pathFinder) {
+    Version previous = current.getAndSet(new Version(pathFinder));
+    // the holder's own reference to the replaced version
+    previous.release();
+  }
+
+  /**
+   * A reference to one version of the PathFinder, which is kept alive until it is closed.
+   */
+  public final class Lease implements AutoCloseable {
+
+    private final Version version;
+    private boolean closed;
+
+    private Lease(Version version) {
+      this.version = version;
+    }
+
+    public PathFinder pathFinder() {
+      if (closed) {
+        throw new IllegalStateException("the lease has been closed");
+      }
+      return version.pathFinder;
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        version.release();
+      }
+    }
+  }
+
+  private final class Version {
+
+    private final PathFinder pathFinder;
+    // the holder and every open lease, 0 once retired
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private Version(PathFinder pathFinder) {
+      this.pathFinder = Objects.requireNonNull(pathFinder, "pathFinder should not be null");
+    }
+
+    /**
+     * @return false if the version has been retired already
+     */
+    private boolean retain() {
+      int count;
+      do {
+        count = references.get();
+        if (count == 0) {
+          return false;
+        }
+      } while (!references.compareAndSet(count, count + 1));
+      return true;
+    }
+
+    private void release() {
+      if (references.decrementAndGet() == 0) {
+        log.debug("Retiring graph version {}", pathFinder.getGraph().version());
+        onRetire.accept(pathFinder);
+      }
+    }
+  }
+}
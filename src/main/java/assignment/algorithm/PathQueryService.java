@@ -0,0 +1,374 @@
+package assignment.algorithm;
+
+import assignment.algorithm.PathFinderSnapshots.Lease;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.Value;
+
+/**
+ * Asynchronous queries on the current {@link PathFinder} of a {@link PathFinderSnapshots}, for
+ * callers which should not block a thread per request.
+ * <p>
+ * Queries run on a bounded executor: when its queue is full a query fails at once with a
+ * {@link RejectedExecutionException} instead of waiting behind the others, which is what keeps the
+ * latency of the accepted queries low during load spikes. Identical queries in flight on the same
+ * graph version share one computation, and shortest path queries from the same source which queue
+ * up while the executor is busy are answered together by one
+ * {@link PathFinder#findShortestPaths(Star, java.util.Collection)} traversal. Batches grow with
+ * the load only; a query on an idle service starts immediately.
+ * <p>
+ * Every returned future fails with a {@link TimeoutException} after the timeout of the service,
+ * and work whose callers have all timed out before it started is dropped instead of computed.
+ * Publishers enumerate routes only as far as their subscribers ask for.
+ */
+public class PathQueryService implements AutoCloseable {
+
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private final PathFinderSnapshots snapshots;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final long timeoutNanos;
+  private final Map<BatchKey, Batch> batches = new ConcurrentHashMap<>();
+  private final Map<QueryKey, PathQuery> pathQueries = new ConcurrentHashMap<>();
+  private final LongAdder coalescedQueries = new LongAdder();
+  private final LongAdder batchedQueries = new LongAdder();
+
+  public PathQueryService(PathFinder pathFinder) {
+    this(new PathFinderSnapshots(pathFinder));
+  }
+
+  /**
+   * A service with one thread per processor, {@link #DEFAULT_QUEUE_CAPACITY} queued queries and
+   * the {@link #DEFAULT_TIMEOUT}.
+   */
+  public PathQueryService(PathFinderSnapshots snapshots) {
+    this(snapshots, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY,
+        DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * @param threads       the number of queries computed at the same time
+   * @param queueCapacity the number of queries which can wait for a thread, further ones are
+   *                      rejected
+   * @param timeout       the time after which a query fails
+   */
+  public PathQueryService(PathFinderSnapshots snapshots, int threads, int queueCapacity,
+      Duration timeout) {
+    this(snapshots, boundedExecutor(threads, queueCapacity), true, timeout);
+  }
+
+  /**
+   * A service on an executor of the caller, which is not shut down by {@link #close()}. Queries
+   * are only rejected when the executor rejects them, so it should be bounded as well.
+   */
+  public PathQueryService(PathFinderSnapshots snapshots, ExecutorService executor,
+      Duration timeout) {
+    this(snapshots, executor, false, timeout);
+  }
+
+  private PathQueryService(PathFinderSnapshots snapshots, ExecutorService executor,
+      boolean ownsExecutor, Duration timeout) {
+    this.snapshots = Objects.requireNonNull(snapshots, "snapshots should not be null");
+    this.executor = Objects.requireNonNull(executor, "executor should not be null");
+    this.ownsExecutor = ownsExecutor;
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("timeout should be positive");
+    }
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  /**
+   * @return a future of the route {@link PathFinder#findShortestPath(Star, Star)} finds, which is
+   * null if the target can not be reached
+   */
+  public CompletableFuture<Route> findShortestPath(Star source, Star target) {
+    Lease lease = snapshots.acquire();
+    CompiledStarGraph graph = lease.pathFinder().getGraph();
+    for (Star star : new Star[]{source, target}) {
+      if (graph.indexOf(star) < 0) {
+        // a batch fails as a whole, so it only takes stars of the graph
+        lease.close();
+        return CompletableFuture.failedFuture(new IllegalArgumentException(
+            "Node " + star + " is not an element of this graph."));
+      }
+    }
+    BatchKey key = new BatchKey(graph.version(), source);
+    long deadline = System.nanoTime() + timeoutNanos;
+    while (true) {
+      Batch batch = batches.computeIfAbsent(key, k -> new Batch(lease, source));
+      CompletableFuture<Route> route = batch.add(target, deadline);
+      if (route == null) {
+        // a worker has taken the batch between the lookup and the addition
+        batches.remove(key, batch);
+        continue;
+      }
+      if (batch.lease != lease) {
+        lease.close();
+      } else {
+        submit(() -> run(key, batch), e -> {
+          batches.remove(key, batch);
+          batch.fail(e);
+          lease.close();
+        });
+      }
+      return withTimeout(route);
+    }
+  }
+
+  /**
+   * @return a future of the routes {@link PathFinder#findPaths(Star, Star, PathConstraints)} finds,
+   * as an unmodifiable list shared with the other callers of the same query
+   */
+  public CompletableFuture<List<Route>> findPaths(Star from, Star to,
+      PathConstraints constraints) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    Lease lease = snapshots.acquire();
+    QueryKey key = new QueryKey(lease.pathFinder().getGraph().version(), from, to, constraints);
+    long deadline = System.nanoTime() + timeoutNanos;
+    PathQuery query = new PathQuery(deadline);
+    PathQuery running;
+    while ((running = pathQueries.putIfAbsent(key, query)) != null) {
+      if (running.join(deadline)) {
+        lease.close();
+        coalescedQueries.increment();
+        return withTimeout(running.routes);
+      }
+      // the query has expired before it started and is being failed
+      pathQueries.remove(key, running);
+    }
+    // the query takes callers until it is answered, not only until it starts
+    query.routes.whenComplete((routes, e) -> pathQueries.remove(key, query));
+    submit(() -> {
+      try (lease) {
+        if (!query.start()) {
+          query.routes.completeExceptionally(expired());
+        } else {
+          query.routes.complete(List.copyOf(lease.pathFinder().findPaths(from, to, constraints)));
+        }
+      } catch (RuntimeException e) {
+        query.routes.completeExceptionally(e);
+      }
+    }, e -> {
+      lease.close();
+      query.routes.completeExceptionally(e);
+    });
+    return withTimeout(query.routes);
+  }
+
+  /**
+   * Publishes the routes of {@link PathFinder#streamPaths(Star, Star, PathConstraints)}, in DFS
+   * order. The DFS runs as far as the subscriber has requested routes.
+   */
+  public Flow.Publisher<Route> publishPaths(Star from, Star to, PathConstraints constraints) {
+    Objects.requireNonNull(constraints, "constraints should not be null");
+    return new RoutePublisher(snapshots, executor,
+        pathFinder -> pathFinder.streamPaths(from, to, constraints));
+  }
+
+  /**
+   * Publishes the routes of {@link PathFinder#streamShortestPaths(Star, Star)}, shortest first.
+   * Every requested route costs one round of Yen's algorithm.
+   */
+  public Flow.Publisher<Route> publishShortestPaths(Star from, Star to) {
+    return new RoutePublisher(snapshots, executor,
+        pathFinder -> pathFinder.streamShortestPaths(from, to));
+  }
+
+  /**
+   * @return the number of queries which have been answered by the computation of an identical
+   * query in flight
+   */
+  public long coalescedQueries() {
+    return coalescedQueries.sum();
+  }
+
+  /**
+   * @return the number of shortest path queries which have been answered by the traversal of
+   * another query from the same source
+   */
+  public long batchedQueries() {
+    return batchedQueries.sum();
+  }
+
+  /**
+   * Stops accepting queries; the queued ones are still answered. An executor passed by the caller
+   * is left running.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.shutdown();
+    }
+  }
+
+  private void run(BatchKey key, Batch batch) {
+    batches.remove(key, batch);
+    Map<Star, CompletableFuture<Route>> targets = batch.close();
+    try (Lease lease = batch.lease) {
+      if (System.nanoTime() - batch.deadline > 0) {
+        batch.fail(expired());
+        return;
+      }
+      PathFinder pathFinder = lease.pathFinder();
+      if (targets.size() == 1) {
+        Map.Entry<Star, CompletableFuture<Route>> target = targets.entrySet().iterator().next();
+        target.getValue().complete(pathFinder.findShortestPath(batch.source, target.getKey()));
+        return;
+      }
+      batchedQueries.add(targets.size() - 1);
+      Map<Star, Route> routes = pathFinder.findShortestPaths(batch.source, targets.keySet());
+      targets.forEach((target, route) -> route.complete(routes.get(target)));
+    } catch (RuntimeException e) {
+      batch.fail(e);
+    }
+  }
+
+  private void submit(Runnable task, Consumer<RejectedExecutionException> onReject) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      onReject.accept(e);
+    }
+  }
+
+  private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> shared) {
+    // a copy, so a caller timing out does not fail the query for the others
+    return shared.copy().orTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private static TimeoutException expired() {
+    return new TimeoutException("the query has timed out before it was started");
+  }
+
+  private static ExecutorService boundedExecutor(int threads, int queueCapacity) {
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory factory = task -> {
+      Thread thread = new Thread(task, "path-query-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Value
+  private static class BatchKey {
+
+    long graphVersion;
+    Star source;
+  }
+
+  @Value
+  private static class QueryKey {
+
+    long graphVersion;
+    Star from;
+    Star to;
+    PathConstraints constraints;
+  }
+
+  /**
+   * A findPaths query in flight, from its submission until it is answered. Callers which join it
+   * before it starts extend its deadline; once it has expired, nobody can join it any more.
+   */
+  private static final class PathQuery {
+
+    private final CompletableFuture<List<Route>> routes = new CompletableFuture<>();
+    private long deadline;
+    private boolean expired;
+
+    private PathQuery(long deadline) {
+      this.deadline = deadline;
+    }
+
+    /**
+     * @return false if the query has expired, the caller needs a query of its own
+     */
+    private synchronized boolean join(long deadline) {
+      if (expired) {
+        return false;
+      }
+      if (deadline - this.deadline > 0) {
+        this.deadline = deadline;
+      }
+      return true;
+    }
+
+    /**
+     * @return whether the query should be computed, false if all its callers have timed out
+     */
+    private synchronized boolean start() {
+      expired = System.nanoTime() - deadline > 0;
+      return !expired;
+    }
+  }
+
+  /**
+   * The shortest path queries from one source waiting for a worker. The worker closes the batch
+   * when it takes it, later queries start the next one.
+   */
+  private final class Batch {
+
+    private final Lease lease;
+    private final Star source;
+    private final Map<Star, CompletableFuture<Route>> targets = new LinkedHashMap<>();
+    private long deadline;
+    private boolean closed;
+
+    private Batch(Lease lease, Star source) {
+      this.lease = lease;
+      this.source = source;
+    }
+
+    /**
+     * @return the future of the route to the target, or null if the batch is closed
+     */
+    private synchronized CompletableFuture<Route> add(Star target, long deadline) {
+      if (closed) {
+        return null;
+      }
+      if (targets.isEmpty() || deadline - this.deadline > 0) {
+        this.deadline = deadline;
+      }
+      CompletableFuture<Route> route = targets.get(target);
+      if (route != null) {
+        coalescedQueries.increment();
+        return route;
+      }
+      route = new CompletableFuture<>();
+      targets.put(target, route);
+      return route;
+    }
+
+    private synchronized Map<Star, CompletableFuture<Route>> close() {
+      closed = true;
+      return targets;
+    }
+
+    private void fail(Exception e) {
+      close().values().forEach(route -> route.completeExceptionally(e));
+    }
+  }
+}
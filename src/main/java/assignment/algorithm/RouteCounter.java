@@ -0,0 +1,353 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import java.util.Arrays;
+
+/**
+ * Counts routes between two stars without building them. Walks, which may visit a star any number
+ * of times, are counted by dynamic programming over primitive arrays: the number of walks reaching
+ * every star is carried from one number of stops to the next, or from one travel time to the next,
+ * so the cost grows with the limits and the size of the graph but not with the number of walks. A
+ * limit on the stops costs O(stops * (nodes + edges)) and a limit on the travel time
+ * O(time * (nodes + edges)); with both, every stop runs over every travel time below the limit,
+ * which costs O(stops * time * nodes) on top of the edges relaxed. Like
+ * {@link PathFinder#findPaths}, none of them count a walk without travel time.
+ * <p>
+ * Simple paths (the routes of {@link PathFinder#findPaths}) can not be counted that way, counting
+ * them is #P-hard. They are counted by the pruned DFS of {@link RouteEnumerator} on a pooled
+ * {@link DfsState}, which also allocates nothing per route, and cycles by the search of
+ * {@link CycleEnumerator}.
+ * <p>
+ * Counts saturate at a limit instead of overflowing, which also lets existence queries stop at the
+ * first route.
+ */
+final class RouteCounter {
+
+  private final CompiledStarGraph graph;
+  private final int source;
+  private final int target;
+  private final StronglyConnectedComponents components;
+  private final PathConstraints constraints;
+  private final long limit;
+  private long nodesExpanded;
+  private long edgesRelaxed;
+  private long routesPruned;
+
+  /**
+   * @param components the components of the graph, only needed to count cycles
+   * @param limit      the count at which counting stops
+   */
+  RouteCounter(CompiledStarGraph graph, int source, int target,
+      StronglyConnectedComponents components, PathConstraints constraints, long limit) {
+    this.graph = graph;
+    this.source = source;
+    this.target = target;
+    this.components = components;
+    this.constraints = constraints;
+    this.limit = limit;
+  }
+
+  /**
+   * Counts the walks of at least one stop from the source to the target which match the
+   * constraints. Walks may pass the target and come back to it, each visit which matches counts.
+   *
+   * @return the number of walks, or the limit if there are more
+   * @throws IllegalArgumentException if the constraints limit neither the stops nor the travel
+   *                                  time, if the graph has negative travel times, or if only the
+   *                                  travel time is limited and an edge has no travel time, which
+   *                                  would make the count infinite, or if the counts for every star
+   *                                  and unit of travel time do not fit in an array
+   */
+  long countWalks() {
+    int stopLimit = constraints.stopLimit();
+    int timeLimit = constraints.getMaxTravelTime();
+    if (timeLimit == Integer.MAX_VALUE) {
+      if (stopLimit == Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("walks can only be counted up to a number of stops or"
+            + " a travel time");
+      }
+      return walksByStops(stopLimit);
+    }
+    if (timeLimit < 0) {
+      return 0;
+    }
+    int minWeight = minWeight();
+    if (minWeight < 0 || minWeight == 0 && stopLimit == Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("walks up to a travel time can only be counted with "
+          + (stopLimit == Integer.MAX_VALUE ? "positive" : "non-negative") + " travel times");
+    }
+    return stopLimit == Integer.MAX_VALUE ? walksByTravelTime(timeLimit)
+        : walksByStopsAndTravelTime(stopLimit, timeLimit);
+  }
+
+  /**
+   * Counts the routes {@link PathFinder#findPaths} finds: simple paths, or simple cycles when the
+   * source is the target. Every cycle is counted once.
+   *
+   * @return the number of routes, or the limit if there are more
+   */
+  long countPaths() {
+    if (source == target) {
+      return countCycles();
+    }
+    // pruning on travel time needs the travel time of a path to grow with every stop
+    PathConstraints pruning = graph.hasNegativeWeights() ? PathConstraints.builder()
+        .maxStops(constraints.getMaxStops())
+        .intermediateStops(constraints.getIntermediateStops()).build() : constraints;
+    DfsState state = DfsState.acquire(graph.nodeCount());
+    try {
+      int[] path = state.path;
+      int[] cursors = state.cursors;
+      int[] travelTimes = state.travelTimes;
+      int depth = 0;
+      path[0] = source;
+      cursors[0] = graph.edgeStart(source);
+      travelTimes[0] = 0;
+      state.visit(source);
+      nodesExpanded++;
+      long count = 0;
+      while (depth >= 0 && count < limit) {
+        int from = path[depth];
+        if (cursors[depth] == graph.edgeEnd(from)) {
+          state.leave(from);
+          depth--;
+          continue;
+        }
+        int edge = cursors[depth]++;
+        edgesRelaxed++;
+        int node = graph.target(edge);
+        int travelTime = travelTimes[depth] + graph.weight(edge);
+        if (node == target) {
+          // a route ends at the target, it is never passed through
+          if (travelTime > 0 && constraints.matches(depth + 1, travelTime)) {
+            count++;
+          } else {
+            routesPruned++;
+          }
+        } else if (!state.isVisited(node)) {
+          // any route through node reaches the target with at least one more stop
+          if (pruning.canExtend(depth + 2, travelTime)) {
+            depth++;
+            path[depth] = node;
+            cursors[depth] = graph.edgeStart(node);
+            travelTimes[depth] = travelTime;
+            state.visit(node);
+            nodesExpanded++;
+          } else {
+            routesPruned++;
+          }
+        }
+      }
+      return count;
+    } finally {
+      state.release();
+    }
+  }
+
+  private long countCycles() {
+    CycleEnumerator cycles = new CycleEnumerator(graph, components, source, constraints,
+        CycleEnumerator.NO_DEADLINE);
+    long count = 0;
+    try {
+      while (count < limit && cycles.advance()) {
+        count++;
+      }
+    } finally {
+      cycles.close();
+    }
+    nodesExpanded += cycles.nodesExpanded();
+    edgesRelaxed += cycles.edgesRelaxed();
+    routesPruned += cycles.routesPruned();
+    return count;
+  }
+
+  /**
+   * @return the number of (star, stops) or (star, travel time) states the last count has expanded,
+   * or the stars its DFS has descended into
+   */
+  long nodesExpanded() {
+    return nodesExpanded;
+  }
+
+  long edgesRelaxed() {
+    return edgesRelaxed;
+  }
+
+  long routesPruned() {
+    return routesPruned;
+  }
+
+  /**
+   * {@code walks[v]} is the number of walks with {@code stops} stops and a positive travel time
+   * from the source to v, {@code idle[v]} the number of those without travel time, which an edge
+   * with a travel time turns into walks.
+   */
+  private long walksByStops(int stopLimit) {
+    if (minWeight() < 0) {
+      throw new IllegalArgumentException("walks up to a number of stops can only be counted with"
+          + " non-negative travel times");
+    }
+    int nodeCount = graph.nodeCount();
+    long[] walks = new long[nodeCount];
+    long[] next = new long[nodeCount];
+    long[] idle = new long[nodeCount];
+    long[] nextIdle = new long[nodeCount];
+    idle[source] = 1;
+    long count = 0;
+    for (int stops = 1; stops <= stopLimit && count < limit; stops++) {
+      Arrays.fill(next, 0L);
+      Arrays.fill(nextIdle, 0L);
+      boolean reached = false;
+      for (int node = 0; node < nodeCount; node++) {
+        if (walks[node] == 0 && idle[node] == 0) {
+          continue;
+        }
+        nodesExpanded++;
+        for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+          edgesRelaxed++;
+          int to = graph.target(edge);
+          if (graph.weight(edge) == 0) {
+            next[to] = add(next[to], walks[node]);
+            nextIdle[to] = add(nextIdle[to], idle[node]);
+          } else {
+            next[to] = add(next[to], add(walks[node], idle[node]));
+          }
+          reached = true;
+        }
+      }
+      if (!reached) {
+        break;
+      }
+      if (constraints.matches(stops, 0)) {
+        count = add(count, next[target]);
+      }
+      long[] swap = walks;
+      walks = next;
+      next = swap;
+      swap = idle;
+      idle = nextIdle;
+      nextIdle = swap;
+    }
+    return count;
+  }
+
+  /**
+   * {@code walks[t][v]} is the number of walks from the source to v with travel time t. Every edge
+   * takes at least one unit of time, so only the layers up to the largest travel time ahead of the
+   * current one are kept, in a ring.
+   */
+  private long walksByTravelTime(int timeLimit) {
+    int nodeCount = graph.nodeCount();
+    int layers = (int) Math.min((long) timeLimit, maxWeight()) + 1;
+    if ((long) layers * nodeCount > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("the travel times are too large to count walks up to the"
+          + " travel time limit");
+    }
+    long[][] walks = new long[layers][nodeCount];
+    walks[0][source] = 1;
+    long count = 0;
+    for (int time = 0; time <= timeLimit && count < limit; time++) {
+      long[] current = walks[time % layers];
+      if (time > 0) {
+        count = add(count, current[target]);
+      }
+      for (int node = 0; node < nodeCount; node++) {
+        if (current[node] == 0) {
+          continue;
+        }
+        nodesExpanded++;
+        for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+          long arrival = (long) time + graph.weight(edge);
+          if (arrival <= timeLimit) {
+            edgesRelaxed++;
+            long[] layer = walks[(int) (arrival % layers)];
+            layer[graph.target(edge)] = add(layer[graph.target(edge)], current[node]);
+          }
+        }
+      }
+      Arrays.fill(current, 0L);
+    }
+    return count;
+  }
+
+  /**
+   * {@code walks[t * nodeCount + v]} is the number of walks with {@code stops} stops from the
+   * source to v with travel time t.
+   */
+  private long walksByStopsAndTravelTime(int stopLimit, int timeLimit) {
+    int nodeCount = graph.nodeCount();
+    long size = ((long) timeLimit + 1) * nodeCount;
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("the travel time limit is too large to count walks with"
+          + " limited stops");
+    }
+    long[] walks = new long[(int) size];
+    long[] next = new long[(int) size];
+    walks[source] = 1;
+    // the travel times which have walks in the current layer
+    int low = 0;
+    int high = 0;
+    long count = 0;
+    for (int stops = 1; stops <= stopLimit && count < limit; stops++) {
+      Arrays.fill(next, 0L);
+      int nextLow = Integer.MAX_VALUE;
+      int nextHigh = -1;
+      for (int time = low; time <= high; time++) {
+        for (int node = 0; node < nodeCount; node++) {
+          long current = walks[time * nodeCount + node];
+          if (current == 0) {
+            continue;
+          }
+          nodesExpanded++;
+          for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+            long arrival = (long) time + graph.weight(edge);
+            if (arrival <= timeLimit) {
+              edgesRelaxed++;
+              int slot = (int) arrival * nodeCount + graph.target(edge);
+              next[slot] = add(next[slot], current);
+              nextLow = Math.min(nextLow, (int) arrival);
+              nextHigh = Math.max(nextHigh, (int) arrival);
+            }
+          }
+        }
+      }
+      if (nextHigh < 0) {
+        break;
+      }
+      if (constraints.matches(stops, 0)) {
+        // a walk of no travel time is not a route, as in findPaths
+        for (int time = Math.max(nextLow, 1); time <= nextHigh; time++) {
+          count = add(count, next[time * nodeCount + target]);
+        }
+      }
+      low = nextLow;
+      high = nextHigh;
+      long[] swap = walks;
+      walks = next;
+      next = swap;
+    }
+    return count;
+  }
+
+  private long add(long count, long more) {
+    long sum = count + more;
+    return sum < 0 || sum > limit ? limit : sum;
+  }
+
+  private int minWeight() {
+    int min = Integer.MAX_VALUE;
+    for (int edge = 0; edge < graph.edgeCount(); edge++) {
+      min = Math.min(min, graph.weight(edge));
+    }
+    return min;
+  }
+
+  private int maxWeight() {
+    int max = 1;
+    for (int edge = 0; edge < graph.edgeCount(); edge++) {
+      max = Math.max(max, graph.weight(edge));
+    }
+    return max;
+  }
+}
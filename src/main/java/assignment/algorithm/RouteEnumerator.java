@@ -0,0 +1,252 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The DFS of {@link PathFinder} with an explicit stack instead of recursion. Routes are produced
+ * one by one when they are asked for, in the order the recursive DFS would find them, so a caller
+ * which only needs the first routes does not pay for the whole enumeration.
+ * <p>
+ * The stack lives in a pooled {@link DfsState}, which is released as soon as the enumeration is
+ * exhausted or cancelled; the only objects allocated per query are the routes which are returned.
+ * When the source and the target are the same star, cycles are searched; {@link PathFinder} leaves
+ * that to the {@link CycleEnumerator} except in its parallel searches, which split this DFS.
+ * <p>
+ * An enumeration can also cover only the subtree below a path prefix, and stop descending at a
+ * split depth. The stars it would descend into there are reported as subtrees instead, which is
+ * how {@link ParallelRouteSearch} hands the subtrees to other workers.
+ */
+@Slf4j
+class RouteEnumerator implements RouteIterator {
+
+  private final CompiledStarGraph graph;
+  private final int target;
+  private final boolean cycles;
+  private final PathConstraints constraints;
+  private final PathConstraints pruning;
+  private final int floor;
+  private final int splitDepth;
+  private DfsState state;
+  private int depth;
+  private Route nextRoute;
+  private int[] nextSubtree;
+  private volatile boolean cancelled;
+  private long nodesExpanded;
+  private long edgesRelaxed;
+  private long routesEmitted;
+  private long routesPruned;
+
+  RouteEnumerator(CompiledStarGraph graph, int source, int target,
+      PathConstraints constraints) {
+    this(graph, new int[]{source}, 0, target, constraints, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @param prefix     the stars of the path the enumeration continues, starting at the source
+   * @param travelTime the travel time of the prefix
+   * @param splitDepth the depth at which subtrees are reported instead of being traversed
+   */
+  RouteEnumerator(CompiledStarGraph graph, int[] prefix, int travelTime, int target,
+      PathConstraints constraints, int splitDepth) {
+    this.graph = graph;
+    this.target = target;
+    this.cycles = prefix[0] == target;
+    this.constraints = constraints;
+    // pruning on travel time needs the travel time of a path to grow with every stop
+    this.pruning = graph.hasNegativeWeights() ? PathConstraints.builder()
+        .maxStops(constraints.getMaxStops())
+        .intermediateStops(constraints.getIntermediateStops()).build() : constraints;
+    this.floor = prefix.length - 1;
+    this.splitDepth = splitDepth;
+    this.state = DfsState.acquire(graph.nodeCount());
+    for (int i = 0; i < prefix.length; i++) {
+      push(i, prefix[i], travelTime);
+    }
+  }
+
+  /**
+   * Stops the enumeration. The iterator reports no more routes after this call and gives its state
+   * back the next time it is asked for one.
+   */
+  @Override
+  public void cancel() {
+    cancelled = true;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (nextRoute == null && advance()) {
+      // subtrees are only reported to advance() callers, the iterator never splits
+      if (nextSubtree != null) {
+        throw new IllegalStateException("a split enumeration has to be advanced directly");
+      }
+    }
+    return nextRoute != null;
+  }
+
+  @Override
+  public Route next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("there is not any more route");
+    }
+    Route route = nextRoute;
+    nextRoute = null;
+    return route;
+  }
+
+  /**
+   * Continues the DFS until the next route or subtree is found. They are available through
+   * {@link #route()} and {@link #subtree()} until the next call.
+   *
+   * @return false if the whole subtree of the prefix has been traversed
+   */
+  boolean advance() {
+    nextRoute = null;
+    nextSubtree = null;
+    if (state == null) {
+      return false;
+    }
+    int[] path = state.path;
+    int[] cursors = state.cursors;
+    while (depth >= floor && !cancelled) {
+      int from = path[depth];
+      if (cursors[depth] == graph.edgeEnd(from)) {
+        // All the stars exiting from the current Star are done, it is available again
+        state.leave(from);
+        depth--;
+        continue;
+      }
+      int edge = cursors[depth]++;
+      edgesRelaxed++;
+      int node = graph.target(edge);
+      int travelTime = state.travelTimes[depth] + graph.weight(edge);
+      if (cycles ? stepCycle(node, travelTime) : stepPath(node, travelTime)) {
+        return true;
+      }
+    }
+    state.release();
+    state = null;
+    return false;
+  }
+
+  @Override
+  public long nodesExpanded() {
+    return nodesExpanded;
+  }
+
+  @Override
+  public long edgesRelaxed() {
+    return edgesRelaxed;
+  }
+
+  @Override
+  public long routesEmitted() {
+    return routesEmitted;
+  }
+
+  @Override
+  public long routesPruned() {
+    return routesPruned;
+  }
+
+  /**
+   * @return the route found by the last {@link #advance()}, or null if it found a subtree
+   */
+  Route route() {
+    return nextRoute;
+  }
+
+  /**
+   * @return the path to the root of the subtree found by the last {@link #advance()} followed by
+   * the travel time of that path, or null if it found a route
+   */
+  int[] subtree() {
+    return nextSubtree;
+  }
+
+  private boolean stepPath(int node, int travelTime) {
+    if (state.isVisited(node)) {
+      return false;
+    }
+    // The extended path has depth + 1 stops, leave the branch if no route can match anymore
+    if (!pruning.canExtend(depth + 1, travelTime)) {
+      routesPruned++;
+      return false;
+    }
+    if (node == target) {
+      // if match found, it means we have reached to the destination.
+      state.path[depth + 1] = node;
+      return travelTime > 0 && matches(depth + 1, travelTime) && emit(depth + 2, travelTime);
+    }
+    return descend(node, travelTime);
+  }
+
+  /**
+   * Checks a complete route against the constraints, counting the routes which do not match.
+   */
+  private boolean matches(int stops, int travelTime) {
+    if (constraints.matches(stops, travelTime)) {
+      return true;
+    }
+    routesPruned++;
+    return false;
+  }
+
+  private boolean stepCycle(int node, int travelTime) {
+    if (node == target) {
+      // the edge back to the start closes the cycle
+      state.path[depth + 1] = node;
+      return travelTime > 0 && matches(depth + 1, travelTime) && emit(depth + 2, travelTime);
+    }
+    if (state.isVisited(node)) {
+      return false;
+    }
+    // any cycle through node closes with at least depth + 2 stops
+    if (!pruning.canExtend(depth + 2, travelTime)) {
+      routesPruned++;
+      return false;
+    }
+    return descend(node, travelTime);
+  }
+
+  /**
+   * Moves the DFS to the node, or reports it as a subtree when the split depth is reached.
+   *
+   * @return whether a subtree has been reported
+   */
+  private boolean descend(int node, int travelTime) {
+    if (depth + 1 < splitDepth) {
+      push(depth + 1, node, travelTime);
+      return false;
+    }
+    nextSubtree = Arrays.copyOf(state.path, depth + 3);
+    nextSubtree[depth + 1] = node;
+    nextSubtree[depth + 2] = travelTime;
+    return true;
+  }
+
+  private void push(int nextDepth, int node, int travelTime) {
+    nodesExpanded++;
+    depth = nextDepth;
+    state.path[depth] = node;
+    state.cursors[depth] = graph.edgeStart(node);
+    state.travelTimes[depth] = travelTime;
+    state.visit(node);
+  }
+
+  private boolean emit(int length, int totalTravelTime) {
+    nextRoute = Route.of(
+        new CompactRoute(graph, Arrays.copyOf(state.path, length), totalTravelTime));
+    routesEmitted++;
+    if (log.isTraceEnabled()) {
+      log.trace("Completed path:{}", nextRoute);
+    }
+    return true;
+  }
+}
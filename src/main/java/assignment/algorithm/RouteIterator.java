@@ -0,0 +1,33 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.Route;
+import java.util.Iterator;
+
+/**
+ * A lazy enumeration of routes which reports the work it has done, so {@link PathFinder} can
+ * stream, collect and measure path and cycle enumerations alike.
+ */
+interface RouteIterator extends Iterator<Route> {
+
+  /**
+   * Stops the enumeration. The iterator reports no more routes after this call.
+   */
+  void cancel();
+
+  /**
+   * @return the number of stars the enumeration has descended into so far
+   */
+  long nodesExpanded();
+
+  /**
+   * @return the number of edges the enumeration has followed so far
+   */
+  long edgesRelaxed();
+
+  long routesEmitted();
+
+  /**
+   * @return the number of branches and complete routes which have been cut off by the constraints
+   */
+  long routesPruned();
+}
@@ -0,0 +1,143 @@
+package assignment.algorithm;
+
+import assignment.algorithm.PathFinderSnapshots.Lease;
+import assignment.algorithm.datastructure.Route;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Publishes the routes of a lazy {@link PathFinder} stream to reactive subscribers. The stream is
+ * only advanced as far as the subscriber has asked for, so a slow subscriber holds back the
+ * enumeration instead of letting routes pile up in a buffer. Routes are emitted on the executor,
+ * one drain at a time per subscription.
+ * <p>
+ * Every subscription queries the PathFinder current when it subscribes and keeps it leased until
+ * it completes or is cancelled.
+ */
+final class RoutePublisher implements Flow.Publisher<Route> {
+
+  private final PathFinderSnapshots snapshots;
+  private final Executor executor;
+  private final Function<PathFinder, Stream<Route>> query;
+
+  RoutePublisher(PathFinderSnapshots snapshots, Executor executor,
+      Function<PathFinder, Stream<Route>> query) {
+    this.snapshots = snapshots;
+    this.executor = executor;
+    this.query = query;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Route> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber should not be null");
+    subscriber.onSubscribe(new RouteSubscription(subscriber, snapshots.acquire()));
+  }
+
+  private final class RouteSubscription implements Flow.Subscription, Runnable {
+
+    private final Flow.Subscriber<? super Route> subscriber;
+    private final Lease lease;
+    private final AtomicLong demand = new AtomicLong();
+    // the number of drains asked for; only the caller which raises it from 0 runs them
+    private final AtomicInteger drains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile IllegalArgumentException invalidRequest;
+    private boolean terminated;
+    private Stream<Route> stream;
+    private Iterator<Route> routes;
+
+    private RouteSubscription(Flow.Subscriber<? super Route> subscriber, Lease lease) {
+      this.subscriber = subscriber;
+      this.lease = lease;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("the demand should be positive, not " + n);
+      } else {
+        demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (drains.getAndIncrement() != 0) {
+        return;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        // the drains counter stays raised, so nothing else is emitted after the error
+        if (!terminated) {
+          terminate();
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        drain();
+        missed = drains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drain() {
+      if (terminated) {
+        return;
+      }
+      if (cancelled) {
+        terminate();
+        return;
+      }
+      if (invalidRequest != null) {
+        terminate();
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      try {
+        if (routes == null) {
+          stream = query.apply(lease.pathFinder());
+          routes = stream.iterator();
+        }
+        while (demand.get() > 0 && !cancelled) {
+          if (!routes.hasNext()) {
+            terminate();
+            subscriber.onComplete();
+            return;
+          }
+          Route route = routes.next();
+          demand.decrementAndGet();
+          subscriber.onNext(route);
+        }
+      } catch (RuntimeException e) {
+        terminate();
+        subscriber.onError(e);
+      }
+    }
+
+    private void terminate() {
+      terminated = true;
+      if (stream != null) {
+        stream.close();
+      }
+      lease.close();
+    }
+  }
+}
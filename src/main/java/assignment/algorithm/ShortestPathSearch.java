@@ -0,0 +1,403 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompactRoute;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.IndexedMinHeap;
+import assignment.algorithm.datastructure.Route;
+import java.util.Arrays;
+
+/**
+ * Dijkstra over a {@link CompiledStarGraph}. The instance keeps its arrays between searches and
+ * tags the state of a node with the generation of the search that wrote it, so starting a new
+ * search does not have to clear anything. Nodes and edges can be blocked, which is what the
+ * k-shortest paths search needs for its spur paths.
+ * <p>
+ * A search from a node to itself looks for the shortest cycle: the source is not settled at the
+ * start, so it can be reached again through its predecessors. A search on
+ * {@link CompiledStarGraph#reverse()} walks backwards from its source.
+ * <p>
+ * Of several shortest paths, the one found does not depend on the order of the queue: every node
+ * keeps, of the nodes it is reached from on a shortest path, the one with the smallest index. With
+ * positive weights those are all settled before it, so the predecessors are the same whichever way
+ * the graph is searched, which is what lets a sharded search find the same routes.
+ * <p>
+ * Not thread safe; every query uses its own instance. The arrays take a few ints per star, which
+ * on large maps made every query allocate megabytes, so like {@link DfsState} every thread keeps
+ * released searches around and {@link #acquire(CompiledStarGraph)} hands them to the next query,
+ * for any graph with no more stars than they were made for.
+ */
+final class ShortestPathSearch {
+
+  private static final int NOT_FOUND = -1;
+  // the forward and backward search of a bidirectional query
+  private static final int POOL_SIZE = 2;
+  private static final ThreadLocal<ShortestPathSearch[]> RELEASED =
+      ThreadLocal.withInitial(() -> new ShortestPathSearch[POOL_SIZE]);
+
+  private CompiledStarGraph graph;
+  private final int capacity;
+  private final int[] distances;
+  private final int[] previous;
+  private final int[] reached;
+  private final int[] settled;
+  private final int[] wanted;
+  private final IndexedMinHeap queue;
+  // only the spur searches of the k shortest paths block anything, the others never allocate them
+  private boolean[] blockedNodes;
+  private boolean[] blockedEdges;
+  private final int[] settledOrder;
+  private int settledCount;
+  private long edgesRelaxed;
+  private long heapOperations;
+  private int generation;
+  private Heuristic heuristic = Heuristic.NONE;
+  private int target = NOT_FOUND;
+
+  ShortestPathSearch(CompiledStarGraph graph) {
+    this.graph = graph;
+    this.capacity = graph.nodeCount();
+    this.distances = new int[capacity];
+    this.previous = new int[capacity];
+    this.reached = new int[capacity];
+    this.settled = new int[capacity];
+    this.wanted = new int[capacity];
+    this.queue = new IndexedMinHeap(capacity);
+    this.settledOrder = new int[capacity];
+  }
+
+  /**
+   * @return a search on the graph, owned by the caller until it is released
+   */
+  static ShortestPathSearch acquire(CompiledStarGraph graph) {
+    ShortestPathSearch[] released = RELEASED.get();
+    for (int i = 0; i < POOL_SIZE; i++) {
+      ShortestPathSearch search = released[i];
+      if (search != null && search.capacity >= graph.nodeCount()) {
+        released[i] = null;
+        search.graph = graph;
+        return search;
+      }
+    }
+    return new ShortestPathSearch(graph);
+  }
+
+  /**
+   * Hands the search back for the next query of the current thread. Nothing is cleared: the next
+   * search starts a new generation, which makes the stamps of this one stale.
+   */
+  void release() {
+    graph = null;
+    blockedNodes = null;
+    blockedEdges = null;
+    ShortestPathSearch[] released = RELEASED.get();
+    for (int i = 0; i < POOL_SIZE; i++) {
+      if (released[i] == null) {
+        released[i] = this;
+        return;
+      }
+    }
+    // keep the larger searches, they serve every graph the smaller ones do
+    for (int i = 0; i < POOL_SIZE; i++) {
+      if (released[i].capacity < capacity) {
+        released[i] = this;
+        return;
+      }
+    }
+  }
+
+  void blockNode(int node, boolean blocked) {
+    if (blockedNodes == null) {
+      blockedNodes = new boolean[capacity];
+    }
+    blockedNodes[node] = blocked;
+  }
+
+  void blockEdge(int edge, boolean blocked) {
+    if (blockedEdges == null) {
+      blockedEdges = new boolean[graph.edgeCount()];
+    }
+    blockedEdges[edge] = blocked;
+  }
+
+  /**
+   * Runs Dijkstra until the target is settled.
+   *
+   * @return whether the target can be reached from the source
+   */
+  boolean search(int source, int target) {
+    return search(source, target, Heuristic.NONE);
+  }
+
+  /**
+   * Runs A*: the queue is ordered by the distance from the source plus the estimated distance to
+   * the target, so nodes leading away from the target are settled late or never.
+   *
+   * @return whether the target can be reached from the source
+   */
+  boolean search(int source, int target, Heuristic heuristic) {
+    start(source, target, heuristic);
+    while (!queue.isEmpty()) {
+      int node = queue.pollMin();
+      heapOperations++;
+      settle(node);
+      // We have reached the target
+      if (node == target) {
+        return true;
+      }
+      relax(node, distances[node]);
+    }
+    return false;
+  }
+
+  /**
+   * Runs Dijkstra from several sources at once, each of which starts with a distance of its own,
+   * until the target is settled. A source has no predecessor, unless a shortest path from another
+   * source passes through it.
+   *
+   * @param sources         the sources, they may be given more than once
+   * @param sourceDistances the distance of every source
+   * @return whether the target can be reached from any of the sources
+   */
+  boolean search(int[] sources, int[] sourceDistances, int target) {
+    reset(target, Heuristic.NONE);
+    for (int i = 0; i < sources.length; i++) {
+      int source = sources[i];
+      if (reached[source] != generation) {
+        reach(source, sourceDistances[i], NOT_FOUND);
+        queue.insert(source, sourceDistances[i]);
+        heapOperations++;
+      } else if (sourceDistances[i] < distances[source]) {
+        distances[source] = sourceDistances[i];
+        queue.decreaseKey(source, sourceDistances[i]);
+        heapOperations++;
+      }
+    }
+    while (!queue.isEmpty()) {
+      int node = settleNext();
+      if (node == target) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs Dijkstra from the source until every reachable node is settled. The settled nodes are
+   * available in the order of their distance through {@link #settledCount()} and
+   * {@link #settled(int)}.
+   */
+  void searchAll(int source) {
+    begin(source);
+    while (!queue.isEmpty()) {
+      settleNext();
+    }
+  }
+
+  /**
+   * Runs Dijkstra until all the targets are settled, or every reachable node if some of them can
+   * not be reached. The targets are marked with the generation of the search, so neither the
+   * caller nor the search has to clear a set of them.
+   *
+   * @param targets the nodes to settle, they may be given more than once
+   */
+  void searchAll(int source, int[] targets) {
+    begin(source);
+    int count = 0;
+    for (int target : targets) {
+      if (wanted[target] != generation) {
+        wanted[target] = generation;
+        count++;
+      }
+    }
+    while (count > 0 && !queue.isEmpty()) {
+      int node = settleNext();
+      if (wanted[node] == generation) {
+        wanted[node] = 0;
+        count--;
+      }
+    }
+  }
+
+  /**
+   * Starts a search which is driven node by node with {@link #settleNext()}, like the two halves of
+   * a bidirectional search.
+   */
+  void begin(int source) {
+    start(source, NOT_FOUND, Heuristic.NONE);
+  }
+
+  boolean hasQueued() {
+    return !queue.isEmpty();
+  }
+
+  /**
+   * @return the distance of the node which {@link #settleNext()} settles next
+   */
+  int minDistance() {
+    return queue.priority(queue.peekMin());
+  }
+
+  /**
+   * Settles the closest queued node and relaxes its edges.
+   *
+   * @return the settled node
+   */
+  int settleNext() {
+    int node = queue.pollMin();
+    heapOperations++;
+    settle(node);
+    relax(node, distances[node]);
+    return node;
+  }
+
+  boolean isReached(int node) {
+    return reached[node] == generation;
+  }
+
+  boolean isSettled(int node) {
+    return settled[node] == generation;
+  }
+
+  /**
+   * @return the number of nodes the last search settled
+   */
+  int settledCount() {
+    return settledCount;
+  }
+
+  /**
+   * @return the number of edges the last search looked at
+   */
+  long edgesRelaxed() {
+    return edgesRelaxed;
+  }
+
+  /**
+   * @return the number of inserts, decrease-keys and removals of the last search
+   */
+  long heapOperations() {
+    return heapOperations;
+  }
+
+  /**
+   * @return the node which has been settled at the given position by the last search
+   */
+  int settled(int position) {
+    return settledOrder[position];
+  }
+
+  /**
+   * @return the node before the given one on its shortest path, -1 for the source
+   */
+  int previous(int node) {
+    return previous[node];
+  }
+
+  private void start(int source, int target, Heuristic heuristic) {
+    reset(target, heuristic);
+    if (source == target) {
+      // the source stays unsettled, so the search can come back to it
+      relax(source, 0);
+    } else {
+      reach(source, 0, NOT_FOUND);
+      queue.insert(source, heuristic.estimate(source, target));
+      heapOperations++;
+    }
+  }
+
+  private void reset(int target, Heuristic heuristic) {
+    if (++generation == 0) {
+      // the stamps went around, older searches could look current again
+      Arrays.fill(reached, 0);
+      Arrays.fill(settled, 0);
+      Arrays.fill(wanted, 0);
+      generation = 1;
+    }
+    this.heuristic = heuristic;
+    this.target = target;
+    settledCount = 0;
+    edgesRelaxed = 0;
+    heapOperations = 0;
+    queue.clear();
+  }
+
+  private void settle(int node) {
+    settled[node] = generation;
+    settledOrder[settledCount++] = node;
+  }
+
+  /**
+   * @return the distance of the target of the last successful search
+   */
+  int distance(int target) {
+    return distances[target];
+  }
+
+  /**
+   * @return the stars of the last successful search from the source to the target
+   */
+  int[] path(int source, int target) {
+    if (previous[target] == NOT_FOUND) {
+      // the source itself
+      return new int[]{target};
+    }
+    int length = 1;
+    for (int node = previous[target]; node != source; node = previous[node]) {
+      length++;
+    }
+    int[] path = new int[length + 1];
+    path[0] = source;
+    int node = target;
+    for (int i = length; i > 0; i--) {
+      path[i] = node;
+      node = previous[node];
+    }
+    return path;
+  }
+
+  Route route(int source, int target) {
+    return Route.of(new CompactRoute(graph, path(source, target), distance(target)));
+  }
+
+  private void relax(int node, int distance) {
+    // We should iterate over all neighbours
+    edgesRelaxed += graph.edgeEnd(node) - graph.edgeStart(node);
+    for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+      int neighbor = graph.target(edge);
+      // if we found the neighbor in path, we would ignore it
+      if (settled[neighbor] == generation || blockedEdges != null && blockedEdges[edge]
+          || blockedNodes != null && blockedNodes[neighbor]) {
+        continue;
+      }
+      // The cost of travelling should be calculated here.
+      int weight = graph.weight(edge);
+      if (weight == Integer.MAX_VALUE) {
+        continue;
+      }
+      int totalDistance = distance + weight;
+      if (reached[neighbor] != generation) {
+        reach(neighbor, totalDistance, node);
+        queue.insert(neighbor, totalDistance + heuristic.estimate(neighbor, target));
+        heapOperations++;
+      } else if (totalDistance < distances[neighbor]) {
+        // The heap keeps the position of every node, so a shorter distance is a decrease-key.
+        // The estimate of a node does not change, it is the difference of its key and distance
+        int estimate = queue.priority(neighbor) - distances[neighbor];
+        distances[neighbor] = totalDistance;
+        previous[neighbor] = node;
+        queue.decreaseKey(neighbor, totalDistance + estimate);
+        heapOperations++;
+      } else if (totalDistance == distances[neighbor]
+          && (node < previous[neighbor] || previous[neighbor] == NOT_FOUND)) {
+        // of the shortest paths, the one through the smallest predecessor
+        previous[neighbor] = node;
+      }
+    }
+  }
+
+  private void reach(int node, int distance, int previousNode) {
+    reached[node] = generation;
+    distances[node] = distance;
+    previous[node] = previousNode;
+  }
+}
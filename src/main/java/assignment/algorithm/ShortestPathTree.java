@@ -0,0 +1,177 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.IndexedMinHeap;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ValueGraph;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shortest path tree of one source star in a {@link DynamicStarGraph}, repaired after every
+ * edge update instead of being searched again, in the spirit of Ramalingam and Reps:
+ * <ul>
+ *   <li>an edge which gets cheaper can only shorten the paths through its target, so Dijkstra
+ *   continues from the target alone;</li>
+ *   <li>an edge which gets more expensive or disappears can only lengthen the paths of the subtree
+ *   below it, and only when it is a tree edge. The subtree is cut off, every star of it takes its
+ *   best predecessor outside of the subtree, and Dijkstra runs within the subtree.</li>
+ * </ul>
+ * Either way only the stars whose distance changes are touched. The weights must not be negative.
+ * The tree is not thread-safe, its {@link DynamicStarGraph} guards it.
+ */
+final class ShortestPathTree {
+
+  static final int UNREACHABLE = Integer.MAX_VALUE;
+  private static final int NO_PARENT = -1;
+
+  private final ValueGraph<Star, Integer> graph;
+  private final Map<Star, Integer> indexes;
+  private final List<Star> stars;
+  private final int source;
+  private int[] distances = new int[0];
+  private int[] parents = new int[0];
+  private boolean[] affected = new boolean[0];
+  private IndexedMinHeap queue;
+
+  /**
+   * @param graph   the graph the tree is maintained for
+   * @param indexes the index of every star of the graph
+   * @param stars   the stars by index, the list only grows
+   */
+  ShortestPathTree(ValueGraph<Star, Integer> graph, Map<Star, Integer> indexes, List<Star> stars,
+      int source) {
+    this.graph = graph;
+    this.indexes = indexes;
+    this.stars = stars;
+    this.source = source;
+    ensureCapacity();
+    distances[source] = 0;
+    queue.insert(source, 0);
+    propagate();
+  }
+
+  int distance(int node) {
+    return node < distances.length ? distances[node] : UNREACHABLE;
+  }
+
+  /**
+   * @return the route along the tree, or null if the target can not be reached
+   */
+  Route route(int target) {
+    if (distance(target) == UNREACHABLE) {
+      return null;
+    }
+    LinkedList<Star> path = new LinkedList<>();
+    for (int node = target; node != NO_PARENT; node = parents[node]) {
+      path.addFirst(stars.get(node));
+    }
+    return Route.builder().path(path).totalTravelTime(distances[target]).build();
+  }
+
+  /**
+   * Repairs the tree after an edge has been inserted or has got cheaper.
+   */
+  void edgeDecreased(int from, int to, int weight) {
+    ensureCapacity();
+    if (distances[from] == UNREACHABLE || distances[from] + weight >= distances[to]) {
+      return;
+    }
+    distances[to] = distances[from] + weight;
+    parents[to] = from;
+    queue.insertOrDecrease(to, distances[to]);
+    propagate();
+  }
+
+  /**
+   * Repairs the tree after an edge has been removed or has got more expensive. The graph should
+   * already reflect the change.
+   */
+  void edgeIncreased(int from, int to) {
+    ensureCapacity();
+    if (parents[to] != from) {
+      // not a tree edge, no shortest path uses it
+      return;
+    }
+    // the subtree below the edge, found through the tree edges leaving every star of it
+    int[] subtree = new int[8];
+    int size = 0;
+    subtree[size++] = to;
+    affected[to] = true;
+    for (int i = 0; i < size; i++) {
+      int node = subtree[i];
+      for (Star successor : graph.successors(stars.get(node))) {
+        int child = indexes.get(successor);
+        if (parents[child] == node && !affected[child]) {
+          if (size == subtree.length) {
+            subtree = Arrays.copyOf(subtree, size * 2);
+          }
+          subtree[size++] = child;
+          affected[child] = true;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      distances[subtree[i]] = UNREACHABLE;
+      parents[subtree[i]] = NO_PARENT;
+    }
+    // the distances outside of the subtree are still exact, they seed the search within it
+    for (int i = 0; i < size; i++) {
+      int node = subtree[i];
+      Star star = stars.get(node);
+      for (Star predecessor : graph.predecessors(star)) {
+        int parent = indexes.get(predecessor);
+        if (affected[parent] || distances[parent] == UNREACHABLE) {
+          continue;
+        }
+        int distance = distances[parent] + graph.edgeValueOrDefault(predecessor, star, 0);
+        if (distance < distances[node]) {
+          distances[node] = distance;
+          parents[node] = parent;
+        }
+      }
+      if (distances[node] != UNREACHABLE) {
+        queue.insert(node, distances[node]);
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      affected[subtree[i]] = false;
+    }
+    propagate();
+  }
+
+  private void propagate() {
+    while (!queue.isEmpty()) {
+      int node = queue.pollMin();
+      Star star = stars.get(node);
+      for (Star successor : graph.successors(star)) {
+        int next = indexes.get(successor);
+        int distance = distances[node] + graph.edgeValueOrDefault(star, successor, 0);
+        if (distance < distances[next]) {
+          distances[next] = distance;
+          parents[next] = node;
+          queue.insertOrDecrease(next, distance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Makes room for the stars added to the graph since the last update.
+   */
+  private void ensureCapacity() {
+    int nodeCount = stars.size();
+    if (nodeCount == distances.length) {
+      return;
+    }
+    int previousCount = distances.length;
+    distances = Arrays.copyOf(distances, nodeCount);
+    parents = Arrays.copyOf(parents, nodeCount);
+    affected = Arrays.copyOf(affected, nodeCount);
+    Arrays.fill(distances, previousCount, nodeCount, UNREACHABLE);
+    Arrays.fill(parents, previousCount, nodeCount, NO_PARENT);
+    queue = new IndexedMinHeap(nodeCount);
+  }
+}
@@ -0,0 +1,95 @@
+package assignment.algorithm;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of a {@link CompiledStarGraph}, found once by Tarjan's
+ * algorithm with an explicit stack. Every cycle through a star stays inside its component, so the
+ * cycle search never leaves it, and a star which is alone in its component without an edge to
+ * itself is on no cycle at all.
+ */
+final class StronglyConnectedComponents {
+
+  private final int[] components;
+  private final int[] sizes;
+
+  private StronglyConnectedComponents(int[] components, int[] sizes) {
+    this.components = components;
+    this.sizes = sizes;
+  }
+
+  static StronglyConnectedComponents of(CompiledStarGraph graph) {
+    int nodeCount = graph.nodeCount();
+    int[] components = new int[nodeCount];
+    Arrays.fill(components, -1);
+    // the DFS number of every star, 0 while it has not been visited
+    int[] numbers = new int[nodeCount];
+    int[] lowLinks = new int[nodeCount];
+    // the stars visited and not assigned to a component yet
+    int[] stack = new int[nodeCount];
+    int stackSize = 0;
+    int[] path = new int[nodeCount];
+    int[] cursors = new int[nodeCount];
+    int[] sizes = new int[nodeCount];
+    int componentCount = 0;
+    int number = 0;
+    for (int root = 0; root < nodeCount; root++) {
+      if (numbers[root] != 0) {
+        continue;
+      }
+      int depth = 0;
+      path[0] = root;
+      cursors[0] = graph.edgeStart(root);
+      numbers[root] = lowLinks[root] = ++number;
+      stack[stackSize++] = root;
+      while (depth >= 0) {
+        int node = path[depth];
+        if (cursors[depth] < graph.edgeEnd(node)) {
+          int next = graph.target(cursors[depth]++);
+          if (numbers[next] == 0) {
+            path[++depth] = next;
+            cursors[depth] = graph.edgeStart(next);
+            numbers[next] = lowLinks[next] = ++number;
+            stack[stackSize++] = next;
+          } else if (components[next] < 0) {
+            // still on the stack, so in the component of a star on the path
+            lowLinks[node] = Math.min(lowLinks[node], numbers[next]);
+          }
+          continue;
+        }
+        if (lowLinks[node] == numbers[node]) {
+          // the node is the root of a component, which is the top of the stack down to it
+          int member;
+          do {
+            member = stack[--stackSize];
+            components[member] = componentCount;
+            sizes[componentCount]++;
+          } while (member != node);
+          componentCount++;
+        }
+        depth--;
+        if (depth >= 0) {
+          lowLinks[path[depth]] = Math.min(lowLinks[path[depth]], lowLinks[node]);
+        }
+      }
+    }
+    return new StronglyConnectedComponents(components, Arrays.copyOf(sizes, componentCount));
+  }
+
+  int componentCount() {
+    return sizes.length;
+  }
+
+  /**
+   * @return the component of the star, components are numbered in the order Tarjan's algorithm
+   * completes them, which is a reverse topological order
+   */
+  int component(int node) {
+    return components[node];
+  }
+
+  int size(int component) {
+    return sizes[component];
+  }
+}
@@ -0,0 +1,21 @@
+package assignment.algorithm.datastructure;
+
+import lombok.Value;
+
+/**
+ * A snapshot of the counters of a {@link SegmentedLruCache}.
+ */
+@Value
+public class CacheStats {
+
+  long hits;
+  long misses;
+  long evictions;
+  long size;
+  long weight;
+
+  public double hitRate() {
+    long requests = hits + misses;
+    return requests == 0 ? 1.0 : (double) hits / requests;
+  }
+}
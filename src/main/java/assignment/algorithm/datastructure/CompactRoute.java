@@ -0,0 +1,109 @@
+package assignment.algorithm.datastructure;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A route as the dense indexes of its stars in a {@link CompiledStarGraph} and its total travel
+ * time: about 4 bytes per stop instead of the list node and star reference of a
+ * {@link java.util.LinkedList}. The stars are looked up in the graph when they are asked for.
+ * <p>
+ * Routes found by {@link assignment.algorithm.PathFinder} are {@link Route}s backed by a compact
+ * route, see {@link Route#of(CompactRoute)}.
+ */
+public final class CompactRoute implements Comparable<CompactRoute> {
+
+  private final CompiledStarGraph graph;
+  private final int[] stars;
+  private final int totalTravelTime;
+
+  /**
+   * @param stars the indexes of the stars from the source to the target, the array is not copied
+   */
+  public CompactRoute(CompiledStarGraph graph, int[] stars, int totalTravelTime) {
+    this.graph = graph;
+    this.stars = stars;
+    this.totalTravelTime = totalTravelTime;
+  }
+
+  public CompiledStarGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * @return the number of stars of the route, the source and the target included
+   */
+  public int length() {
+    return stars.length;
+  }
+
+  /**
+   * @return the index of the star at the position of the route
+   */
+  public int star(int position) {
+    return stars[position];
+  }
+
+  /**
+   * @return the stars of the route, looked up in the graph on every access
+   */
+  public List<Star> stars() {
+    return new StarList();
+  }
+
+  public int getTotalTravelTime() {
+    return totalTravelTime;
+  }
+
+  public int getPathStops() {
+    return stars.length - 1;
+  }
+
+  public int getIntermediatePathStops() {
+    return Math.max(stars.length - 2, 0);
+  }
+
+  @Override
+  public int compareTo(CompactRoute other) {
+    return Integer.compare(totalTravelTime, other.totalTravelTime);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof CompactRoute)) {
+      return false;
+    }
+    CompactRoute route = (CompactRoute) other;
+    return graph == route.graph && totalTravelTime == route.totalTravelTime
+        && Arrays.equals(stars, route.stars);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(stars) + totalTravelTime;
+  }
+
+  @Override
+  public String toString() {
+    return "CompactRoute(stars=" + Arrays.toString(stars) + ", totalTravelTime=" + totalTravelTime
+        + ")";
+  }
+
+  private final class StarList extends AbstractList<Star> implements RandomAccess {
+
+    @Override
+    public Star get(int index) {
+      return graph.star(stars[index]);
+    }
+
+    @Override
+    public int size() {
+      return stars.length;
+    }
+  }
+}
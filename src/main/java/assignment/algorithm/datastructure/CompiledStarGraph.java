@@ -0,0 +1,349 @@
+package assignment.algorithm.datastructure;
+
+import com.google.common.graph.ValueGraph;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable, int indexed copy of a {@link ValueGraph} in compressed sparse row (CSR) form.
+ * Every Star gets a dense index in {@code [0, nodeCount)}; the outgoing edges of node {@code u}
+ * are stored in {@code targets} and {@code weights} between {@code offsets[u]} and
+ * {@code offsets[u + 1]}. Successors keep the iteration order of the source graph, so traversals
+ * over this form visit nodes in the same order as traversals over the {@link ValueGraph}.
+ * <p>
+ * The three arrays are int buffers, which wrap Java arrays unless the graph has been copied
+ * {@link #offHeap()}. The stars and their index map stay on the heap either way.
+ * <p>
+ * Used by {@link assignment.algorithm.PathFinder}.
+ */
+public final class CompiledStarGraph {
+
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  private final long version;
+  private final Star[] stars;
+  private final Map<Star, Integer> indexes;
+  private final IntBuffer offsets;
+  private final IntBuffer targets;
+  private final IntBuffer weights;
+  private final boolean negativeWeights;
+  private volatile CompiledStarGraph reverse;
+
+  public CompiledStarGraph(ValueGraph<Star, Integer> graph) {
+    Objects.requireNonNull(graph, "graph should not be null");
+    this.version = VERSIONS.incrementAndGet();
+    int nodeCount = graph.nodes().size();
+    this.stars = new Star[nodeCount];
+    this.indexes = new HashMap<>(nodeCount * 2);
+    int index = 0;
+    for (Star star : graph.nodes()) {
+      stars[index] = star;
+      indexes.put(star, index++);
+    }
+
+    // an undirected edge is a successor of both of its stars, so edges() would count it once
+    int edgeCount = 0;
+    for (Star star : stars) {
+      edgeCount += graph.outDegree(star);
+    }
+    int[] offsets = new int[nodeCount + 1];
+    int[] targets = new int[edgeCount];
+    int[] weights = new int[edgeCount];
+    int edge = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      offsets[node] = edge;
+      for (Star successor : graph.successors(stars[node])) {
+        targets[edge] = indexes.get(successor);
+        weights[edge] = graph.edgeValueOrDefault(stars[node], successor, Integer.MAX_VALUE);
+        edge++;
+      }
+    }
+    offsets[nodeCount] = edge;
+    this.offsets = IntBuffer.wrap(offsets);
+    this.targets = IntBuffer.wrap(targets);
+    this.weights = IntBuffer.wrap(weights);
+    this.negativeWeights = Arrays.stream(weights).anyMatch(weight -> weight < 0);
+  }
+
+  /**
+   * Builds the graph straight from edge arrays, so a loader does not need to build a
+   * {@link ValueGraph} first. The successors of a star keep the order of its edges. An edge given
+   * more than once keeps its first position and its last travel time, as if the edges had been put
+   * into a {@link com.google.common.graph.MutableValueGraph} one by one.
+   *
+   * @param stars       the stars by index, the array is not copied
+   * @param edgeSources the index of the source star of every edge
+   * @param edgeTargets the index of the target star of every edge
+   * @param edgeWeights the travel time of every edge
+   * @param edgeCount   the number of edges, the arrays may be longer
+   */
+  public CompiledStarGraph(Star[] stars, int[] edgeSources, int[] edgeTargets, int[] edgeWeights,
+      int edgeCount) {
+    Objects.requireNonNull(stars, "stars should not be null");
+    this.version = VERSIONS.incrementAndGet();
+    int nodeCount = stars.length;
+    this.stars = stars;
+    this.indexes = new HashMap<>(nodeCount * 2);
+    for (int node = 0; node < nodeCount; node++) {
+      if (indexes.put(Objects.requireNonNull(stars[node], "stars should not be null"), node)
+          != null) {
+        throw new IllegalArgumentException("Star " + stars[node] + " is given more than once");
+      }
+    }
+
+    // counting sort of the edges by their source, which keeps the order of every star's edges
+    int[] starts = new int[nodeCount + 1];
+    for (int edge = 0; edge < edgeCount; edge++) {
+      int source = edgeSources[edge];
+      int target = edgeTargets[edge];
+      if (source < 0 || source >= nodeCount || target < 0 || target >= nodeCount) {
+        throw new IllegalArgumentException("edge " + edge + " refers to an unknown star");
+      }
+      starts[source + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      starts[node + 1] += starts[node];
+    }
+    int[] sortedTargets = new int[edgeCount];
+    int[] sortedWeights = new int[edgeCount];
+    int[] next = Arrays.copyOf(starts, nodeCount);
+    for (int edge = 0; edge < edgeCount; edge++) {
+      int position = next[edgeSources[edge]]++;
+      sortedTargets[position] = edgeTargets[edge];
+      sortedWeights[position] = edgeWeights[edge];
+    }
+
+    // drop repeated edges in place, seenBy marks the targets the current star already has
+    int[] offsets = new int[nodeCount + 1];
+    int[] seenBy = new int[nodeCount];
+    int[] slots = new int[nodeCount];
+    int size = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      offsets[node] = size;
+      for (int edge = starts[node]; edge < starts[node + 1]; edge++) {
+        int target = sortedTargets[edge];
+        if (seenBy[target] == node + 1) {
+          sortedWeights[slots[target]] = sortedWeights[edge];
+          continue;
+        }
+        seenBy[target] = node + 1;
+        slots[target] = size;
+        sortedTargets[size] = target;
+        sortedWeights[size++] = sortedWeights[edge];
+      }
+    }
+    offsets[nodeCount] = size;
+    this.offsets = IntBuffer.wrap(offsets);
+    this.targets = IntBuffer.wrap(sortedTargets, 0, size).slice();
+    this.weights = IntBuffer.wrap(sortedWeights, 0, size).slice();
+    this.negativeWeights = Arrays.stream(sortedWeights, 0, size).anyMatch(weight -> weight < 0);
+  }
+
+  /**
+   * Builds the transposed graph: the successors of a node are its predecessors in the forward one.
+   * It is kept where the forward graph is kept, on the heap or off it.
+   */
+  private CompiledStarGraph(CompiledStarGraph forward) {
+    this.version = forward.version;
+    this.stars = forward.stars;
+    this.indexes = forward.indexes;
+    this.negativeWeights = forward.negativeWeights;
+    this.reverse = forward;
+    int nodeCount = forward.stars.length;
+    int edgeCount = forward.edgeCount();
+    int[] offsets = new int[nodeCount + 1];
+    int[] targets = new int[edgeCount];
+    int[] weights = new int[edgeCount];
+    // counting sort of the edges by their target
+    for (int edge = 0; edge < edgeCount; edge++) {
+      offsets[forward.target(edge) + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      offsets[node + 1] += offsets[node];
+    }
+    int[] next = Arrays.copyOf(offsets, nodeCount);
+    for (int node = 0; node < nodeCount; node++) {
+      for (int edge = forward.edgeStart(node); edge < forward.edgeEnd(node); edge++) {
+        int position = next[forward.target(edge)]++;
+        targets[position] = node;
+        weights[position] = forward.weight(edge);
+      }
+    }
+    boolean offHeap = forward.isOffHeap();
+    this.offsets = offHeap ? direct(IntBuffer.wrap(offsets)) : IntBuffer.wrap(offsets);
+    this.targets = offHeap ? direct(IntBuffer.wrap(targets)) : IntBuffer.wrap(targets);
+    this.weights = offHeap ? direct(IntBuffer.wrap(weights)) : IntBuffer.wrap(weights);
+  }
+
+  /**
+   * The copy of {@link #offHeap()}.
+   */
+  private CompiledStarGraph(CompiledStarGraph graph, IntBuffer offsets, IntBuffer targets,
+      IntBuffer weights) {
+    this.version = graph.version;
+    this.stars = graph.stars;
+    this.indexes = graph.indexes;
+    this.negativeWeights = graph.negativeWeights;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+  }
+
+  /**
+   * A copy whose offsets, successors and travel times are kept in direct buffers outside of the
+   * Java heap, so a map with tens of millions of highways does not have to be traced by every
+   * garbage collection. It shares the stars with this graph and has the same version and
+   * fingerprint, as it is the same graph; only reading a travel time costs a little more.
+   *
+   * @return the copy, or this graph if it is off the heap already
+   */
+  public CompiledStarGraph offHeap() {
+    if (isOffHeap()) {
+      return this;
+    }
+    return new CompiledStarGraph(this, direct(offsets), direct(targets), direct(weights));
+  }
+
+  /**
+   * @return whether the edges are kept outside of the Java heap
+   */
+  public boolean isOffHeap() {
+    return offsets.isDirect();
+  }
+
+  private static IntBuffer direct(IntBuffer values) {
+    // the limit of a direct buffer is an int number of bytes
+    if (values.limit() > Integer.MAX_VALUE / Integer.BYTES) {
+      throw new IllegalArgumentException("a graph off the heap holds at most "
+          + Integer.MAX_VALUE / Integer.BYTES + " edges");
+    }
+    IntBuffer copy = ByteBuffer.allocateDirect(values.limit() * Integer.BYTES)
+        .order(ByteOrder.nativeOrder()).asIntBuffer();
+    copy.put(values.duplicate());
+    copy.rewind();
+    return copy;
+  }
+
+  /**
+   * The transposed graph shares the stars and their indexes with this one. It is built on the first
+   * call and kept, so searches walking backwards from a target (bidirectional search, landmark
+   * distances) do not pay for it more than once.
+   *
+   * @return the graph with every edge reversed
+   */
+  public CompiledStarGraph reverse() {
+    CompiledStarGraph result = reverse;
+    if (result == null) {
+      synchronized (this) {
+        result = reverse;
+        if (result == null) {
+          result = new CompiledStarGraph(this);
+          reverse = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return a number which is unique to this compiled graph and grows with every compilation, so
+   * data derived from a graph can tell whether it is still current
+   */
+  public long version() {
+    return version;
+  }
+
+  public int nodeCount() {
+    return stars.length;
+  }
+
+  public int edgeCount() {
+    return targets.limit();
+  }
+
+  /**
+   * @return whether some travel time is negative, which rules out pruning by travel time
+   */
+  public boolean hasNegativeWeights() {
+    return negativeWeights;
+  }
+
+  /**
+   * @param star the Star to look up
+   * @return the dense index of the star, or -1 if the star is not part of the graph
+   */
+  public int indexOf(Star star) {
+    Integer index = indexes.get(star);
+    return index == null ? -1 : index;
+  }
+
+  public Star star(int node) {
+    return stars[node];
+  }
+
+  /**
+   * @return the position of the first outgoing edge of the node
+   */
+  public int edgeStart(int node) {
+    return offsets.get(node);
+  }
+
+  /**
+   * @return the position after the last outgoing edge of the node
+   */
+  public int edgeEnd(int node) {
+    return offsets.get(node + 1);
+  }
+
+  public int target(int edge) {
+    return targets.get(edge);
+  }
+
+  public int weight(int edge) {
+    return weights.get(edge);
+  }
+
+  /**
+   * A 64 bit hash of the stars in index order and of all edges. Data derived from a compiled graph
+   * and stored outside of it, like precomputed distance tables, records the fingerprint to detect
+   * that it is loaded for a different graph.
+   */
+  public long fingerprint() {
+    long hash = 0xcbf29ce484222325L;
+    for (Star star : stars) {
+      hash = mix(hash, Objects.hashCode(star.getId()));
+      hash = mix(hash, Objects.hashCode(star.getName()));
+    }
+    for (int node = 0; node <= stars.length; node++) {
+      hash = mix(hash, offsets.get(node));
+    }
+    for (int edge = 0; edge < edgeCount(); edge++) {
+      hash = mix(mix(hash, targets.get(edge)), weights.get(edge));
+    }
+    return hash;
+  }
+
+  private static long mix(long hash, int value) {
+    return (hash ^ value) * 0x100000001b3L;
+  }
+
+  /**
+   * Looks the edge up by scanning the successors of {@code from}.
+   *
+   * @return the travel time between the two nodes or {@link Integer#MAX_VALUE} if there is no edge
+   */
+  public int edgeWeight(int from, int to) {
+    for (int edge = offsets.get(from); edge < offsets.get(from + 1); edge++) {
+      if (targets.get(edge) == to) {
+        return weights.get(edge);
+      }
+    }
+    return Integer.MAX_VALUE;
+  }
+}
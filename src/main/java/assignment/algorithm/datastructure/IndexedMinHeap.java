@@ -0,0 +1,152 @@
+package assignment.algorithm.datastructure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min heap over node indexes in {@code [0, capacity)} keyed by an int priority. Unlike
+ * {@link java.util.PriorityQueue} every node knows its slot in the heap, so a priority can be
+ * decreased in O(log n) without searching the queue first.
+ * <p>
+ * Used by {@link assignment.algorithm.PathFinder}.
+ */
+public final class IndexedMinHeap {
+
+  private final int[] heap;
+  private final int[] positions;
+  private final int[] priorities;
+  private int size;
+
+  public IndexedMinHeap(int capacity) {
+    this.heap = new int[capacity];
+    this.positions = new int[capacity];
+    this.priorities = new int[capacity];
+    Arrays.fill(positions, -1);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int node) {
+    return positions[node] >= 0;
+  }
+
+  public int priority(int node) {
+    if (!contains(node)) {
+      throw new NoSuchElementException("node " + node + " is not in the heap");
+    }
+    return priorities[node];
+  }
+
+  public void insert(int node, int priority) {
+    if (contains(node)) {
+      throw new IllegalArgumentException("node " + node + " is already in the heap");
+    }
+    heap[size] = node;
+    positions[node] = size;
+    priorities[node] = priority;
+    siftUp(size++);
+  }
+
+  /**
+   * Lowers the priority of a node which is already in the heap.
+   */
+  public void decreaseKey(int node, int priority) {
+    if (priority > priority(node)) {
+      throw new IllegalArgumentException("priority of node " + node + " can not be increased");
+    }
+    priorities[node] = priority;
+    siftUp(positions[node]);
+  }
+
+  /**
+   * Inserts the node or lowers its priority if the new one is smaller.
+   *
+   * @return whether the heap has been changed
+   */
+  public boolean insertOrDecrease(int node, int priority) {
+    if (!contains(node)) {
+      insert(node, priority);
+      return true;
+    }
+    if (priority < priorities[node]) {
+      decreaseKey(node, priority);
+      return true;
+    }
+    return false;
+  }
+
+  public int peekMin() {
+    if (size == 0) {
+      throw new NoSuchElementException("heap is empty");
+    }
+    return heap[0];
+  }
+
+  /**
+   * @return the node with the smallest priority after removing it from the heap
+   */
+  public int pollMin() {
+    int min = peekMin();
+    positions[min] = -1;
+    size--;
+    if (size > 0) {
+      heap[0] = heap[size];
+      positions[heap[0]] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = -1;
+    }
+    size = 0;
+  }
+
+  private void siftUp(int slot) {
+    int node = heap[slot];
+    int priority = priorities[node];
+    while (slot > 0) {
+      int parentSlot = (slot - 1) >>> 1;
+      int parent = heap[parentSlot];
+      if (priorities[parent] <= priority) {
+        break;
+      }
+      heap[slot] = parent;
+      positions[parent] = slot;
+      slot = parentSlot;
+    }
+    heap[slot] = node;
+    positions[node] = slot;
+  }
+
+  private void siftDown(int slot) {
+    int node = heap[slot];
+    int priority = priorities[node];
+    int half = size >>> 1;
+    while (slot < half) {
+      int childSlot = 2 * slot + 1;
+      int child = heap[childSlot];
+      int right = childSlot + 1;
+      if (right < size && priorities[heap[right]] < priorities[child]) {
+        childSlot = right;
+        child = heap[right];
+      }
+      if (priority <= priorities[child]) {
+        break;
+      }
+      heap[slot] = child;
+      positions[child] = slot;
+      slot = childSlot;
+    }
+    heap[slot] = node;
+    positions[node] = slot;
+  }
+}
@@ -0,0 +1,59 @@
+package assignment.algorithm.datastructure;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The limits a route has to respect in a bounded path query. They are checked while the graph is
+ * traversed, so branches which can not produce a matching route are cut early. A route matches when
+ * it has at most {@code maxStops} stops, exactly {@code intermediateStops} intermediate stops (if
+ * set) and a total travel time of at most {@code maxTravelTime}.
+ * <p>
+ * Used by {@link assignment.algorithm.PathFinder}.
+ */
+@Value
+@Builder
+public class PathConstraints {
+
+  private static final PathConstraints NONE = PathConstraints.builder().build();
+
+  @Builder.Default
+  int maxStops = Integer.MAX_VALUE;
+
+  @Builder.Default
+  int intermediateStops = -1;
+
+  @Builder.Default
+  int maxTravelTime = Integer.MAX_VALUE;
+
+  public static PathConstraints none() {
+    return NONE;
+  }
+
+  /**
+   * @return the largest number of stops a matching route can have
+   */
+  public int stopLimit() {
+    return intermediateStops < 0 ? maxStops : Math.min(maxStops, intermediateStops + 1);
+  }
+
+  /**
+   * Checks whether a partial route can still be extended into a matching one. Travel times are
+   * expected to be non-negative, so a partial route over the time limit can never match again.
+   *
+   * @param stops      the least number of stops any route continuing the partial one will have
+   * @param travelTime the travel time of the partial route
+   */
+  public boolean canExtend(int stops, int travelTime) {
+    return stops <= stopLimit() && travelTime <= maxTravelTime;
+  }
+
+  public boolean matches(int stops, int travelTime) {
+    return stops <= maxStops && (intermediateStops < 0 || Math.max(stops - 1, 0)
+        == intermediateStops) && travelTime <= maxTravelTime;
+  }
+
+  public boolean matches(Route route) {
+    return matches(route.getPathStops(), route.getTotalTravelTime());
+  }
+}
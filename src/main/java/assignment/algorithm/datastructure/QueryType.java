@@ -0,0 +1,13 @@
+package assignment.algorithm.datastructure;
+
+/**
+ * The kinds of queries {@link assignment.algorithm.PathFinder} answers
+ */
+public enum QueryType {
+  FIND_PATHS,
+  SHORTEST_PATH,
+  SHORTEST_CYCLE,
+  COUNT_WALKS,
+  COUNT_PATHS,
+  FIND_CYCLES
+}
@@ -1,31 +1,134 @@
 package assignment.algorithm.datastructure;
 
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
 import lombok.Builder;
-import lombok.Data;
 
 /**
  * A route consists of a list of Stars which exist in path and aggregation of weights by travelling
  * from a Star to another projected in the totalTravelTime. It implements {@link Comparable} to
  * enable sort functions
+ * <p>
+ * The routes found by the searches are backed by a {@link CompactRoute}; their
+ * {@link LinkedList} of stars is only built when {@link #getPath()} is called. The stops, the
+ * travel time, equality and hashing do not need it. Once built, the list replaces the compact
+ * route, so changes made through {@link #getPath()} are seen by every other method.
  */
-@Builder
-@Data
 public class Route implements Comparable<Route> {
 
-  LinkedList<Star> path;
-  int totalTravelTime;
+  private volatile LinkedList<Star> path;
+  private volatile CompactRoute compact;
+  private int totalTravelTime;
+
+  @Builder
+  public Route(LinkedList<Star> path, int totalTravelTime) {
+    this.path = path;
+    this.totalTravelTime = totalTravelTime;
+  }
+
+  private Route(CompactRoute compact) {
+    this.compact = compact;
+    this.totalTravelTime = compact.getTotalTravelTime();
+  }
+
+  /**
+   * @return a route whose list of stars is built from the compact route when it is asked for
+   */
+  public static Route of(CompactRoute compact) {
+    return new Route(Objects.requireNonNull(compact, "compact route should not be null"));
+  }
+
+  /**
+   * @return a route with the same stars and travel time, which can be changed without changing
+   * this one
+   */
+  public Route copy() {
+    CompactRoute backing = compact;
+    if (backing != null) {
+      return new Route(backing);
+    }
+    return new Route(path == null ? null : new LinkedList<>(path), totalTravelTime);
+  }
+
+  public synchronized LinkedList<Star> getPath() {
+    CompactRoute backing = compact;
+    if (backing == null) {
+      return path;
+    }
+    LinkedList<Star> result = new LinkedList<>(backing.stars());
+    path = result;
+    compact = null;
+    return result;
+  }
+
+  public synchronized void setPath(LinkedList<Star> path) {
+    this.path = path;
+    this.compact = null;
+  }
+
+  public int getTotalTravelTime() {
+    return totalTravelTime;
+  }
+
+  public void setTotalTravelTime(int totalTravelTime) {
+    this.totalTravelTime = totalTravelTime;
+  }
 
   public int getPathStops() {
-    return path.size() - 1;
+    return stopCount() - 1;
   }
 
   public int getIntermediatePathStops() {
-    return Math.max(path.size() - 2, 0);
+    return Math.max(stopCount() - 2, 0);
   }
 
   @Override
   public int compareTo(Route other) {
     return Integer.compare(this.getTotalTravelTime(), other.getTotalTravelTime());
   }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Route)) {
+      return false;
+    }
+    Route route = (Route) other;
+    if (totalTravelTime != route.totalTravelTime) {
+      return false;
+    }
+    CompactRoute backing = compact;
+    CompactRoute otherBacking = route.compact;
+    if (backing != null && otherBacking != null && backing.getGraph() == otherBacking.getGraph()) {
+      return backing.equals(otherBacking);
+    }
+    return Objects.equals(stars(), route.stars());
+  }
+
+  @Override
+  public int hashCode() {
+    List<Star> stars = stars();
+    return 59 * (59 + totalTravelTime) + (stars == null ? 43 : stars.hashCode());
+  }
+
+  @Override
+  public String toString() {
+    return "Route(path=" + stars() + ", totalTravelTime=" + totalTravelTime + ")";
+  }
+
+  private int stopCount() {
+    CompactRoute backing = compact;
+    return backing != null ? backing.length() : path.size();
+  }
+
+  /**
+   * @return the stars without building the linked list
+   */
+  private List<Star> stars() {
+    CompactRoute backing = compact;
+    return backing != null ? backing.stars() : path;
+  }
 }
@@ -0,0 +1,15 @@
+package assignment.algorithm.datastructure;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * The routes of an enumeration query with a {@link SearchBudget}, and whether they are all the
+ * routes there are or the budget has cut the search short.
+ */
+@Value
+public class RouteSearchResult {
+
+  List<Route> routes;
+  boolean complete;
+}
@@ -0,0 +1,30 @@
+package assignment.algorithm.datastructure;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The work an enumeration query may do: the number of routes it finds and the time it runs. A
+ * query which runs out of its budget returns the routes it has found so far, marked as incomplete.
+ * <p>
+ * Used by {@link assignment.algorithm.PathFinder}.
+ */
+@Value
+@Builder
+public class SearchBudget {
+
+  private static final SearchBudget UNLIMITED = SearchBudget.builder().build();
+
+  @Builder.Default
+  int maxRoutes = Integer.MAX_VALUE;
+
+  /**
+   * The time the query may run, or null for no limit
+   */
+  Duration timeout;
+
+  public static SearchBudget unlimited() {
+    return UNLIMITED;
+  }
+}
@@ -0,0 +1,222 @@
+package assignment.algorithm.datastructure;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A thread-safe cache bounded by the number of entries and by their total weight. The keys are
+ * spread over independently locked segments, and every segment is a segmented LRU: new entries go
+ * to a probation queue and only move to the protected queue when they are hit again. A burst of
+ * one-off queries therefore only evicts other one-off queries, while popular entries stay.
+ * <p>
+ * Values are loaded outside of the locks, so two threads missing the same key at the same time
+ * may both load it. The bounds are split evenly over the segments and every segment enforces its
+ * share, so the cache as a whole keeps them only approximately: it evicts from a full segment
+ * while others still have room, and the size may exceed the maximum by less than one entry per
+ * segment where it does not divide evenly.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public final class SegmentedLruCache<K, V> {
+
+  private static final double PROTECTED_RATIO = 0.8;
+
+  private final Segment<K, V>[] segments;
+  private final ToIntFunction<? super V> weigher;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param maximumSize      the number of entries the cache holds, enforced per segment
+   * @param maximumWeight    the total weight of the entries the cache holds, enforced per segment
+   * @param weigher          the weight of a value, for example the number of stars it references
+   * @param concurrencyLevel the expected number of threads using the cache at the same time
+   */
+  public SegmentedLruCache(int maximumSize, long maximumWeight,
+      ToIntFunction<? super V> weigher, int concurrencyLevel) {
+    if (maximumSize <= 0 || maximumWeight <= 0 || concurrencyLevel <= 0) {
+      throw new IllegalArgumentException("the bounds of the cache should be positive");
+    }
+    this.weigher = Objects.requireNonNull(weigher, "weigher should not be null");
+    int segmentCount = 1;
+    while (segmentCount < concurrencyLevel && segmentCount * 2 <= maximumSize) {
+      segmentCount <<= 1;
+    }
+    this.segments = newSegments(segmentCount);
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment<>((maximumSize + segmentCount - 1) / segmentCount,
+          Math.max(1, maximumWeight / segmentCount));
+    }
+  }
+
+  /**
+   * @return the cached value, or null if the key is not cached
+   */
+  public V get(K key) {
+    V value = segmentFor(key).get(key);
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Returns the cached value, or loads and caches it if the key is not cached.
+   *
+   * @param loader computes the value of a missing key, it should not return null
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    V value = get(key);
+    if (value == null) {
+      value = Objects.requireNonNull(loader.apply(key), "loaded value should not be null");
+      put(key, value);
+    }
+    return value;
+  }
+
+  public void put(K key, V value) {
+    Objects.requireNonNull(value, "value should not be null");
+    evictions.add(segmentFor(key).put(key, value, weigher.applyAsInt(value)));
+  }
+
+  public void invalidateAll() {
+    for (Segment<K, V> segment : segments) {
+      segment.clear();
+    }
+  }
+
+  public CacheStats stats() {
+    long size = 0;
+    long weight = 0;
+    for (Segment<K, V> segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.probation.size() + segment.protectedEntries.size();
+        weight += segment.weight;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, weight);
+  }
+
+  private Segment<K, V> segmentFor(K key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+  }
+
+  private static final class Entry<V> {
+
+    private final V value;
+    private final int weight;
+
+    private Entry(V value, int weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> Segment<K, V>[] newSegments(int count) {
+    return (Segment<K, V>[]) new Segment<?, ?>[count];
+  }
+
+  private static final class Segment<K, V> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // both maps keep their least recently used entry first
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Entry<V>> protectedEntries =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final int maximumSize;
+    private final int protectedSize;
+    private final long maximumWeight;
+    private long weight;
+
+    private Segment(int maximumSize, long maximumWeight) {
+      this.maximumSize = maximumSize;
+      this.protectedSize = Math.max(1, (int) (maximumSize * PROTECTED_RATIO));
+      this.maximumWeight = maximumWeight;
+    }
+
+    private V get(K key) {
+      lock.lock();
+      try {
+        Entry<V> entry = protectedEntries.get(key);
+        if (entry != null) {
+          return entry.value;
+        }
+        entry = probation.remove(key);
+        if (entry == null) {
+          return null;
+        }
+        // a second hit promotes the entry, the protected queue makes room by demoting its LRU
+        protectedEntries.put(key, entry);
+        if (protectedEntries.size() > protectedSize) {
+          Iterator<Map.Entry<K, Entry<V>>> eldest = protectedEntries.entrySet().iterator();
+          Map.Entry<K, Entry<V>> demoted = eldest.next();
+          eldest.remove();
+          probation.put(demoted.getKey(), demoted.getValue());
+        }
+        return entry.value;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * @return the number of entries evicted to make room for the new one
+     */
+    private int put(K key, V value, int entryWeight) {
+      lock.lock();
+      try {
+        Entry<V> previous = protectedEntries.remove(key);
+        if (previous == null) {
+          previous = probation.remove(key);
+        }
+        if (previous != null) {
+          weight -= previous.weight;
+        }
+        if (entryWeight > maximumWeight) {
+          // the entry would push everything else out
+          return 0;
+        }
+        probation.put(key, new Entry<>(value, entryWeight));
+        weight += entryWeight;
+        int evicted = 0;
+        while (probation.size() + protectedEntries.size() > maximumSize
+            || weight > maximumWeight) {
+          Map<K, Entry<V>> victims = probation.isEmpty() ? protectedEntries : probation;
+          Iterator<Entry<V>> eldest = victims.values().iterator();
+          weight -= eldest.next().weight;
+          eldest.remove();
+          evicted++;
+        }
+        return evicted;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void clear() {
+      lock.lock();
+      try {
+        probation.clear();
+        protectedEntries.clear();
+        weight = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
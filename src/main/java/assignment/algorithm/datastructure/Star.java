@@ -3,14 +3,20 @@ package assignment.algorithm.datastructure;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 /**
  * This class in representing a Star in the graph.
  * <p>
+ * Stars are the keys of every index lookup, so the hash code is computed once and kept. Loaders
+ * intern the stars with {@link assignment.algorithm.io.StarInterner}, which also gives every star a
+ * dense int index, and compiled graphs refer to stars by that index.
+ * <p>
  * Used by {@link assignment.algorithm.PathFinder}
  */
 @Data
 @Builder
+@EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
 public class Star {
 
   private final String id;
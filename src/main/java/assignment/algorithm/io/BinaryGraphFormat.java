@@ -0,0 +1,211 @@
+package assignment.algorithm.io;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Star;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compact binary format of the star maps, read through memory-mapped buffers.
+ * <p>
+ * The file starts with a header (magic, format version, number of stars, number of edges and the
+ * offset of the edge table) followed by the star table, which holds every star once as the UTF-8
+ * bytes of its id and name, and by the edge table of three ints per edge: the source and target
+ * position in the star table and the travel time. Star ids are interned while the star table is
+ * read, so the edges are copied from the mapped file into int arrays without any lookup.
+ */
+public final class BinaryGraphFormat {
+
+  private static final int MAGIC = 0x53484753;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int EDGE_SIZE = 12;
+  private static final int NO_NAME = -1;
+  private static final int BLOCK_EDGES = 4096;
+
+  private BinaryGraphFormat() {
+
+  }
+
+  /**
+   * Writes the graph, the file is replaced if it exists.
+   */
+  public static void write(CompiledStarGraph graph, Path file) throws IOException {
+    Star[] stars = new Star[graph.nodeCount()];
+    for (int node = 0; node < stars.length; node++) {
+      stars[node] = graph.star(node);
+    }
+    try (DataOutputStream out = writeStars(stars, graph.edgeCount(), file)) {
+      for (int node = 0; node < graph.nodeCount(); node++) {
+        for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+          out.writeInt(node);
+          out.writeInt(graph.target(edge));
+          out.writeInt(graph.weight(edge));
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the edges as they have been loaded, repeated edges included, for example to convert a
+   * text file. The file is replaced if it exists.
+   *
+   * @param stars the interner the edges have been loaded with
+   */
+  public static void write(EdgeList edges, StarInterner stars, Path file) throws IOException {
+    try (DataOutputStream out = writeStars(stars.toArray(), edges.size(), file)) {
+      for (int edge = 0; edge < edges.size(); edge++) {
+        out.writeInt(edges.source(edge));
+        out.writeInt(edges.target(edge));
+        out.writeInt(edges.weight(edge));
+      }
+    }
+  }
+
+  /**
+   * Writes the header and the star table.
+   *
+   * @return the stream to write the edge table to
+   */
+  private static DataOutputStream writeStars(Star[] stars, int edgeCount, Path file)
+      throws IOException {
+    byte[][] ids = new byte[stars.length][];
+    byte[][] names = new byte[stars.length][];
+    long edgeOffset = HEADER_SIZE;
+    for (int node = 0; node < stars.length; node++) {
+      Star star = stars[node];
+      ids[node] = star.getId().getBytes(StandardCharsets.UTF_8);
+      names[node] = star.getName() == null ? null : star.getName().getBytes(StandardCharsets.UTF_8);
+      edgeOffset += 8 + ids[node].length + (names[node] == null ? 0 : names[node].length);
+    }
+
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(stars.length);
+      out.writeInt(edgeCount);
+      out.writeLong(edgeOffset);
+      for (int node = 0; node < stars.length; node++) {
+        out.writeInt(ids[node].length);
+        out.write(ids[node]);
+        if (names[node] == null) {
+          out.writeInt(NO_NAME);
+        } else {
+          out.writeInt(names[node].length);
+          out.write(names[node]);
+        }
+      }
+      return out;
+    } catch (IOException | RuntimeException e) {
+      out.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Loads a file with a new interner which creates the stars as they have been written.
+   */
+  public static CompiledStarGraph load(Path file) throws IOException {
+    StarInterner stars = new StarInterner();
+    return read(file, stars).compile(stars);
+  }
+
+  /**
+   * Reads the edges of the file.
+   *
+   * @param stars interns the stars of the star table, stars it knows already are reused
+   * @throws IllegalArgumentException if the file is not in this format
+   */
+  public static EdgeList read(Path file, StarInterner stars) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        throw new IllegalArgumentException(file + " is not a star graph");
+      }
+      MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC) {
+        throw new IllegalArgumentException(file + " is not a star graph");
+      }
+      if (header.getInt() != VERSION) {
+        throw new IllegalArgumentException(file + " has an unsupported format version");
+      }
+      int starCount = header.getInt();
+      int edgeCount = header.getInt();
+      long edgeOffset = header.getLong();
+      if (starCount < 0 || edgeCount < 0 || edgeOffset < HEADER_SIZE
+          || fileSize != edgeOffset + (long) edgeCount * EDGE_SIZE) {
+        throw new IllegalArgumentException(file + " is truncated");
+      }
+
+      // the position of a star in the file to its index in the interner
+      int[] indexes = new int[starCount];
+      boolean renumbered = false;
+      MappedByteBuffer starTable = channel.map(MapMode.READ_ONLY, HEADER_SIZE,
+          edgeOffset - HEADER_SIZE);
+      for (int star = 0; star < starCount; star++) {
+        String id = readString(starTable, file);
+        String name = readString(starTable, file);
+        indexes[star] = stars.intern(Star.builder().id(id).name(name).build());
+        renumbered |= indexes[star] != star;
+      }
+
+      int[] sources = new int[edgeCount];
+      int[] targets = new int[edgeCount];
+      int[] weights = new int[edgeCount];
+      // the edges are copied in blocks with bulk gets, which swap the bytes of many ints at once,
+      // and split into the three arrays from the block
+      int[] block = new int[3 * BLOCK_EDGES];
+      // a mapped buffer is limited to 2 GB, so the edge table is mapped in chunks of whole edges
+      long edgesPerChunk = Integer.MAX_VALUE / EDGE_SIZE;
+      for (long first = 0; first < edgeCount; first += edgesPerChunk) {
+        int count = (int) Math.min(edgesPerChunk, edgeCount - first);
+        IntBuffer chunk = channel.map(MapMode.READ_ONLY, edgeOffset + first * EDGE_SIZE,
+            (long) count * EDGE_SIZE).asIntBuffer();
+        for (int done = 0; done < count; done += BLOCK_EDGES) {
+          int blockEdges = Math.min(BLOCK_EDGES, count - done);
+          chunk.get(block, 0, 3 * blockEdges);
+          int edge = (int) first + done;
+          for (int i = 0; i < 3 * blockEdges; i += 3, edge++) {
+            int source = block[i];
+            int target = block[i + 1];
+            if (source < 0 || source >= starCount || target < 0 || target >= starCount) {
+              throw new IllegalArgumentException(file + " has an edge to an unknown star");
+            }
+            sources[edge] = renumbered ? indexes[source] : source;
+            targets[edge] = renumbered ? indexes[target] : target;
+            weights[edge] = block[i + 2];
+          }
+        }
+      }
+      EdgeList edges = new EdgeList(sources, targets, weights, edgeCount);
+      return edges;
+    }
+  }
+
+  private static String readString(MappedByteBuffer buffer, Path file) {
+    if (buffer.remaining() < Integer.BYTES) {
+      throw new IllegalArgumentException(file + " is truncated");
+    }
+    int length = buffer.getInt();
+    if (length == NO_NAME) {
+      return null;
+    }
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException(file + " is truncated");
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,91 @@
+package assignment.algorithm.io;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.Arrays;
+
+/**
+ * The edges read by a loader, as three growing int arrays of star indexes and travel times. The
+ * indexes refer to the {@link StarInterner} the edges have been loaded with.
+ */
+public final class EdgeList {
+
+  private int[] sources;
+  private int[] targets;
+  private int[] weights;
+  private int size;
+
+  public EdgeList(int expectedSize) {
+    int capacity = Math.max(16, expectedSize);
+    this.sources = new int[capacity];
+    this.targets = new int[capacity];
+    this.weights = new int[capacity];
+  }
+
+  /**
+   * Takes over arrays a loader has filled, without copying them.
+   */
+  EdgeList(int[] sources, int[] targets, int[] weights, int size) {
+    this.sources = sources;
+    this.targets = targets;
+    this.weights = weights;
+    this.size = size;
+  }
+
+  public void add(int source, int target, int weight) {
+    if (size == sources.length) {
+      int capacity = size + (size >> 1);
+      sources = Arrays.copyOf(sources, capacity);
+      targets = Arrays.copyOf(targets, capacity);
+      weights = Arrays.copyOf(weights, capacity);
+    }
+    sources[size] = source;
+    targets[size] = target;
+    weights[size++] = weight;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  int source(int edge) {
+    return sources[edge];
+  }
+
+  int target(int edge) {
+    return targets[edge];
+  }
+
+  int weight(int edge) {
+    return weights[edge];
+  }
+
+  /**
+   * Builds the compiled graph straight from the arrays.
+   *
+   * @param stars the interner the edges have been loaded with
+   */
+  public CompiledStarGraph compile(StarInterner stars) {
+    return new CompiledStarGraph(stars.toArray(), sources, targets, weights, size);
+  }
+
+  /**
+   * Builds a {@link com.google.common.graph.ValueGraph}, for the code which still needs one.
+   *
+   * @param stars the interner the edges have been loaded with
+   */
+  public MutableValueGraph<Star, Integer> toValueGraph(StarInterner stars) {
+    // the compiled graph keeps edges from a star to itself, so the value graph does as well
+    MutableValueGraph<Star, Integer> graph = ValueGraphBuilder.directed().allowsSelfLoops(true)
+        .expectedNodeCount(stars.size()).build();
+    for (int index = 0; index < stars.size(); index++) {
+      graph.addNode(stars.star(index));
+    }
+    for (int edge = 0; edge < size; edge++) {
+      graph.putEdgeValue(stars.star(sources[edge]), stars.star(targets[edge]), weights[edge]);
+    }
+    return graph;
+  }
+}
@@ -0,0 +1,95 @@
+package assignment.algorithm.io;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The text format of the star maps: edges like {@code AB5} separated by commas or white space,
+ * where the first two characters are the ids of the source and the target star and the rest is the
+ * travel time, for example {@code AB5, BC4, CD8}.
+ * <p>
+ * The input is parsed in one pass over a char buffer, without splitting it into strings, so a
+ * file of any size is streamed with constant memory besides the edges themselves.
+ */
+public final class EdgeListFormat {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private EdgeListFormat() {
+
+  }
+
+  /**
+   * Loads a file with stars named after their ids.
+   */
+  public static CompiledStarGraph load(Path file) throws IOException {
+    StarInterner stars = new StarInterner();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return read(reader, stars).compile(stars);
+    }
+  }
+
+  /**
+   * Reads the edges until the end of the input.
+   *
+   * @param stars interns the star ids
+   * @throws IllegalArgumentException if an edge is malformed
+   */
+  public static EdgeList read(Reader reader, StarInterner stars) throws IOException {
+    EdgeList edges = new EdgeList(1024);
+    char[] buffer = new char[BUFFER_SIZE];
+    // the part of the edge read so far: its stars, the sign and the digits of its travel time
+    int part = 0;
+    int source = 0;
+    int target = 0;
+    boolean negative = false;
+    long weight = 0;
+    long position = 0;
+    int length;
+    while ((length = reader.read(buffer)) >= 0) {
+      for (int i = 0; i < length; i++, position++) {
+        char c = buffer[i];
+        if (c == ',' || Character.isWhitespace(c)) {
+          if (part == 3) {
+            edges.add(source, target, (int) (negative ? -weight : weight));
+            part = 0;
+          } else if (part != 0) {
+            throw malformed(position);
+          }
+        } else if (part == 0) {
+          source = stars.intern(c);
+          part = 1;
+        } else if (part == 1) {
+          target = stars.intern(c);
+          negative = false;
+          weight = 0;
+          part = 2;
+        } else if (part == 2 && c == '-' && !negative) {
+          negative = true;
+        } else if (c >= '0' && c <= '9') {
+          weight = weight * 10 + (c - '0');
+          if (weight > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("travel time too large at character " + position);
+          }
+          part = 3;
+        } else {
+          throw malformed(position);
+        }
+      }
+    }
+    if (part == 3) {
+      edges.add(source, target, (int) (negative ? -weight : weight));
+    } else if (part != 0) {
+      throw malformed(position);
+    }
+    return edges;
+  }
+
+  private static IllegalArgumentException malformed(long position) {
+    return new IllegalArgumentException("malformed edge at character " + position);
+  }
+}
@@ -0,0 +1,106 @@
+package assignment.algorithm.io;
+
+import assignment.algorithm.datastructure.Star;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Gives every distinct star id one {@link Star} and one dense index, in the order the ids are first
+ * seen. The loaders refer to stars by these indexes, so an id which appears in a million edges is
+ * looked up a million times but creates a single Star. Ids of one ASCII character, the ids of the
+ * text format, are looked up in an array instead of a map.
+ * <p>
+ * Stars known in advance, for example with their proper names, are registered with
+ * {@link #intern(Star)} before loading. An interner shared between loads makes every loaded graph
+ * contain all the stars interned so far.
+ */
+public final class StarInterner {
+
+  private static final int NOT_FOUND = -1;
+
+  private final Function<String, Star> factory;
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private final int[] asciiIndexes = new int[128];
+  private Star[] stars = new Star[16];
+  private int size;
+
+  /**
+   * Creates an interner which names unknown stars after their ids.
+   */
+  public StarInterner() {
+    this(id -> Star.builder().id(id).name(id).build());
+  }
+
+  /**
+   * @param factory creates the Star of an id which has not been seen yet
+   */
+  public StarInterner(Function<String, Star> factory) {
+    this.factory = Objects.requireNonNull(factory, "factory should not be null");
+    Arrays.fill(asciiIndexes, NOT_FOUND);
+  }
+
+  /**
+   * @return the index of the star with the id, which is created if it has not been seen yet
+   */
+  public int intern(String id) {
+    Objects.requireNonNull(id, "id should not be null");
+    if (id.length() == 1 && id.charAt(0) < asciiIndexes.length) {
+      return intern(id.charAt(0));
+    }
+    Integer index = indexes.get(id);
+    return index == null ? add(factory.apply(id)) : index;
+  }
+
+  /**
+   * @return the index of the star with the one character id
+   */
+  public int intern(char id) {
+    if (id < asciiIndexes.length && asciiIndexes[id] != NOT_FOUND) {
+      return asciiIndexes[id];
+    }
+    Integer index = indexes.get(String.valueOf(id));
+    return index == null ? add(factory.apply(String.valueOf(id))) : index;
+  }
+
+  /**
+   * Registers the star under its id.
+   *
+   * @return the index of the star, or of the star interned earlier with the same id
+   */
+  public int intern(Star star) {
+    Integer index = indexes.get(star.getId());
+    return index == null ? add(star) : index;
+  }
+
+  public Star star(int index) {
+    return stars[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the stars by index
+   */
+  public Star[] toArray() {
+    return Arrays.copyOf(stars, size);
+  }
+
+  private int add(Star star) {
+    String id = Objects.requireNonNull(star.getId(), "star id should not be null");
+    if (size == stars.length) {
+      stars = Arrays.copyOf(stars, size * 2);
+    }
+    int index = size++;
+    stars[index] = star;
+    indexes.put(id, index);
+    if (id.length() == 1 && id.charAt(0) < asciiIndexes.length) {
+      asciiIndexes[id.charAt(0)] = index;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,98 @@
+package assignment.algorithm.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values with a bounded relative error, laid out like
+ * HdrHistogram: values below 128 have a bucket each, and every further power of two is split into
+ * 64 buckets, so a recorded value is reported with an error below 1/64 whatever its magnitude.
+ * Recording is one atomic increment, the percentiles are computed when they are asked for.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+  private final AtomicLongArray counts =
+      new AtomicLongArray((64 - SUB_BUCKET_BITS + 2) * HALF_SUB_BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("value should not be negative");
+    }
+    counts.incrementAndGet(bucket(value));
+    total.increment();
+    sum.add(value);
+  }
+
+  public long count() {
+    return total.sum();
+  }
+
+  public double mean() {
+    long count = total.sum();
+    return count == 0 ? 0 : (double) sum.sum() / count;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the highest value which is equivalent to the value at the percentile, 0 if nothing has
+   * been recorded
+   */
+  public long valueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile should be between 0 and 100");
+    }
+    long count = total.sum();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    int last = 0;
+    for (int bucket = 0; bucket < counts.length(); bucket++) {
+      long bucketCount = counts.get(bucket);
+      if (bucketCount > 0) {
+        seen += bucketCount;
+        last = bucket;
+        if (seen >= rank) {
+          return highestValue(bucket);
+        }
+      }
+    }
+    // values recorded after the total has been read
+    return highestValue(last);
+  }
+
+  public long max() {
+    return valueAtPercentile(100);
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  static long lowestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / HALF_SUB_BUCKETS - 1;
+    return (long) (bucket - shift * HALF_SUB_BUCKETS) << shift;
+  }
+
+  private static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / HALF_SUB_BUCKETS - 1;
+    return lowestValue(bucket) + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,116 @@
+package assignment.algorithm.metrics;
+
+import assignment.algorithm.datastructure.QueryType;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link QueryListener} which adds up the counters of all queries and keeps a
+ * {@link LatencyHistogram} per {@link QueryType}. It can be published as an MXBean, so the
+ * counters and latencies are visible in any JMX console.
+ */
+public class PathFinderMetrics implements QueryListener, PathFinderMetricsMXBean {
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder nodesExpanded = new LongAdder();
+  private final LongAdder edgesRelaxed = new LongAdder();
+  private final LongAdder heapOperations = new LongAdder();
+  private final LongAdder routesEmitted = new LongAdder();
+  private final LongAdder routesPruned = new LongAdder();
+  private volatile Map<QueryType, LatencyHistogram> latencies = histograms();
+
+  @Override
+  public void queryCompleted(QueryStats stats) {
+    queries.increment();
+    nodesExpanded.add(stats.getNodesExpanded());
+    edgesRelaxed.add(stats.getEdgesRelaxed());
+    heapOperations.add(stats.getHeapOperations());
+    routesEmitted.add(stats.getRoutesEmitted());
+    routesPruned.add(stats.getRoutesPruned());
+    latencies.get(stats.getType()).record(stats.getLatencyNanos());
+  }
+
+  /**
+   * @return the latencies of the queries of the type in nanoseconds
+   */
+  public LatencyHistogram latencies(QueryType type) {
+    return latencies.get(type);
+  }
+
+  /**
+   * Registers the metrics with the platform MBean server.
+   *
+   * @param name the name which tells the metrics of several PathFinders apart
+   * @return the name the metrics are registered under
+   */
+  public ObjectName register(String name) {
+    try {
+      ObjectName objectName = new ObjectName(
+          "assignment.algorithm:type=PathFinderMetrics,name=" + ObjectName.quote(name));
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("the metrics could not be registered as " + name, e);
+    }
+  }
+
+  @Override
+  public long getQueries() {
+    return queries.sum();
+  }
+
+  @Override
+  public long getNodesExpanded() {
+    return nodesExpanded.sum();
+  }
+
+  @Override
+  public long getEdgesRelaxed() {
+    return edgesRelaxed.sum();
+  }
+
+  @Override
+  public long getHeapOperations() {
+    return heapOperations.sum();
+  }
+
+  @Override
+  public long getRoutesEmitted() {
+    return routesEmitted.sum();
+  }
+
+  @Override
+  public long getRoutesPruned() {
+    return routesPruned.sum();
+  }
+
+  @Override
+  public double latencyPercentile(String queryType, double percentile) {
+    return latencies.get(QueryType.valueOf(queryType)).valueAtPercentile(percentile) / 1000.0;
+  }
+
+  @Override
+  public void reset() {
+    queries.reset();
+    nodesExpanded.reset();
+    edgesRelaxed.reset();
+    heapOperations.reset();
+    routesEmitted.reset();
+    routesPruned.reset();
+    latencies = histograms();
+  }
+
+  private static Map<QueryType, LatencyHistogram> histograms() {
+    Map<QueryType, LatencyHistogram> histograms = new EnumMap<>(QueryType.class);
+    for (QueryType type : QueryType.values()) {
+      histograms.put(type, new LatencyHistogram());
+    }
+    return histograms;
+  }
+}
@@ -0,0 +1,27 @@
+package assignment.algorithm.metrics;
+
+/**
+ * The JMX view of {@link PathFinderMetrics}. Latencies are in microseconds.
+ */
+public interface PathFinderMetricsMXBean {
+
+  long getQueries();
+
+  long getNodesExpanded();
+
+  long getEdgesRelaxed();
+
+  long getHeapOperations();
+
+  long getRoutesEmitted();
+
+  long getRoutesPruned();
+
+  /**
+   * @param queryType  the name of a {@link assignment.algorithm.datastructure.QueryType}
+   * @param percentile between 0 and 100
+   */
+  double latencyPercentile(String queryType, double percentile);
+
+  void reset();
+}
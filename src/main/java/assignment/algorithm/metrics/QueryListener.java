@@ -0,0 +1,12 @@
+package assignment.algorithm.metrics;
+
+/**
+ * Receives the {@link QueryStats} of every query of a {@link assignment.algorithm.PathFinder} it
+ * is installed on. It is called on the thread which ran the query, so it should be fast and
+ * thread-safe.
+ */
+@FunctionalInterface
+public interface QueryListener {
+
+  void queryCompleted(QueryStats stats);
+}
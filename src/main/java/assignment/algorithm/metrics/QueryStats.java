@@ -0,0 +1,24 @@
+package assignment.algorithm.metrics;
+
+import assignment.algorithm.datastructure.QueryType;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The work one query of a {@link assignment.algorithm.PathFinder} has done. Dijkstra based queries
+ * count settled stars as expanded and report no pruned routes; the DFS counts the stars it
+ * descended into and does not use a heap. Counting queries emit no routes; their dynamic programs
+ * count the (star, stops) or (star, travel time) states they expand.
+ */
+@Value
+@Builder
+public class QueryStats {
+
+  QueryType type;
+  long latencyNanos;
+  long nodesExpanded;
+  long edgesRelaxed;
+  long heapOperations;
+  long routesEmitted;
+  long routesPruned;
+}
@@ -0,0 +1,209 @@
+package assignment.algorithm.shard;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.ValueGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a star graph into shards of at most {@code ceil(stars / shards)} stars each. Shards are
+ * grown breadth first over the highways in both directions, starting from the first star not
+ * assigned yet, so a shard is a connected region of the map where it can be and few highways cross
+ * between shards. Those cut edges and the boundary stars at their ends make up the overlay a
+ * {@link ShardCoordinator} searches.
+ * <p>
+ * The queries across shards combine Dijkstra searches, and find the same routes as one on the
+ * whole graph because every star is reached after all the stars it can be reached from on a
+ * shortest route; travel times must therefore be positive. A highway of an undirected graph is
+ * split into one edge in each direction.
+ */
+public final class GraphPartitioner {
+
+  private GraphPartitioner() {
+  }
+
+  /**
+   * @throws IllegalArgumentException if the number of shards or a travel time is not positive
+   */
+  public static Partition partition(ValueGraph<Star, Integer> graph, int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shard count should be positive");
+    }
+    Star[] stars = graph.nodes().toArray(new Star[0]);
+    int starCount = stars.length;
+    Map<Star, Integer> indexes = new HashMap<>(starCount * 2);
+    for (int i = 0; i < starCount; i++) {
+      indexes.put(stars[i], i);
+    }
+    boolean undirected = !graph.isDirected();
+    int edgeCount = 0;
+    for (EndpointPair<Star> pair : graph.edges()) {
+      edgeCount += undirected && !pair.nodeU().equals(pair.nodeV()) ? 2 : 1;
+    }
+    int[] sources = new int[edgeCount];
+    int[] targets = new int[edgeCount];
+    int[] weights = new int[edgeCount];
+    int edge = 0;
+    for (EndpointPair<Star> pair : graph.edges()) {
+      // an undirected pair has no source and target, nodeU and nodeV work for both kinds
+      int weight = graph.edgeValueOrDefault(pair.nodeU(), pair.nodeV(), 0);
+      if (weight <= 0) {
+        throw new IllegalArgumentException("sharded queries need positive travel times");
+      }
+      int u = indexes.get(pair.nodeU());
+      int v = indexes.get(pair.nodeV());
+      sources[edge] = u;
+      targets[edge] = v;
+      weights[edge++] = weight;
+      if (undirected && u != v) {
+        sources[edge] = v;
+        targets[edge] = u;
+        weights[edge++] = weight;
+      }
+    }
+
+    int[] shardOf = assign(starCount, neighbours(starCount, sources, targets), shardCount);
+    return split(stars, indexes, shardOf, shardCount, sources, targets, weights);
+  }
+
+  /**
+   * @return the neighbours of every star in both directions, as offsets into one array
+   */
+  private static int[][] neighbours(int starCount, int[] sources, int[] targets) {
+    int[] offsets = new int[starCount + 1];
+    for (int edge = 0; edge < sources.length; edge++) {
+      offsets[sources[edge] + 1]++;
+      offsets[targets[edge] + 1]++;
+    }
+    for (int star = 0; star < starCount; star++) {
+      offsets[star + 1] += offsets[star];
+    }
+    int[] adjacent = new int[offsets[starCount]];
+    int[] next = Arrays.copyOf(offsets, starCount);
+    for (int edge = 0; edge < sources.length; edge++) {
+      adjacent[next[sources[edge]]++] = targets[edge];
+      adjacent[next[targets[edge]]++] = sources[edge];
+    }
+    return new int[][]{offsets, adjacent};
+  }
+
+  private static int[] assign(int starCount, int[][] neighbours, int shardCount) {
+    int[] offsets = neighbours[0];
+    int[] adjacent = neighbours[1];
+    int capacity = (starCount + shardCount - 1) / shardCount;
+    int[] shardOf = new int[starCount];
+    Arrays.fill(shardOf, -1);
+    int[] queue = new int[starCount];
+    int seed = 0;
+    for (int shard = 0; shard < shardCount; shard++) {
+      int size = 0;
+      int head = 0;
+      int tail = 0;
+      while (size < capacity) {
+        if (head == tail) {
+          // the region can not grow any further, continue from the next free star
+          while (seed < starCount && shardOf[seed] >= 0) {
+            seed++;
+          }
+          if (seed == starCount) {
+            break;
+          }
+          shardOf[seed] = shard;
+          queue[tail++] = seed;
+          size++;
+          continue;
+        }
+        int star = queue[head++];
+        for (int i = offsets[star]; i < offsets[star + 1] && size < capacity; i++) {
+          int neighbour = adjacent[i];
+          if (shardOf[neighbour] < 0) {
+            shardOf[neighbour] = shard;
+            queue[tail++] = neighbour;
+            size++;
+          }
+        }
+      }
+    }
+    return shardOf;
+  }
+
+  private static Partition split(Star[] stars, Map<Star, Integer> indexes, int[] shardOf,
+      int shardCount, int[] sources, int[] targets, int[] weights) {
+    int starCount = stars.length;
+    int[] sizes = new int[shardCount];
+    int[] local = new int[starCount];
+    for (int star = 0; star < starCount; star++) {
+      local[star] = sizes[shardOf[star]]++;
+    }
+    int[][] members = new int[shardCount][];
+    for (int shard = 0; shard < shardCount; shard++) {
+      members[shard] = new int[sizes[shard]];
+    }
+    for (int star = 0; star < starCount; star++) {
+      members[shardOf[star]][local[star]] = star;
+    }
+
+    boolean[] boundary = new boolean[starCount];
+    int[][] localSources = new int[shardCount][];
+    int[][] localTargets = new int[shardCount][];
+    int[][] localWeights = new int[shardCount][];
+    int[] localEdges = new int[shardCount];
+    for (int shard = 0; shard < shardCount; shard++) {
+      localSources[shard] = new int[4];
+      localTargets[shard] = new int[4];
+      localWeights[shard] = new int[4];
+    }
+    List<int[]> cut = new ArrayList<>();
+    for (int edge = 0; edge < sources.length; edge++) {
+      int source = sources[edge];
+      int target = targets[edge];
+      int shard = shardOf[source];
+      if (shard != shardOf[target]) {
+        cut.add(new int[]{source, target, weights[edge]});
+        boundary[source] = true;
+        boundary[target] = true;
+        continue;
+      }
+      int count = localEdges[shard]++;
+      if (count == localSources[shard].length) {
+        localSources[shard] = Arrays.copyOf(localSources[shard], count * 2);
+        localTargets[shard] = Arrays.copyOf(localTargets[shard], count * 2);
+        localWeights[shard] = Arrays.copyOf(localWeights[shard], count * 2);
+      }
+      localSources[shard][count] = local[source];
+      localTargets[shard][count] = local[target];
+      localWeights[shard][count] = weights[edge];
+    }
+
+    List<ShardGraph> shards = new ArrayList<>(shardCount);
+    for (int shard = 0; shard < shardCount; shard++) {
+      Star[] shardStars = new Star[sizes[shard]];
+      int boundaryCount = 0;
+      for (int i = 0; i < sizes[shard]; i++) {
+        shardStars[i] = stars[members[shard][i]];
+        if (boundary[members[shard][i]]) {
+          boundaryCount++;
+        }
+      }
+      int[] shardBoundary = new int[boundaryCount];
+      boundaryCount = 0;
+      for (int i = 0; i < sizes[shard]; i++) {
+        if (boundary[members[shard][i]]) {
+          shardBoundary[boundaryCount++] = i;
+        }
+      }
+      shards.add(new ShardGraph(shard, members[shard], new CompiledStarGraph(shardStars,
+          localSources[shard], localTargets[shard], localWeights[shard], localEdges[shard]),
+          shardBoundary));
+    }
+    return new Partition(stars, indexes, shardOf, shards,
+        cut.stream().mapToInt(edge -> edge[0]).toArray(),
+        cut.stream().mapToInt(edge -> edge[1]).toArray(),
+        cut.stream().mapToInt(edge -> edge[2]).toArray());
+  }
+}
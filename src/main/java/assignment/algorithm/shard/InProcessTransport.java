@@ -0,0 +1,37 @@
+package assignment.algorithm.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ShardTransport} to shards in the same process, which hands every request straight to
+ * the {@link ShardNode}. The requests are encoded all the same, so it runs the same code as a
+ * transport between processes.
+ */
+public final class InProcessTransport implements ShardTransport {
+
+  private final List<ShardNode> nodes;
+
+  /**
+   * @param nodes the nodes by the id of their shard
+   */
+  public InProcessTransport(List<ShardNode> nodes) {
+    this.nodes = List.copyOf(nodes);
+  }
+
+  /**
+   * @return a transport to a new node for every shard of the partition
+   */
+  public static InProcessTransport of(Partition partition) {
+    List<ShardNode> nodes = new ArrayList<>(partition.shardCount());
+    for (int shard = 0; shard < partition.shardCount(); shard++) {
+      nodes.add(new ShardNode(partition.shard(shard)));
+    }
+    return new InProcessTransport(nodes);
+  }
+
+  @Override
+  public byte[] call(int shard, byte[] request) {
+    return nodes.get(shard).handle(request);
+  }
+}
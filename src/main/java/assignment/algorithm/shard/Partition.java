@@ -0,0 +1,92 @@
+package assignment.algorithm.shard;
+
+import assignment.algorithm.datastructure.Star;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A graph split into shards by {@link GraphPartitioner}. The {@link ShardGraph}s are what the
+ * shards hold; the rest, the stars, the shard of every star and the cut edges between shards, is
+ * what a {@link ShardCoordinator} needs to route queries between them.
+ */
+public final class Partition {
+
+  private final Star[] stars;
+  private final Map<Star, Integer> indexes;
+  private final int[] shardOf;
+  private final List<ShardGraph> shards;
+  private final int[] cutSources;
+  private final int[] cutTargets;
+  private final int[] cutWeights;
+
+  Partition(Star[] stars, Map<Star, Integer> indexes, int[] shardOf, List<ShardGraph> shards,
+      int[] cutSources, int[] cutTargets, int[] cutWeights) {
+    this.stars = stars;
+    this.indexes = indexes;
+    this.shardOf = shardOf;
+    this.shards = shards;
+    this.cutSources = cutSources;
+    this.cutTargets = cutTargets;
+    this.cutWeights = cutWeights;
+  }
+
+  public int starCount() {
+    return stars.length;
+  }
+
+  public Star star(int index) {
+    return stars[index];
+  }
+
+  /**
+   * @return the index of the star in the whole graph, or -1 if it is not an element of the graph
+   */
+  public int indexOf(Star star) {
+    Integer index = indexes.get(star);
+    return index == null ? -1 : index;
+  }
+
+  public int shardCount() {
+    return shards.size();
+  }
+
+  public int shardOf(int index) {
+    return shardOf[index];
+  }
+
+  public ShardGraph shard(int id) {
+    return shards.get(id);
+  }
+
+  /**
+   * Writes every shard into the directory, for {@link ShardLauncher}s to load.
+   *
+   * @see ShardGraph#write(Path)
+   */
+  public void writeShards(Path directory) throws IOException {
+    for (ShardGraph shard : shards) {
+      shard.write(directory);
+    }
+  }
+
+  /**
+   * @return the number of edges between stars of different shards
+   */
+  public int cutEdgeCount() {
+    return cutSources.length;
+  }
+
+  int cutSource(int edge) {
+    return cutSources[edge];
+  }
+
+  int cutTarget(int edge) {
+    return cutTargets[edge];
+  }
+
+  int cutWeight(int edge) {
+    return cutWeights[edge];
+  }
+}
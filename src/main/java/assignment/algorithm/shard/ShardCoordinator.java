@@ -0,0 +1,338 @@
+package assignment.algorithm.shard;
+
+import assignment.algorithm.datastructure.IndexedMinHeap;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Objects;
+
+/**
+ * Answers shortest path queries on a partitioned graph whose shards are held by
+ * {@link ShardNode}s behind a {@link ShardTransport}.
+ * <p>
+ * The coordinator keeps the overlay graph of the partition: its stars are the boundary stars of
+ * all shards, its edges are the cut edges between shards and, for every shard, an edge between
+ * every two of its boundary stars with the travel time of the shortest route inside the shard.
+ * Every route leaves the shard of its source at a boundary star, crosses the other shards from
+ * boundary star to boundary star, and enters the shard of its target at a boundary star, so a
+ * query asks the shard of the source for the travel times to its boundary, the shard of the target
+ * for the travel times from its boundary, and runs Dijkstra on the overlay in between. A route
+ * which never leaves the shard of both stars is searched by that shard directly.
+ * <p>
+ * The route itself is built backwards from the target, the way
+ * {@link assignment.algorithm.PathFinder#findShortestPath(Star, Star)} picks it: every star is
+ * reached from the star with the smallest index which is on a shortest route to it. The overlay
+ * search knows the travel time to every boundary star closer than the target, so the shard of the
+ * target finds the route inside it starting from its boundary stars at those travel times, and
+ * where a cut edge into a boundary star of that route is on a shortest route as well and comes
+ * from a star with a smaller index, the route goes on in the shard of that star. The routes are
+ * the same as on a single node.
+ * <p>
+ * A query costs two calls to find the travel time and one more for every shard the route enters.
+ * The coordinator keeps no state between queries and can be used by several threads.
+ */
+public final class ShardCoordinator {
+
+  /**
+   * The travel time of a target which can not be reached from the source
+   */
+  public static final int UNREACHABLE = ShardProtocol.UNREACHABLE;
+
+  private final Partition partition;
+  private final ShardTransport transport;
+  // the boundary stars of every shard, by their index in the whole graph
+  private final int[][] boundaries;
+  // the overlay node of every star of the whole graph, -1 if it is not a boundary star
+  private final int[] overlayOf;
+  private final int[] overlayStars;
+  private final int[] offsets;
+  private final int[] targets;
+  private final int[] weights;
+  // the cut edges into every overlay node, as offsets into the cut edges of the partition
+  private final int[] cutOffsets;
+  private final int[] cutEdges;
+
+  /**
+   * Fetches the boundary tables of all shards and builds the overlay.
+   */
+  public ShardCoordinator(Partition partition, ShardTransport transport) {
+    this.partition = Objects.requireNonNull(partition, "partition should not be null");
+    this.transport = Objects.requireNonNull(transport, "transport should not be null");
+    int shardCount = partition.shardCount();
+    this.boundaries = new int[shardCount][];
+    int[][] tables = new int[shardCount][];
+    this.overlayOf = new int[partition.starCount()];
+    Arrays.fill(overlayOf, -1);
+    int nodeCount = 0;
+    int edgeCount = partition.cutEdgeCount();
+    for (int shard = 0; shard < shardCount; shard++) {
+      int[] table = call(shard, ShardProtocol.BOUNDARY);
+      int count = table[0];
+      boundaries[shard] = Arrays.copyOfRange(table, 1, 1 + count);
+      tables[shard] = table;
+      for (int star : boundaries[shard]) {
+        overlayOf[star] = nodeCount++;
+      }
+      edgeCount += count * count;
+    }
+    this.overlayStars = new int[nodeCount];
+    for (int star = 0; star < overlayOf.length; star++) {
+      if (overlayOf[star] >= 0) {
+        overlayStars[overlayOf[star]] = star;
+      }
+    }
+
+    int[] sources = new int[edgeCount];
+    int[] edgeTargets = new int[edgeCount];
+    int[] edgeWeights = new int[edgeCount];
+    int edges = 0;
+    for (int shard = 0; shard < shardCount; shard++) {
+      int count = boundaries[shard].length;
+      for (int i = 0; i < count; i++) {
+        for (int j = 0; j < count; j++) {
+          int weight = tables[shard][1 + count + i * count + j];
+          if (i != j && weight != UNREACHABLE) {
+            sources[edges] = overlayOf[boundaries[shard][i]];
+            edgeTargets[edges] = overlayOf[boundaries[shard][j]];
+            edgeWeights[edges++] = weight;
+          }
+        }
+      }
+    }
+    for (int edge = 0; edge < partition.cutEdgeCount(); edge++) {
+      sources[edges] = overlayOf[partition.cutSource(edge)];
+      edgeTargets[edges] = overlayOf[partition.cutTarget(edge)];
+      edgeWeights[edges++] = partition.cutWeight(edge);
+    }
+
+    // counting sort of the edges by their source
+    this.offsets = new int[nodeCount + 1];
+    for (int edge = 0; edge < edges; edge++) {
+      offsets[sources[edge] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      offsets[node + 1] += offsets[node];
+    }
+    this.targets = new int[edges];
+    this.weights = new int[edges];
+    int[] next = Arrays.copyOf(offsets, nodeCount);
+    for (int edge = 0; edge < edges; edge++) {
+      int position = next[sources[edge]]++;
+      targets[position] = edgeTargets[edge];
+      weights[position] = edgeWeights[edge];
+    }
+
+    this.cutOffsets = new int[nodeCount + 1];
+    for (int edge = 0; edge < partition.cutEdgeCount(); edge++) {
+      cutOffsets[overlayOf[partition.cutTarget(edge)] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      cutOffsets[node + 1] += cutOffsets[node];
+    }
+    this.cutEdges = new int[partition.cutEdgeCount()];
+    next = Arrays.copyOf(cutOffsets, nodeCount);
+    for (int edge = 0; edge < partition.cutEdgeCount(); edge++) {
+      cutEdges[next[overlayOf[partition.cutTarget(edge)]]++] = edge;
+    }
+  }
+
+  public Partition getPartition() {
+    return partition;
+  }
+
+  /**
+   * @return the number of stars of the overlay, the boundary stars of all shards
+   */
+  public int overlaySize() {
+    return overlayStars.length;
+  }
+
+  /**
+   * @return the travel time of the shortest route or {@link #UNREACHABLE}
+   */
+  public int distance(Star source, Star target) {
+    return search(requireIndex(source), requireIndex(target)).distance;
+  }
+
+  /**
+   * @param source The Star we start from
+   * @param target The Star we should reach.
+   * @return a Route with the travel time of the shortest route, or null if the target can not be
+   * reached
+   */
+  public Route findShortestPath(Star source, Star target) {
+    int sourceIndex = requireIndex(source);
+    int targetIndex = requireIndex(target);
+    Search search = search(sourceIndex, targetIndex);
+    if (search.distance == UNREACHABLE) {
+      return null;
+    }
+    LinkedList<Star> path = new LinkedList<>();
+    path.add(target);
+    int node = targetIndex;
+    int distance = search.distance;
+    while (node != sourceIndex) {
+      int shard = partition.shardOf(node);
+      int[] route = call(shard, routeRequest(search, sourceIndex, node, distance));
+      if (route[0] < distance) {
+        throw new IllegalStateException("shard " + shard + " has a shorter route to star " + node
+            + " than the overlay");
+      }
+      // the stars of the route inside the shard, unless the star is only reached from outside
+      int count = route[0] == distance ? route[1] : 1;
+      for (int i = count - 1; ; i--) {
+        int star = i == count - 1 ? node : route[2 + i];
+        if (star == sourceIndex) {
+          node = star;
+          break;
+        }
+        int inside = i > 0 ? route[1 + i] : -1;
+        int outside = cutPredecessor(search, star, star == node ? distance : -1);
+        if (outside >= 0 && (inside < 0 || outside < inside)) {
+          // the route comes from another shard
+          node = outside;
+          distance = search.distances[overlayOf[outside]];
+          path.addFirst(partition.star(node));
+          break;
+        }
+        if (inside < 0) {
+          throw new IllegalStateException("no shortest route to star " + star + " in shard "
+              + partition.shardOf(star) + " any more");
+        }
+        path.addFirst(partition.star(inside));
+      }
+    }
+    return Route.builder().path(path).totalTravelTime(search.distance).build();
+  }
+
+  /**
+   * @return a request for the route to the star inside its shard, which starts at the boundary
+   * stars of the shard closer than the star, and at the source if it is in the same shard
+   */
+  private int[] routeRequest(Search search, int source, int star, int distance) {
+    int shard = partition.shardOf(star);
+    int[] boundary = boundaries[shard];
+    int[] request = new int[3 + 2 * (boundary.length + 1)];
+    request[0] = ShardProtocol.ROUTE;
+    request[1] = star;
+    int count = 0;
+    if (partition.shardOf(source) == shard) {
+      request[3] = source;
+      request[4] = 0;
+      count++;
+    }
+    for (int boundaryStar : boundary) {
+      int node = overlayOf[boundaryStar];
+      if (search.settled[node] && search.distances[node] < distance) {
+        request[3 + 2 * count] = boundaryStar;
+        request[4 + 2 * count] = search.distances[node];
+        count++;
+      }
+    }
+    request[2] = count;
+    return Arrays.copyOf(request, 3 + 2 * count);
+  }
+
+  /**
+   * @param distance the travel time to the star, -1 if the search has settled it
+   * @return the star with the smallest index which has a cut edge to the star on a shortest route,
+   * or -1
+   */
+  private int cutPredecessor(Search search, int star, int distance) {
+    int node = overlayOf[star];
+    if (node < 0 || distance < 0 && !search.settled[node]) {
+      return -1;
+    }
+    if (distance < 0) {
+      distance = search.distances[node];
+    }
+    int predecessor = -1;
+    for (int i = cutOffsets[node]; i < cutOffsets[node + 1]; i++) {
+      int edge = cutEdges[i];
+      int from = overlayOf[partition.cutSource(edge)];
+      if (search.settled[from]
+          && (long) search.distances[from] + partition.cutWeight(edge) == distance
+          && (predecessor < 0 || partition.cutSource(edge) < predecessor)) {
+        predecessor = partition.cutSource(edge);
+      }
+    }
+    return predecessor;
+  }
+
+  private Search search(int source, int target) {
+    Search search = new Search(overlayStars.length);
+    if (source == target) {
+      search.distance = 0;
+      return search;
+    }
+    int sourceShard = partition.shardOf(source);
+    int targetShard = partition.shardOf(target);
+    int[] fromSource = call(sourceShard, ShardProtocol.DISTANCES, source, 1,
+        sourceShard == targetShard ? target : -1);
+    int[] toTarget = call(targetShard, ShardProtocol.DISTANCES, target, 0, -1);
+    // a route inside the shard, if both stars are in the same one
+    long best = fromSource[boundaries[sourceShard].length];
+
+    int nodeCount = overlayStars.length;
+    int[] targetDistances = new int[nodeCount];
+    Arrays.fill(targetDistances, UNREACHABLE);
+    for (int i = 0; i < boundaries[targetShard].length; i++) {
+      targetDistances[overlayOf[boundaries[targetShard][i]]] = toTarget[i];
+    }
+    IndexedMinHeap heap = new IndexedMinHeap(nodeCount);
+    for (int i = 0; i < boundaries[sourceShard].length; i++) {
+      if (fromSource[i] != UNREACHABLE) {
+        heap.insert(overlayOf[boundaries[sourceShard][i]], fromSource[i]);
+      }
+    }
+    // every boundary star closer than the target is settled, with its travel time
+    while (!heap.isEmpty() && heap.priority(heap.peekMin()) < best) {
+      int distance = heap.priority(heap.peekMin());
+      int node = heap.pollMin();
+      search.settled[node] = true;
+      search.distances[node] = distance;
+      if (targetDistances[node] != UNREACHABLE
+          && (long) distance + targetDistances[node] < best) {
+        best = (long) distance + targetDistances[node];
+      }
+      for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+        int next = targets[edge];
+        long nextDistance = (long) distance + weights[edge];
+        if (!search.settled[next] && nextDistance < best) {
+          heap.insertOrDecrease(next, (int) nextDistance);
+        }
+      }
+    }
+    search.distance = (int) Math.min(best, UNREACHABLE);
+    return search;
+  }
+
+  private int[] call(int shard, int... request) {
+    return ShardProtocol.decode(transport.call(shard, ShardProtocol.encode(request)));
+  }
+
+  private int requireIndex(Star star) {
+    int index = partition.indexOf(star);
+    if (index < 0) {
+      throw new IllegalArgumentException("Node " + star + " is not an element of this graph.");
+    }
+    return index;
+  }
+
+  /**
+   * The result of a search: the travel time, and the travel times of the boundary stars which are
+   * closer to the source than the target.
+   */
+  private static final class Search {
+
+    private int distance = UNREACHABLE;
+    private final int[] distances;
+    private final boolean[] settled;
+
+    private Search(int nodeCount) {
+      this.distances = new int[nodeCount];
+      this.settled = new boolean[nodeCount];
+    }
+  }
+}
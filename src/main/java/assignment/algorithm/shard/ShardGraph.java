@@ -0,0 +1,159 @@
+package assignment.algorithm.shard;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.io.BinaryGraphFormat;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The part of a partitioned graph one shard holds: its stars, the edges between them, and which of
+ * them are boundary stars, the ones with an edge to or from another shard. Stars are referred to by
+ * their index in the whole graph in every message between shards and the coordinator; locally they
+ * have the indexes of the compiled shard graph.
+ * <p>
+ * A shard which runs in a process of its own, see {@link ShardLauncher}, loads what it holds from
+ * the files {@link #write(Path)} writes into a directory: the stars and edges in the
+ * {@link BinaryGraphFormat} as {@code shard-<id>.graph}, and the global indexes of its stars and
+ * its boundary stars as {@code shard-<id>.shard}. The latter starts with a header (magic, format
+ * version, shard id, number of stars, number of boundary stars and the
+ * {@link CompiledStarGraph#fingerprint()} of the shard graph) followed by the two int arrays.
+ */
+public final class ShardGraph {
+
+  private static final int MAGIC = 0x53485344;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+
+  private final int id;
+  private final int[] members;
+  private final CompiledStarGraph graph;
+  private final int[] boundary;
+
+  ShardGraph(int id, int[] members, CompiledStarGraph graph, int[] boundary) {
+    this.id = id;
+    this.members = members;
+    this.graph = graph;
+    this.boundary = boundary;
+  }
+
+  /**
+   * Loads a shard written by {@link #write(Path)}.
+   *
+   * @param directory the directory the shard has been written to
+   * @param id        the id of the shard
+   * @throws IllegalArgumentException if the files are not a shard or do not belong together
+   */
+  public static ShardGraph load(Path directory, int id) throws IOException {
+    CompiledStarGraph graph = BinaryGraphFormat.load(graphFile(directory, id));
+    Path file = tableFile(directory, id);
+    ByteBuffer table = ByteBuffer.wrap(Files.readAllBytes(file));
+    if (table.remaining() < HEADER_SIZE || table.getInt() != MAGIC) {
+      throw new IllegalArgumentException(file + " is not a shard");
+    }
+    if (table.getInt() != VERSION) {
+      throw new IllegalArgumentException(file + " has an unsupported format version");
+    }
+    int storedId = table.getInt();
+    int size = table.getInt();
+    int boundaryCount = table.getInt();
+    table.getInt();
+    if (storedId != id || size != graph.nodeCount() || table.getLong() != graph.fingerprint()) {
+      throw new IllegalArgumentException(file + " has been written for a different shard graph");
+    }
+    if (boundaryCount < 0 || table.remaining() != 4L * (size + boundaryCount)) {
+      throw new IllegalArgumentException(file + " is truncated");
+    }
+    int[] members = new int[size];
+    int[] boundary = new int[boundaryCount];
+    table.asIntBuffer().get(members).get(boundary);
+    for (int local = 0; local < size; local++) {
+      // local(int) searches the members, so they have to be ascending
+      if (members[local] < 0 || local > 0 && members[local] <= members[local - 1]) {
+        throw new IllegalArgumentException(file + " has members out of order");
+      }
+    }
+    for (int local : boundary) {
+      if (local < 0 || local >= size) {
+        throw new IllegalArgumentException(file + " has a boundary star out of the shard");
+      }
+    }
+    return new ShardGraph(id, members, graph, boundary);
+  }
+
+  /**
+   * Writes the shard into the directory, the files are replaced if they exist.
+   */
+  public void write(Path directory) throws IOException {
+    BinaryGraphFormat.write(graph, graphFile(directory, id));
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(tableFile(directory, id)), 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(id);
+      out.writeInt(members.length);
+      out.writeInt(boundary.length);
+      out.writeInt(0);
+      out.writeLong(graph.fingerprint());
+      for (int member : members) {
+        out.writeInt(member);
+      }
+      for (int local : boundary) {
+        out.writeInt(local);
+      }
+    }
+  }
+
+  public int id() {
+    return id;
+  }
+
+  /**
+   * @return the stars and edges inside the shard
+   */
+  public CompiledStarGraph graph() {
+    return graph;
+  }
+
+  public int size() {
+    return members.length;
+  }
+
+  /**
+   * @return the index in the whole graph of the local star
+   */
+  public int global(int local) {
+    return members[local];
+  }
+
+  /**
+   * @return the local index of the star of the whole graph, or -1 if it belongs to another shard
+   */
+  public int local(int global) {
+    int local = Arrays.binarySearch(members, global);
+    return local < 0 ? -1 : local;
+  }
+
+  public int boundaryCount() {
+    return boundary.length;
+  }
+
+  /**
+   * @return the local index of the i-th boundary star
+   */
+  public int boundary(int i) {
+    return boundary[i];
+  }
+
+  private static Path graphFile(Path directory, int id) {
+    return directory.resolve("shard-" + id + ".graph");
+  }
+
+  private static Path tableFile(Path directory, int id) {
+    return directory.resolve("shard-" + id + ".shard");
+  }
+}
@@ -0,0 +1,48 @@
+package assignment.algorithm.shard;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+/**
+ * Runs one shard in a process of its own:
+ * <pre>
+ * java assignment.algorithm.shard.ShardLauncher &lt;directory&gt; &lt;shard&gt; [port] [host]
+ * </pre>
+ * The shard is loaded from the files {@link Partition#writeShards(Path)} has written
+ * into the directory and served by a {@link ShardServer} on the port, any free one if it is
+ * missing or 0, of the loopback address unless a host is given. Once it listens, the launcher
+ * prints {@code listening on <host>:<port>} on a line of its own, for the process which started
+ * it to connect a {@link SocketTransport} to. It serves until the process is stopped.
+ */
+public final class ShardLauncher {
+
+  private ShardLauncher() {
+
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 2 || args.length > 4) {
+      System.err.println("usage: ShardLauncher <directory> <shard> [port] [host]");
+      System.exit(2);
+    }
+    ShardGraph shard = ShardGraph.load(Path.of(args[0]), Integer.parseInt(args[1]));
+    int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    InetAddress host = args.length > 3
+        ? InetAddress.getByName(args[3]) : InetAddress.getLoopbackAddress();
+    ShardServer server = ShardServer.start(new ShardNode(shard), new InetSocketAddress(host, port));
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        server.close();
+      } catch (IOException e) {
+        // the process ends anyway
+      }
+    }));
+    InetSocketAddress address = server.address();
+    System.out.println("listening on " + address.getHostString() + ":" + address.getPort());
+    System.out.flush();
+    // the server threads are daemons, the main thread keeps the process alive
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,132 @@
+package assignment.algorithm.shard;
+
+import assignment.algorithm.DistanceMatrix;
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers the requests of a {@link ShardCoordinator} on one shard, with Dijkstra searches on the
+ * stars and edges of the shard only. The travel times between the boundary stars are searched
+ * once, when the node is created. The node keeps no state between requests, so it answers
+ * requests from several threads at once.
+ */
+public final class ShardNode {
+
+  private final ShardGraph shard;
+  private final PathFinder forward;
+  private final PathFinder backward;
+  private final List<Star> boundary;
+  private final byte[] boundaryTable;
+
+  public ShardNode(ShardGraph shard) {
+    this.shard = shard;
+    this.forward = new PathFinder(shard.graph());
+    this.backward = new PathFinder(shard.graph().reverse());
+    this.boundary = new ArrayList<>(shard.boundaryCount());
+    int[] table = new int[1 + shard.boundaryCount() * (shard.boundaryCount() + 1)];
+    table[0] = shard.boundaryCount();
+    for (int i = 0; i < shard.boundaryCount(); i++) {
+      boundary.add(shard.graph().star(shard.boundary(i)));
+      table[1 + i] = shard.global(shard.boundary(i));
+    }
+    DistanceMatrix distances = forward.findDistanceMatrix(boundary, boundary);
+    int position = 1 + shard.boundaryCount();
+    for (int i = 0; i < shard.boundaryCount(); i++) {
+      for (int j = 0; j < shard.boundaryCount(); j++) {
+        table[position++] = distances.distance(i, j);
+      }
+    }
+    this.boundaryTable = ShardProtocol.encode(table);
+  }
+
+  public ShardGraph shard() {
+    return shard;
+  }
+
+  /**
+   * @param request a request encoded as {@link ShardProtocol} describes
+   * @return the encoded response
+   * @throws IllegalArgumentException if the request is malformed or refers to a star of another
+   *                                  shard
+   */
+  public byte[] handle(byte[] request) {
+    int[] values = ShardProtocol.decode(request);
+    if (values.length == 0) {
+      throw new IllegalArgumentException("a shard request should not be empty");
+    }
+    switch (values[0]) {
+      case ShardProtocol.BOUNDARY:
+        return boundaryTable;
+      case ShardProtocol.DISTANCES:
+        requireLength(values, 4);
+        return distances(star(values[1]), values[2] != 0,
+            values[3] < 0 ? null : star(values[3]));
+      case ShardProtocol.ROUTE:
+        if (values.length < 3 || values.length != 3 + 2L * values[2]) {
+          throw new IllegalArgumentException("shard operation " + values[0] + " takes a star, a"
+              + " count and that many stars with their travel times");
+        }
+        Map<Star, Integer> sources = new HashMap<>();
+        for (int i = 3; i < values.length; i += 2) {
+          sources.merge(star(values[i]), values[i + 1], Math::min);
+        }
+        return route(sources, star(values[1]));
+      default:
+        throw new IllegalArgumentException("unknown shard operation " + values[0]);
+    }
+  }
+
+  private byte[] distances(Star star, boolean fromStar, Star extra) {
+    List<Star> targets = boundary;
+    if (extra != null) {
+      targets = new ArrayList<>(boundary);
+      targets.add(extra);
+    }
+    // from the boundary to the star is from the star to the boundary on the reversed edges
+    DistanceMatrix distances = (fromStar ? forward : backward)
+        .findDistanceMatrix(List.of(star), targets);
+    int[] response = new int[boundary.size() + 1];
+    for (int i = 0; i < targets.size(); i++) {
+      response[i] = distances.distance(0, i);
+    }
+    if (extra == null) {
+      response[boundary.size()] = ShardProtocol.UNREACHABLE;
+    }
+    return ShardProtocol.encode(response);
+  }
+
+  private byte[] route(Map<Star, Integer> sources, Star to) {
+    Route route = forward.findShortestPath(sources, to);
+    if (route == null) {
+      return ShardProtocol.encode(ShardProtocol.UNREACHABLE, 0);
+    }
+    int[] response = new int[2 + route.getPath().size()];
+    response[0] = route.getTotalTravelTime();
+    response[1] = route.getPath().size();
+    int position = 2;
+    for (Star star : route.getPath()) {
+      response[position++] = shard.global(shard.graph().indexOf(star));
+    }
+    return ShardProtocol.encode(response);
+  }
+
+  private Star star(int global) {
+    int local = shard.local(global);
+    if (local < 0) {
+      throw new IllegalArgumentException("star " + global + " is not in shard " + shard.id());
+    }
+    return shard.graph().star(local);
+  }
+
+  private static void requireLength(int[] values, int length) {
+    if (values.length != length) {
+      throw new IllegalArgumentException("shard operation " + values[0] + " takes "
+          + (length - 1) + " arguments, not " + (values.length - 1));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package assignment.algorithm.shard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The messages between a {@link ShardCoordinator} and its {@link ShardNode}s. Every request and
+ * response is a list of ints, written big endian one after the other; a request starts with its
+ * operation. Stars are given by their index in the whole graph.
+ * <ul>
+ *   <li>{@link #BOUNDARY}: the boundary stars of the shard and the travel times between them,
+ *   answered with {@code count, stars..., count x count travel times}</li>
+ *   <li>{@link #DISTANCES} {@code star, forward, extra}: the travel times from the star to every
+ *   boundary star, or from every boundary star to it if forward is 0, and from the star to the
+ *   extra star unless that is -1; answered with {@code count + 1} travel times</li>
+ *   <li>{@link #ROUTE} {@code to, count, (from, travel time)...}: the shortest route inside the
+ *   shard from any of the given stars, each of which starts with its travel time, to the star
+ *   {@code to}; answered with {@code travel time, count, stars...} from the star it starts at,
+ *   the travel time including the one that star starts with</li>
+ * </ul>
+ * Stars which can not be reached have the travel time {@link #UNREACHABLE}.
+ */
+final class ShardProtocol {
+
+  static final int BOUNDARY = 1;
+  static final int DISTANCES = 2;
+  static final int ROUTE = 3;
+  static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private ShardProtocol() {
+  }
+
+  static byte[] encode(int... values) {
+    ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+    buffer.asIntBuffer().put(values);
+    return buffer.array();
+  }
+
+  static int[] decode(byte[] message) {
+    if (message.length % Integer.BYTES != 0) {
+      throw new IllegalArgumentException("a shard message has " + message.length
+          + " bytes, which is not a number of ints");
+    }
+    int[] values = new int[message.length / Integer.BYTES];
+    ByteBuffer.wrap(message).asIntBuffer().get(values);
+    return values;
+  }
+}
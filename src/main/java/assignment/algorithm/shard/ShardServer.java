@@ -0,0 +1,152 @@
+package assignment.algorithm.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves the requests of a {@link ShardNode} over TCP, for a {@link SocketTransport} in another
+ * process. Every message on a connection is framed by its length: an int followed by that many
+ * bytes. A request the node rejects is answered with the length -1 and the message of the
+ * exception, written with {@link DataOutputStream#writeUTF(String)}; a request the node fails on
+ * with any other exception is logged and answered the same way with the length -2. Requests on one
+ * connection are answered in order, every connection has a thread of its own.
+ */
+@Slf4j
+public final class ShardServer implements AutoCloseable {
+
+  static final int REJECTED = -1;
+  static final int FAILED = -2;
+
+  private final ShardNode node;
+  private final ServerSocket serverSocket;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+  private ShardServer(ShardNode node, ServerSocket serverSocket) {
+    this.node = node;
+    this.serverSocket = serverSocket;
+  }
+
+  /**
+   * Starts serving the node on the loopback address.
+   *
+   * @param port the port to listen on, 0 for any free one
+   */
+  public static ShardServer start(ShardNode node, int port) throws IOException {
+    return start(node, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+  }
+
+  /**
+   * Starts serving the node on the address.
+   */
+  public static ShardServer start(ShardNode node, InetSocketAddress address) throws IOException {
+    Objects.requireNonNull(node, "node should not be null");
+    ServerSocket serverSocket = new ServerSocket();
+    try {
+      serverSocket.bind(address);
+    } catch (IOException e) {
+      serverSocket.close();
+      throw e;
+    }
+    ShardServer server = new ShardServer(node, serverSocket);
+    daemon(server::accept, "shard-" + node.shard().id() + "-accept").start();
+    return server;
+  }
+
+  /**
+   * @return the address the server listens on
+   */
+  public InetSocketAddress address() {
+    return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+  }
+
+  /**
+   * Stops listening and closes the open connections.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket connection : connections) {
+      connection.close();
+    }
+  }
+
+  private void accept() {
+    int count = 0;
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket connection = serverSocket.accept();
+        connections.add(connection);
+        daemon(() -> serve(connection), "shard-" + node.shard().id() + "-" + ++count).start();
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          log.warn("Shard {} stops accepting connections", node.shard().id(), e);
+        }
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket connection) {
+    try (connection;
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(connection.getInputStream()));
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(connection.getOutputStream()))) {
+      while (true) {
+        byte[] request = readFrame(in);
+        try {
+          writeFrame(out, node.handle(request));
+        } catch (IllegalArgumentException e) {
+          out.writeInt(REJECTED);
+          out.writeUTF(String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+          log.warn("Shard {} failed on a request", node.shard().id(), e);
+          out.writeInt(FAILED);
+          out.writeUTF(String.valueOf(e));
+        }
+        out.flush();
+      }
+    } catch (EOFException e) {
+      // the client has closed the connection
+    } catch (IOException e) {
+      if (!serverSocket.isClosed()) {
+        log.warn("Connection to shard {} failed", node.shard().id(), e);
+      }
+    } finally {
+      connections.remove(connection);
+    }
+  }
+
+  static byte[] readFrame(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("a frame should not have the length " + length);
+    }
+    byte[] message = new byte[length];
+    in.readFully(message);
+    return message;
+  }
+
+  static void writeFrame(DataOutputStream out, byte[] message) throws IOException {
+    out.writeInt(message.length);
+    out.write(message);
+  }
+
+  private static Thread daemon(Runnable task, String name) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+}
@@ -0,0 +1,21 @@
+package assignment.algorithm.shard;
+
+/**
+ * Carries the requests of a {@link ShardCoordinator} to the shards and their responses back. A
+ * transport to shards in other processes sends the bytes over whatever channel connects them and
+ * hands them to {@link ShardNode#handle(byte[])} on the other side, like {@link SocketTransport}
+ * to a {@link ShardServer} does over TCP; {@link InProcessTransport} calls the nodes directly.
+ * <p>
+ * The coordinator calls the transport from every thread which queries it, so it must be thread
+ * safe. A failed call should throw an unchecked exception, which fails the query.
+ */
+@FunctionalInterface
+public interface ShardTransport {
+
+  /**
+   * @param shard   the id of the shard
+   * @param request the encoded request
+   * @return the encoded response of the shard
+   */
+  byte[] call(int shard, byte[] request);
+}
@@ -0,0 +1,94 @@
+package assignment.algorithm.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ShardTransport} to {@link ShardServer}s in other processes, with one connection per
+ * shard. Calls to the same shard take turns on its connection; a connection which fails is closed,
+ * the call throws an {@link UncheckedIOException} and the next call to the shard connects again. A
+ * request the node rejects throws the {@link IllegalArgumentException} it would have thrown in
+ * process, a request it fails on with another exception throws an {@link IllegalStateException}
+ * with the description of that exception. Either way the connection stays open.
+ */
+public final class SocketTransport implements ShardTransport, AutoCloseable {
+
+  private final List<Connection> connections;
+
+  /**
+   * @param addresses the addresses of the servers by the id of their shard
+   */
+  public SocketTransport(List<InetSocketAddress> addresses) {
+    this.connections = new ArrayList<>(addresses.size());
+    for (InetSocketAddress address : addresses) {
+      connections.add(new Connection(address));
+    }
+  }
+
+  @Override
+  public byte[] call(int shard, byte[] request) {
+    return connections.get(shard).call(request);
+  }
+
+  @Override
+  public void close() {
+    connections.forEach(Connection::close);
+  }
+
+  private static final class Connection {
+
+    private final InetSocketAddress address;
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    private Connection(InetSocketAddress address) {
+      this.address = address;
+    }
+
+    private synchronized byte[] call(byte[] request) {
+      try {
+        if (socket == null) {
+          socket = new Socket(address.getAddress(), address.getPort());
+          socket.setTcpNoDelay(true);
+          in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+          out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+        ShardServer.writeFrame(out, request);
+        out.flush();
+        int length = in.readInt();
+        if (length == ShardServer.REJECTED) {
+          throw new IllegalArgumentException(in.readUTF());
+        }
+        if (length == ShardServer.FAILED) {
+          throw new IllegalStateException("the shard at " + address + " failed: " + in.readUTF());
+        }
+        byte[] response = new byte[length];
+        in.readFully(response);
+        return response;
+      } catch (IOException e) {
+        close();
+        throw new UncheckedIOException("the call to the shard at " + address + " failed", e);
+      }
+    }
+
+    private synchronized void close() {
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          // nothing is sent on a closed connection anyway
+        }
+        socket = null;
+      }
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package assignment.algorithm.util;
 
+import assignment.algorithm.datastructure.PathConstraints;
 import assignment.algorithm.datastructure.PathState;
 import assignment.algorithm.datastructure.Route;
 import java.util.List;
@@ -35,4 +36,9 @@ public class PathFinderHelper {
     return routes.stream().filter(route -> route.getTotalTravelTime() <= limit)
         .collect(Collectors.toUnmodifiableList());
   }
+
+  public List<Route> getRoutesByConstraints(List<Route> routes, PathConstraints constraints) {
+    return routes.stream().filter(constraints::matches)
+        .collect(Collectors.toUnmodifiableList());
+  }
 }
@@ -0,0 +1,84 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AllPairsShortestPathsTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("Routes read from the mapped tables are the routes Dijkstra finds")
+  void testRoutesMatchDijkstra() throws IOException {
+    Star[] stars = PathFinderTest.randomStars(40);
+    CompiledStarGraph graph = new CompiledStarGraph(
+        PathFinderTest.createRandomGraph(stars, 2, 31));
+    Path file = directory.resolve("shortest-paths.bin");
+    AllPairsShortestPaths.precompute(graph, file, 4);
+
+    AllPairsShortestPaths table = AllPairsShortestPaths.load(file, graph);
+    PathFinder dijkstra = new PathFinder(graph);
+    PathFinder precomputed = new PathFinder(table);
+    for (Star from : stars) {
+      for (Star to : stars) {
+        Route expected = dijkstra.findShortestPath(from, to);
+        assertEquals(expected, precomputed.findShortestPath(from, to));
+        if (expected == null) {
+          assertEquals(AllPairsShortestPaths.UNREACHABLE, table.distance(from, to));
+        } else {
+          assertEquals(expected.getTotalTravelTime(), table.distance(from, to));
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Unreachable stars have no route")
+  void testUnreachable() throws IOException {
+    Star[] stars = PathFinderTest.randomStars(3);
+    CompiledStarGraph graph = new CompiledStarGraph(
+        PathFinderTest.createRandomGraph(stars, 0, 1));
+    Path file = directory.resolve("empty.bin");
+    AllPairsShortestPaths.precompute(graph, file, 1);
+    assertNull(AllPairsShortestPaths.load(file, graph).route(stars[0], stars[1]));
+  }
+
+  @Test
+  @DisplayName("An empty graph has empty tables")
+  void testEmptyGraph() throws IOException {
+    CompiledStarGraph graph = new CompiledStarGraph(new Star[0], new int[0], new int[0],
+        new int[0], 0);
+    Path file = directory.resolve("no-stars.bin");
+    AllPairsShortestPaths.precompute(graph, file, 1);
+    AllPairsShortestPaths table = AllPairsShortestPaths.load(file, graph);
+    assertEquals(graph, table.getGraph());
+    Star unknown = Star.builder().id("X").build();
+    assertThrows(IllegalArgumentException.class, () -> table.route(unknown, unknown));
+  }
+
+  @Test
+  @DisplayName("Tables computed for another graph are rejected")
+  void testDifferentGraph() throws IOException {
+    Star[] stars = PathFinderTest.randomStars(10);
+    Path file = directory.resolve("other.bin");
+    AllPairsShortestPaths.precompute(
+        new CompiledStarGraph(PathFinderTest.createRandomGraph(stars, 2, 1)), file, 2);
+    CompiledStarGraph other = new CompiledStarGraph(PathFinderTest.createRandomGraph(stars, 2, 2));
+    assertThrows(IllegalArgumentException.class, () -> AllPairsShortestPaths.load(file, other));
+
+    Files.write(file, new byte[]{1, 2, 3});
+    assertThrows(IllegalArgumentException.class, () -> AllPairsShortestPaths.load(file, other));
+  }
+}
@@ -0,0 +1,82 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import assignment.algorithm.datastructure.CacheStats;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ValueGraph;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CachingPathFinderTest {
+
+  final Star[] stars = PathFinderTest.randomStars(8);
+  final ValueGraph<Star, Integer> graph = PathFinderTest.createRandomGraph(stars, 3, 3);
+
+  @Test
+  @DisplayName("Repeated queries are answered from the cache with the same result")
+  void testRepeatedQueries() {
+    PathFinder pathFinder = new PathFinder(graph);
+    CachingPathFinder cached = new CachingPathFinder(pathFinder, 100, 10_000);
+    PathConstraints constraints = PathConstraints.builder().maxStops(3).build();
+
+    List<Route> expected = pathFinder.findPaths(stars[0], stars[1], constraints);
+    assertEquals(expected, cached.findPaths(stars[0], stars[1], constraints));
+    assertEquals(expected, cached.findPaths(stars[0], stars[1], constraints));
+    assertEquals(pathFinder.findShortestPath(stars[2], stars[3]),
+        cached.findShortestPath(stars[2], stars[3]));
+    cached.findShortestPath(stars[2], stars[3]);
+
+    CacheStats stats = cached.stats();
+    assertEquals(2, stats.getHits());
+    assertEquals(2, stats.getMisses());
+  }
+
+  @Test
+  @DisplayName("A caller changing its answer does not change the answer of the next caller")
+  void testAnswersAreCopies() {
+    PathFinder pathFinder = new PathFinder(graph);
+    CachingPathFinder cached = new CachingPathFinder(pathFinder, 100, 10_000);
+    Route expected = pathFinder.findShortestPath(stars[2], stars[3]);
+    Route route = cached.findShortestPath(stars[2], stars[3]);
+    route.getPath().clear();
+    route.setTotalTravelTime(-1);
+    assertEquals(expected, cached.findShortestPath(stars[2], stars[3]));
+
+    List<Route> expectedRoutes = pathFinder.findPath(stars[0], stars[1]);
+    List<Route> routes = cached.findPath(stars[0], stars[1]);
+    routes.get(0).getPath().removeLast();
+    routes.clear();
+    assertEquals(expectedRoutes, cached.findPath(stars[0], stars[1]));
+  }
+
+  @Test
+  @DisplayName("A new graph version drops the cached answers")
+  void testGraphVersionInvalidation() {
+    CachingPathFinder cached = new CachingPathFinder(new PathFinder(graph), 100, 10_000);
+    cached.findPath(stars[0], stars[1]);
+    assertEquals(1, cached.stats().getSize());
+
+    cached.update(new PathFinder(PathFinderTest.createRandomGraph(stars, 3, 4)));
+    assertEquals(0, cached.stats().getSize());
+    cached.findPath(stars[0], stars[1]);
+    assertEquals(2, cached.stats().getMisses());
+  }
+
+  @Test
+  @DisplayName("Missing cycles are cached and still reported as an exception")
+  void testMissingCycle() {
+    Star[] isolated = PathFinderTest.randomStars(2);
+    CachingPathFinder cached = new CachingPathFinder(
+        new PathFinder(PathFinderTest.createRandomGraph(isolated, 0, 1)), 10, 100);
+    assertThrows(IllegalStateException.class,
+        () -> cached.findShortestPathInCycle(isolated[0], isolated[0]));
+    assertThrows(IllegalStateException.class,
+        () -> cached.findShortestPathInCycle(isolated[0], isolated[0]));
+    assertEquals(1, cached.stats().getHits());
+  }
+}
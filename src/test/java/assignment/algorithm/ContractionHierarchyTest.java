@@ -0,0 +1,134 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ContractionHierarchyTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("Shortcuts are unpacked into the stars of the shortest route")
+  void testSampleRoute() {
+    Star a = PathFinderTest.SAMPLE_STARS[0];
+    Star b = PathFinderTest.SAMPLE_STARS[1];
+    Star c = PathFinderTest.SAMPLE_STARS[2];
+    Star d = PathFinderTest.SAMPLE_STARS[3];
+    Star e = PathFinderTest.SAMPLE_STARS[4];
+    CompiledStarGraph graph = new CompiledStarGraph(PathFinderTest.createGraph());
+    ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+    Route route = hierarchy.route(a, c);
+    assertEquals(List.of(a, b, c), route.getPath());
+    assertEquals(9, route.getTotalTravelTime());
+    assertEquals(List.of(d, e, b), hierarchy.route(d, b).getPath());
+    assertEquals(List.of(c), hierarchy.route(c, c).getPath());
+    assertNull(hierarchy.route(b, a));
+  }
+
+  @Test
+  @DisplayName("Routes through the hierarchy are as short as the routes Dijkstra finds, and the same where the shortest route is unique")
+  void testRoutesMatchDijkstra() {
+    Star[] stars = PathFinderTest.randomStars(200);
+    CompiledStarGraph graph = new CompiledStarGraph(
+        PathFinderTest.createRandomGraph(stars, 3, 17));
+    ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+    PathFinder dijkstra = new PathFinder(graph);
+    PathFinder contracted = new PathFinder(hierarchy);
+    int unique = 0;
+    for (int i = 0; i < stars.length; i += 7) {
+      Star from = stars[i];
+      long[] shortestRoutes = countShortestRoutes(graph, dijkstra, stars, from);
+      for (Star to : stars) {
+        Route expected = dijkstra.findShortestPath(from, to);
+        Route route = contracted.findShortestPath(from, to);
+        if (expected == null) {
+          assertNull(route);
+          assertEquals(ContractionHierarchy.UNREACHABLE, hierarchy.distance(from, to));
+        } else {
+          assertEquals(expected.getTotalTravelTime(), route.getTotalTravelTime());
+          assertEquals(expected.getTotalTravelTime(), hierarchy.distance(from, to));
+          assertEquals(route.getTotalTravelTime(), PathFinderTest.travelTime(graph, route));
+          assertEquals(from, route.getPath().getFirst());
+          assertEquals(to, route.getPath().getLast());
+          if (shortestRoutes[graph.indexOf(to)] == 1) {
+            assertEquals(expected, route);
+            unique++;
+          }
+        }
+      }
+    }
+    assertTrue(unique > 1000, unique + " pairs with a unique shortest route");
+  }
+
+  /**
+   * @return the number of shortest routes from the source to every star, counted along the edges
+   * which are on a shortest route
+   */
+  private static long[] countShortestRoutes(CompiledStarGraph graph, PathFinder pathFinder,
+      Star[] stars, Star source) {
+    int[] distances = new int[graph.nodeCount()];
+    Arrays.fill(distances, Integer.MAX_VALUE);
+    pathFinder.findShortestPaths(source, List.of(stars)).values()
+        .forEach(route -> distances[graph.indexOf(route.getPath().getLast())] =
+            route.getTotalTravelTime());
+    // the travel times are positive, so a star comes after the stars it can be reached from
+    Integer[] order = IntStream.range(0, distances.length).boxed()
+        .sorted(Comparator.comparingInt(node -> distances[node])).toArray(Integer[]::new);
+    long[] counts = new long[graph.nodeCount()];
+    counts[graph.indexOf(source)] = 1;
+    for (int node : order) {
+      if (distances[node] == Integer.MAX_VALUE) {
+        break;
+      }
+      for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+        int next = graph.target(edge);
+        if (distances[node] + graph.weight(edge) == distances[next]) {
+          counts[next] += counts[node];
+        }
+      }
+    }
+    return counts;
+  }
+
+  @Test
+  @DisplayName("A hierarchy is written and loaded back, but not for another graph")
+  void testWriteAndLoad() throws IOException {
+    Star[] stars = PathFinderTest.randomStars(60);
+    CompiledStarGraph graph = new CompiledStarGraph(
+        PathFinderTest.createRandomGraph(stars, 2, 3));
+    ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+    Path file = directory.resolve("hierarchy.bin");
+    hierarchy.write(file);
+
+    ContractionHierarchy loaded = ContractionHierarchy.load(file, graph);
+    assertEquals(hierarchy.shortcutCount(), loaded.shortcutCount());
+    for (Star from : stars) {
+      for (Star to : stars) {
+        assertEquals(hierarchy.route(from, to), loaded.route(from, to));
+      }
+    }
+
+    CompiledStarGraph other = new CompiledStarGraph(PathFinderTest.createRandomGraph(stars, 2, 4));
+    assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy.load(file, other));
+    Files.write(file, new byte[]{1, 2, 3});
+    assertThrows(IllegalArgumentException.class, () -> ContractionHierarchy.load(file, graph));
+  }
+}
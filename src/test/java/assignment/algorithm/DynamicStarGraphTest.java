@@ -0,0 +1,133 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DynamicStarGraphTest {
+
+  @Test
+  @DisplayName("Repaired shortest path trees match a new search after every update")
+  void testIncrementalRepair() {
+    Star[] stars = PathFinderTest.randomStars(30);
+    Star added = Star.builder().id("N").name("New Star").build();
+    DynamicStarGraph graph = new DynamicStarGraph(PathFinderTest.createRandomGraph(stars, 2, 7));
+    Star[] sources = {stars[0], stars[9], stars[21]};
+    for (Star source : sources) {
+      graph.track(source);
+    }
+
+    Random random = new Random(11);
+    for (int update = 0; update < 300; update++) {
+      Star from = update == 150 ? added : stars[random.nextInt(stars.length)];
+      Star to = stars[random.nextInt(stars.length)];
+      if (from.equals(to)) {
+        continue;
+      }
+      if (random.nextInt(3) == 0) {
+        graph.removeEdge(from, to);
+      } else {
+        graph.putEdge(from, to, random.nextInt(10));
+      }
+
+      PathFinder snapshot = graph.snapshot();
+      for (Star source : sources) {
+        for (Star target : stars) {
+          Route expected = snapshot.findShortestPath(source, target);
+          Route route = graph.findShortestPath(source, target);
+          if (expected == null) {
+            assertNull(route);
+          } else {
+            assertEquals(expected.getTotalTravelTime(), route.getTotalTravelTime());
+            assertEquals(route.getTotalTravelTime(),
+                PathFinderTest.travelTime(snapshot.getGraph(), route));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Updates of an undirected graph repair the trees in both directions")
+  void testUndirectedRepair() {
+    Star[] stars = PathFinderTest.randomStars(8);
+    MutableValueGraph<Star, Integer> square = ValueGraphBuilder.undirected().build();
+    for (Star star : stars) {
+      square.addNode(star);
+    }
+    square.putEdgeValue(stars[0], stars[1], 5);
+    square.putEdgeValue(stars[1], stars[2], 5);
+    square.putEdgeValue(stars[2], stars[3], 5);
+    square.putEdgeValue(stars[3], stars[0], 1);
+    DynamicStarGraph graph = new DynamicStarGraph(square);
+    graph.track(stars[1]);
+
+    // the new highway is given from its far end, the tree of B uses it the other way
+    graph.putEdge(stars[3], stars[1], 1);
+    Route route = graph.findShortestPath(stars[1], stars[3]);
+    assertEquals(List.of(stars[1], stars[3]), route.getPath());
+    assertEquals(1, route.getTotalTravelTime());
+
+    graph.putEdge(stars[3], stars[1], 20);
+    assertEquals(List.of(stars[1], stars[0], stars[3]),
+        graph.findShortestPath(stars[1], stars[3]).getPath());
+    graph.putEdge(stars[3], stars[1], 2);
+    graph.removeEdge(stars[3], stars[1]);
+    assertEquals(6, graph.findShortestPath(stars[1], stars[3]).getTotalTravelTime());
+
+    Random random = new Random(13);
+    for (int update = 0; update < 200; update++) {
+      Star from = stars[random.nextInt(stars.length)];
+      Star to = stars[random.nextInt(stars.length)];
+      if (from.equals(to)) {
+        continue;
+      }
+      if (random.nextInt(3) == 0) {
+        graph.removeEdge(from, to);
+      } else {
+        graph.putEdge(from, to, random.nextInt(10));
+      }
+      PathFinder snapshot = graph.snapshot();
+      for (Star target : stars) {
+        Route expected = snapshot.findShortestPath(stars[1], target);
+        Route repaired = graph.findShortestPath(stars[1], target);
+        if (expected == null) {
+          assertNull(repaired);
+        } else {
+          assertEquals(expected.getTotalTravelTime(), repaired.getTotalTravelTime());
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("A snapshot is not changed by later updates")
+  void testSnapshotIsolation() {
+    Star[] stars = PathFinderTest.randomStars(3);
+    DynamicStarGraph graph = new DynamicStarGraph(PathFinderTest.createRandomGraph(stars, 0, 1));
+    graph.putEdge(stars[0], stars[1], 5);
+    PathFinder before = graph.snapshot();
+    assertSame(before, graph.snapshot());
+
+    graph.putEdge(stars[1], stars[2], 3);
+    graph.putEdge(stars[0], stars[1], 2);
+    PathFinder after = graph.snapshot();
+    assertNotSame(before, after);
+    assertNull(before.findShortestPath(stars[0], stars[2]));
+    assertEquals(5, before.findShortestPath(stars[0], stars[1]).getTotalTravelTime());
+    assertEquals(5, after.findShortestPath(stars[0], stars[2]).getTotalTravelTime());
+    CompiledStarGraph compiled = after.getGraph();
+    assertEquals(2, compiled.edgeCount());
+  }
+}
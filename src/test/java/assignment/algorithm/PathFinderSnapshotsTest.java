@@ -0,0 +1,75 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import assignment.algorithm.PathFinderSnapshots.Lease;
+import assignment.algorithm.datastructure.Star;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PathFinderSnapshotsTest {
+
+  final Star[] stars = PathFinderTest.randomStars(10);
+
+  @Test
+  @DisplayName("A version is retired once it is replaced and its last lease is closed")
+  void testRetirement() {
+    List<PathFinder> retired = new CopyOnWriteArrayList<>();
+    PathFinder first = new PathFinder(PathFinderTest.createRandomGraph(stars, 2, 1));
+    PathFinder second = new PathFinder(PathFinderTest.createRandomGraph(stars, 2, 2));
+    PathFinderSnapshots snapshots = new PathFinderSnapshots(first, retired::add);
+
+    Lease lease = snapshots.acquire();
+    snapshots.publish(second);
+    assertSame(second, snapshots.current());
+    assertSame(first, lease.pathFinder());
+    assertTrue(retired.isEmpty());
+
+    lease.close();
+    lease.close();
+    assertEquals(List.of(first), retired);
+  }
+
+  @Test
+  @DisplayName("Concurrent readers always lease a live version while writers publish")
+  void testConcurrentPublishing() throws Exception {
+    List<PathFinder> retired = new CopyOnWriteArrayList<>();
+    PathFinderSnapshots snapshots = new PathFinderSnapshots(
+        new PathFinder(PathFinderTest.createRandomGraph(stars, 2, 0)), retired::add);
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<?>[] readers = new Future<?>[3];
+      for (int i = 0; i < readers.length; i++) {
+        readers[i] = executor.submit(() -> {
+          while (running.get()) {
+            try (Lease lease = snapshots.acquire()) {
+              lease.pathFinder().findShortestPath(stars[0], stars[5]);
+              assertFalse(retired.contains(lease.pathFinder()));
+            }
+          }
+        });
+      }
+      for (int version = 1; version <= 200; version++) {
+        snapshots.publish(new PathFinder(PathFinderTest.createRandomGraph(stars, 2, version)));
+      }
+      running.set(false);
+      for (Future<?> reader : readers) {
+        reader.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(200, retired.size());
+  }
+}
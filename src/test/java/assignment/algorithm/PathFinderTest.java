@@ -4,28 +4,54 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.PathConstraints;
 import assignment.algorithm.datastructure.PathState;
 import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.RouteSearchResult;
+import assignment.algorithm.datastructure.SearchBudget;
 import assignment.algorithm.datastructure.Star;
 import assignment.algorithm.util.PathFinderHelper;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.ValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 
-class PathFinderTest {
+public class PathFinderTest {
 
-  final Star a = Star.builder().id("A").name("Solar System").build();
-  final Star b = Star.builder().id("B").name("Alpha Centauri").build();
-  final Star c = Star.builder().id("C").name("Sirius").build();
-  final Star d = Star.builder().id("D").name("Betelgeuse").build();
-  final Star e = Star.builder().id("E").name("Vega").build();
+  // the stars of the sample graph, A to E
+  public static final Star[] SAMPLE_STARS = {
+      Star.builder().id("A").name("Solar System").build(),
+      Star.builder().id("B").name("Alpha Centauri").build(),
+      Star.builder().id("C").name("Sirius").build(),
+      Star.builder().id("D").name("Betelgeuse").build(),
+      Star.builder().id("E").name("Vega").build()};
+
+  final Star a = SAMPLE_STARS[0];
+  final Star b = SAMPLE_STARS[1];
+  final Star c = SAMPLE_STARS[2];
+  final Star d = SAMPLE_STARS[3];
+  final Star e = SAMPLE_STARS[4];
 
   final PathFinder dfs = new PathFinder(createGraph());
 
@@ -194,7 +220,477 @@ class PathFinderTest {
     assertThat(routesByNumberOfStops, equalTo(expectedRoutes));
   }
 
-  private ValueGraph<Star, Integer> createGraph() {
+  @Test
+  @DisplayName("Bounded queries return the same routes as filtering all routes")
+  void testFindPathsWithConstraints() {
+    PathFinderHelper helper = PathFinderHelper.getInstance();
+    assertThat(dfs.findPaths(c, c, PathConstraints.builder().maxStops(3).build()),
+        equalTo(helper.getRoutesByMaxNumberOfStops(dfs.findPath(c, c), 3)));
+    assertThat(dfs.findPaths(a, c, PathConstraints.builder().intermediateStops(3).build()),
+        equalTo(helper.getRoutesByNumberOfIntermediateStops(dfs.findPath(a, c), 3)));
+    assertThat(dfs.findPaths(c, c, PathConstraints.builder().maxTravelTime(30).build()),
+        equalTo(helper.getRoutesByTravelTimeLessThanLimit(dfs.findPath(c, c), 30)));
+  }
+
+  @Test
+  @DisplayName("Bounded queries match the filtered enumeration on a random graph")
+  void testFindPathsWithConstraintsOnRandomGraph() {
+    Star[] stars = randomStars(9);
+    PathFinder finder = new PathFinder(createRandomGraph(stars, 3, 11));
+    List<PathConstraints> constraints = List.of(
+        PathConstraints.builder().maxStops(4).build(),
+        PathConstraints.builder().intermediateStops(2).build(),
+        PathConstraints.builder().maxTravelTime(25).build(),
+        PathConstraints.builder().maxStops(6).maxTravelTime(40).build());
+    for (Star from : stars) {
+      for (Star to : stars) {
+        List<Route> all = finder.findPath(from, to);
+        for (PathConstraints constraint : constraints) {
+          assertThat(finder.findPaths(from, to, constraint), equalTo(
+              PathFinderHelper.getInstance().getRoutesByConstraints(all, constraint)));
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Streamed routes are produced lazily in DFS order and match findPath")
+  void testStreamPaths() {
+    List<Route> all = dfs.findPath(a, c);
+    List<Route> streamed = dfs.streamPaths(a, c, PathConstraints.none())
+        .collect(Collectors.toList());
+    assertEquals(all.size(), streamed.size());
+    assertTrue(all.containsAll(streamed));
+    assertEquals(streamed.subList(0, 2),
+        dfs.streamPaths(a, c, PathConstraints.none()).limit(2).collect(Collectors.toList()));
+    assertTrue(dfs.streamPaths(c, c, PathConstraints.none()).anyMatch(route -> true));
+  }
+
+  @Test
+  @DisplayName("A cancelled or nested enumeration does not leak visited stars into the next query")
+  void testEnumerationStateReuse() {
+    List<Route> expected = dfs.findPath(c, c);
+    try (Stream<Route> routes = dfs.streamPaths(c, c, PathConstraints.none())) {
+      Iterator<Route> iterator = routes.iterator();
+      iterator.next();
+      // a second enumeration on the same thread while the first one is still running
+      assertEquals(expected, dfs.findPath(c, c));
+    }
+    assertEquals(expected, dfs.findPath(c, c));
+  }
+
+  @Test
+  @DisplayName("The parallel search returns exactly the routes of the sequential one")
+  void testFindPathsInParallel() {
+    Star[] stars = randomStars(10);
+    PathFinder finder = new PathFinder(createRandomGraph(stars, 3, 17));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (Star from : stars) {
+        for (Star to : stars) {
+          List<Route> sequential = finder.findPath(from, to);
+          for (int splitDepth = 0; splitDepth < 4; splitDepth++) {
+            assertEquals(sequential, finder.findPathsInParallel(from, to,
+                PathConstraints.none(), pool, splitDepth));
+          }
+          assertEquals(finder.findPaths(from, to, PathConstraints.builder().maxStops(4).build()),
+              finder.findPathsInParallel(from, to, PathConstraints.builder().maxStops(4).build()));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("The shortest route is the first route of the sorted enumeration, ties included")
+  void testFindShortestPathInCycleOnRandomGraph() {
+    Star[] stars = randomStars(10);
+    ValueGraph<Star, Integer> distinct = createRandomGraph(stars, 3, 23);
+    MutableValueGraph<Star, Integer> ties = ValueGraphBuilder.directed().build();
+    for (Star star : stars) {
+      ties.addNode(star);
+    }
+    // travel times of 1 and 2 make many routes equally short
+    Random random = new Random(3);
+    distinct.edges().forEach(edge -> ties.putEdgeValue(edge.source(), edge.target(),
+        1 + random.nextInt(2)));
+    for (ValueGraph<Star, Integer> graph : List.of(distinct, ties)) {
+      PathFinder finder = new PathFinder(graph);
+      for (Star from : stars) {
+        for (Star to : stars) {
+          List<Route> routes = finder.findPath(from, to);
+          if (routes.isEmpty()) {
+            assertThrows(IllegalStateException.class,
+                () -> finder.findShortestPathInCycle(from, to));
+          } else {
+            Route shortest = finder.findShortestPathInCycle(from, to);
+            assertEquals(routes.get(0).getPath(), shortest.getPath());
+            assertEquals(routes.get(0).getTotalTravelTime(), shortest.getTotalTravelTime());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Bidirectional Dijkstra and A* with landmarks find routes as short as Dijkstra")
+  void testShortestPathModes() {
+    Star[] stars = randomStars(60);
+    CompiledStarGraph graph = new CompiledStarGraph(createRandomGraph(stars, 2, 29));
+    PathFinder finder = new PathFinder(graph);
+    LandmarkHeuristic landmarks = LandmarkHeuristic.compute(graph, 4);
+    for (Star from : stars) {
+      for (Star to : stars) {
+        Route expected = finder.findShortestPath(from, to);
+        for (Route route : Arrays.asList(finder.findShortestPathBidirectional(from, to),
+            finder.findShortestPath(from, to, landmarks))) {
+          if (expected == null) {
+            assertNull(route);
+          } else {
+            assertEquals(expected.getTotalTravelTime(), route.getTotalTravelTime());
+            assertEquals(from, route.getPath().getFirst());
+            assertEquals(to, route.getPath().getLast());
+            assertEquals(route.getTotalTravelTime(), travelTime(graph, route));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("One-to-many and many-to-many queries match one shortest path query per pair")
+  void testBatchShortestPaths() {
+    Star[] stars = randomStars(40);
+    CompiledStarGraph graph = new CompiledStarGraph(createRandomGraph(stars, 2, 31));
+    PathFinder finder = new PathFinder(graph);
+    List<Star> sources = Arrays.asList(stars[0], stars[5], stars[0], stars[17], stars[5],
+        stars[0]);
+    List<Star> targets = Arrays.asList(stars[3], stars[0], stars[39], stars[3], stars[21]);
+
+    DistanceMatrix matrix = finder.findDistanceMatrix(sources, targets);
+    for (int i = 0; i < sources.size(); i++) {
+      Map<Star, Route> routes = finder.findShortestPaths(sources.get(i), targets);
+      for (int j = 0; j < targets.size(); j++) {
+        Route expected = finder.findShortestPath(sources.get(i), targets.get(j));
+        Route route = routes.get(targets.get(j));
+        if (expected == null) {
+          assertNull(route);
+          assertEquals(DistanceMatrix.UNREACHABLE, matrix.distance(i, j));
+          assertNull(matrix.route(i, j));
+        } else {
+          assertEquals(expected, route);
+          assertEquals(expected.getTotalTravelTime(), matrix.distance(i, j));
+          assertEquals(expected, matrix.route(i, j));
+        }
+      }
+    }
+
+    // 50000 x 50000 entries would overflow an int size
+    List<Star> many = Collections.nCopies(50_000, stars[0]);
+    assertThrows(IllegalArgumentException.class, () -> finder.findDistanceMatrix(many, many));
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.distance(0, targets.size()));
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.distance(sources.size(), 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.route(-1, 0));
+  }
+
+  @Test
+  @DisplayName("Matrices searched from the targets or looked up in a hierarchy are the same")
+  void testDistanceMatrixFromTargetsAndHierarchy() {
+    Star[] stars = randomStars(40);
+    CompiledStarGraph graph = new CompiledStarGraph(createRandomGraph(stars, 2, 37));
+    PathFinder finder = new PathFinder(graph);
+    PathFinder hierarchy = new PathFinder(ContractionHierarchy.build(graph));
+    List<Star> sources = Arrays.asList(stars).subList(0, 30);
+    List<Star> targets = Arrays.asList(stars[3], stars[0], stars[39], stars[3]);
+
+    // 4 targets against 30 sources are searched backwards from the targets
+    DistanceMatrix backward = finder.findDistanceMatrix(sources, targets);
+    DistanceMatrix lookedUp = hierarchy.findDistanceMatrix(sources, targets);
+    for (int i = 0; i < sources.size(); i++) {
+      for (int j = 0; j < targets.size(); j++) {
+        Route expected = finder.findShortestPath(sources.get(i), targets.get(j));
+        int distance = expected == null
+            ? DistanceMatrix.UNREACHABLE : expected.getTotalTravelTime();
+        assertEquals(distance, backward.distance(i, j));
+        assertEquals(distance, lookedUp.distance(i, j));
+        // the route comes from the hierarchy the matrix was built with
+        assertEquals(hierarchy.findShortestPath(sources.get(i), targets.get(j)),
+            lookedUp.route(i, j));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("A search from several sources starts at each with its own travel time")
+  void testShortestPathFromSources() {
+    assertEquals(Route.builder().path(new LinkedList<>(List.of(b, c))).totalTravelTime(4).build(),
+        dfs.findShortestPath(Map.of(b, 0, e, 0), c));
+    // A -> E and D -> E tie at 7, A has the smaller index
+    assertEquals(Route.builder().path(new LinkedList<>(List.of(a, e))).totalTravelTime(7).build(),
+        dfs.findShortestPath(Map.of(a, 0, d, 1), e));
+    // B is reached from A as early as it starts, so the route passes through it
+    assertEquals(Route.builder().path(new LinkedList<>(List.of(a, b, c))).totalTravelTime(9)
+        .build(), dfs.findShortestPath(Map.of(a, 0, b, 5), c));
+    assertNull(dfs.findShortestPath(Map.of(c, 0, e, 2), a));
+  }
+
+  @Test
+  @DisplayName("Pooled searches answer queries on other graphs, off the heap and nested ones")
+  void testSearchStateReuse() {
+    Star[] stars = randomStars(80);
+    CompiledStarGraph graph = new CompiledStarGraph(createRandomGraph(stars, 2, 37));
+    PathFinder finder = new PathFinder(graph);
+    PathFinder offHeap = new PathFinder(graph.offHeap());
+    Route sample = dfs.findShortestPath(a, c);
+    // a query of the listener runs while the search of the reported one is still held
+    offHeap.setQueryListener(stats -> assertEquals(sample, dfs.findShortestPath(a, c)));
+    for (Star from : stars) {
+      for (Star to : Arrays.asList(stars[3], stars[41], stars[79])) {
+        Route expected = finder.findShortestPath(from, to);
+        // the search released by the large graph serves the small one
+        assertEquals(sample, dfs.findShortestPath(a, c));
+        assertEquals(expected, offHeap.findShortestPath(from, to));
+        Route bidirectional = offHeap.findShortestPathBidirectional(from, to);
+        if (expected == null) {
+          assertNull(bidirectional);
+        } else {
+          assertEquals(expected.getTotalTravelTime(), bidirectional.getTotalTravelTime());
+        }
+      }
+    }
+  }
+
+  static int travelTime(CompiledStarGraph graph, Route route) {
+    int travelTime = 0;
+    Star previous = null;
+    for (Star star : route.getPath()) {
+      if (previous != null) {
+        travelTime += graph.edgeWeight(graph.indexOf(previous), graph.indexOf(star));
+      }
+      previous = star;
+    }
+    return travelTime;
+  }
+
+  @Test
+  @DisplayName("The k shortest routes are the first k routes of the sorted enumeration")
+  void testKShortestPaths() {
+    Star[] stars = randomStars(9);
+    PathFinder finder = new PathFinder(createRandomGraph(stars, 3, 5));
+    for (Star from : stars) {
+      for (Star to : stars) {
+        List<Route> all = finder.findPath(from, to);
+        List<Route> shortest = finder.findKShortestPaths(from, to, all.size() + 1);
+        assertEquals(all.size(), shortest.size());
+        assertTrue(all.containsAll(shortest));
+        assertEquals(all.stream().map(Route::getTotalTravelTime).collect(Collectors.toList()),
+            shortest.stream().map(Route::getTotalTravelTime).collect(Collectors.toList()));
+      }
+    }
+    assertEquals(List.of(9, 16, 21), dfs.streamShortestPaths(c, c)
+        .map(Route::getTotalTravelTime).collect(Collectors.toList()));
+  }
+
+  @Test
+  @DisplayName("Walks are counted without enumerating them")
+  void testCountWalks() {
+    assertEquals(2, dfs.countWalks(c, c, PathConstraints.builder().maxStops(3).build()));
+    assertEquals(3, dfs.countWalks(a, c, PathConstraints.builder().intermediateStops(3).build()));
+    assertEquals(7, dfs.countWalks(c, c, PathConstraints.builder().maxTravelTime(29).build()));
+    assertEquals(3, dfs.countWalks(c, c, PathConstraints.builder().maxStops(4)
+        .maxTravelTime(29).build()));
+    assertTrue(dfs.hasWalk(a, c, PathConstraints.builder().intermediateStops(3).build()));
+    assertFalse(dfs.hasWalk(c, a, PathConstraints.builder().maxTravelTime(100).build()));
+    assertThrows(IllegalArgumentException.class,
+        () -> dfs.countWalks(a, c, PathConstraints.none()));
+
+    // a billion layers of travel time for three stars do not fit in an array
+    MutableValueGraph<Star, Integer> slow = ValueGraphBuilder.directed().build();
+    slow.putEdgeValue(a, b, 1_000_000_000);
+    slow.putEdgeValue(b, c, 1);
+    slow.putEdgeValue(c, a, 1);
+    PathFinder slowFinder = new PathFinder(slow);
+    assertThrows(IllegalArgumentException.class, () -> slowFinder.countWalks(a, c,
+        PathConstraints.builder().maxTravelTime(2_000_000_000).build()));
+
+    Star[] stars = randomStars(8);
+    CompiledStarGraph graph = new CompiledStarGraph(createRandomGraph(stars, 3, 11));
+    PathFinder finder = new PathFinder(graph);
+    for (Star from : stars) {
+      for (Star to : stars) {
+        for (PathConstraints constraints : List.of(
+            PathConstraints.builder().maxStops(6).build(),
+            PathConstraints.builder().intermediateStops(4).build(),
+            PathConstraints.builder().maxTravelTime(25).build(),
+            PathConstraints.builder().maxStops(5).maxTravelTime(20).build())) {
+          assertEquals(countWalks(graph, graph.indexOf(from), graph.indexOf(to), constraints, 0, 0),
+              finder.countWalks(from, to, constraints));
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Walks without travel time are not counted, whatever limits the count")
+  void testCountWalksWithoutTravelTime() {
+    Star[] stars = randomStars(8);
+    MutableValueGraph<Star, Integer> idle = Graphs.copyOf(createRandomGraph(stars, 3, 13));
+    for (EndpointPair<Star> edge : List.copyOf(idle.edges())) {
+      if (idle.edgeValueOrDefault(edge, 0) <= 4) {
+        idle.putEdgeValue(edge, 0);
+      }
+    }
+    CompiledStarGraph graph = new CompiledStarGraph(idle);
+    PathFinder finder = new PathFinder(graph);
+    for (Star from : stars) {
+      for (Star to : stars) {
+        for (PathConstraints constraints : List.of(
+            PathConstraints.builder().maxStops(5).build(),
+            PathConstraints.builder().intermediateStops(3).build(),
+            PathConstraints.builder().maxStops(5).maxTravelTime(50).build(),
+            PathConstraints.builder().intermediateStops(3).maxTravelTime(40).build())) {
+          assertEquals(countWalks(graph, graph.indexOf(from), graph.indexOf(to), constraints, 0, 0),
+              finder.countWalks(from, to, constraints));
+        }
+        // every walk of five stops takes at most 50
+        assertEquals(finder.countWalks(from, to, PathConstraints.builder().maxStops(5).build()),
+            finder.countWalks(from, to, PathConstraints.builder().maxStops(5).maxTravelTime(50)
+                .build()));
+      }
+    }
+
+    PathFinder negative = new PathFinder(ValueGraphBuilder.directed()
+        .<Star, Integer>immutable()
+        .putEdgeValue(a, b, 5)
+        .putEdgeValue(b, a, -4).build());
+    assertThrows(IllegalArgumentException.class,
+        () -> negative.countWalks(a, a, PathConstraints.builder().maxStops(4).build()));
+  }
+
+  @Test
+  @DisplayName("Simple paths are counted like the routes findPaths finds")
+  void testCountPaths() {
+    assertEquals(2, dfs.countPaths(c, c, PathConstraints.builder().maxStops(3).build()));
+    assertTrue(dfs.hasPath(a, c, PathConstraints.none()));
+    assertFalse(dfs.hasPath(c, a, PathConstraints.none()));
+
+    Star[] stars = randomStars(9);
+    PathFinder finder = new PathFinder(createRandomGraph(stars, 3, 13));
+    for (Star from : stars) {
+      for (Star to : stars) {
+        for (PathConstraints constraints : List.of(PathConstraints.none(),
+            PathConstraints.builder().maxStops(4).maxTravelTime(20).build())) {
+          long expected = finder.findPaths(from, to, constraints).size();
+          assertEquals(expected, finder.countPaths(from, to, constraints));
+          assertEquals(expected > 0, finder.hasPath(from, to, constraints));
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Johnson's cycle search finds the cycles of the plain DFS in the same order")
+  void testCyclesMatchDfs() {
+    Star[] stars = randomStars(9);
+    CompiledStarGraph graph = new CompiledStarGraph(createRandomGraph(stars, 5, 29));
+    PathFinder finder = new PathFinder(graph);
+    for (Star star : stars) {
+      int node = graph.indexOf(star);
+      for (PathConstraints constraints : List.of(PathConstraints.none(),
+          PathConstraints.builder().maxStops(4).build(),
+          PathConstraints.builder().maxTravelTime(30).build(),
+          PathConstraints.builder().intermediateStops(3).build())) {
+        List<Route> expected = new LinkedList<>();
+        new RouteEnumerator(graph, node, node, constraints).forEachRemaining(expected::add);
+        assertEquals(expected, finder.streamPaths(star, star, constraints)
+            .collect(Collectors.toList()));
+        assertEquals(expected.size(), finder.countPaths(star, star, constraints));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("A cycle search stops at its budget and says whether it found every cycle")
+  void testFindCyclesWithBudget() {
+    RouteSearchResult all = dfs.findCycles(c, PathConstraints.none(), SearchBudget.unlimited());
+    assertTrue(all.isComplete());
+    assertEquals(dfs.findPath(c, c), all.getRoutes());
+    assertTrue(dfs.findCycles(c, PathConstraints.none(),
+        SearchBudget.builder().maxRoutes(all.getRoutes().size()).build()).isComplete());
+    RouteSearchResult some = dfs.findCycles(c, PathConstraints.none(),
+        SearchBudget.builder().maxRoutes(1).build());
+    assertFalse(some.isComplete());
+    assertThat(all.getRoutes(), hasItem(some.getRoutes().get(0)));
+    assertThrows(IllegalArgumentException.class, () -> dfs.findCycles(c, PathConstraints.none(),
+        SearchBudget.builder().maxRoutes(-1).build()));
+
+    // far more cycles than any test could wait for
+    Star[] stars = randomStars(40);
+    PathFinder finder = new PathFinder(createRandomGraph(stars, 10, 31));
+    RouteSearchResult timedOut = finder.findCycles(stars[0], PathConstraints.none(),
+        SearchBudget.builder().timeout(Duration.ofMillis(50)).build());
+    assertFalse(timedOut.isComplete());
+    assertTrue(timedOut.getRoutes().stream()
+        .allMatch(route -> route.getPath().getFirst().equals(stars[0])
+            && route.getPath().getLast().equals(stars[0])));
+  }
+
+  /**
+   * Counts walks by following every one of them.
+   */
+  private static long countWalks(CompiledStarGraph graph, int node, int target,
+      PathConstraints constraints, int stops, int travelTime) {
+    long count = 0;
+    for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+      int next = graph.target(edge);
+      int nextTravelTime = travelTime + graph.weight(edge);
+      if (!constraints.canExtend(stops + 1, nextTravelTime)) {
+        continue;
+      }
+      if (next == target && nextTravelTime > 0 && constraints.matches(stops + 1, nextTravelTime)) {
+        count++;
+      }
+      count += countWalks(graph, next, target, constraints, stops + 1, nextTravelTime);
+    }
+    return count;
+  }
+
+  public static Star[] randomStars(int count) {
+    Star[] stars = new Star[count];
+    for (int i = 0; i < count; i++) {
+      stars[i] = Star.builder().id("S" + i).name("Star " + i).build();
+    }
+    return stars;
+  }
+
+  public static ValueGraph<Star, Integer> createRandomGraph(Star[] stars, int degree,
+      long seed) {
+    Random random = new Random(seed);
+    MutableValueGraph<Star, Integer> graph = ValueGraphBuilder.directed().build();
+    for (Star star : stars) {
+      graph.addNode(star);
+    }
+    for (Star star : stars) {
+      for (int i = 0; i < degree; i++) {
+        Star target = stars[random.nextInt(stars.length)];
+        if (!target.equals(star)) {
+          graph.putEdgeValue(star, target, 1 + random.nextInt(10));
+        }
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * @return the sample graph of the exercises, on {@link #SAMPLE_STARS}
+   */
+  public static ValueGraph<Star, Integer> createGraph() {
+    Star a = SAMPLE_STARS[0];
+    Star b = SAMPLE_STARS[1];
+    Star c = SAMPLE_STARS[2];
+    Star d = SAMPLE_STARS[3];
+    Star e = SAMPLE_STARS[4];
     return ValueGraphBuilder.directed()
         .<Star, Integer>immutable()
         .putEdgeValue(a, b, 5)
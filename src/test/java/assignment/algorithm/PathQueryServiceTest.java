@@ -0,0 +1,225 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PathQueryServiceTest {
+
+  final Star[] stars = PathFinderTest.randomStars(30);
+  final PathFinder pathFinder = new PathFinder(PathFinderTest.createRandomGraph(stars, 3, 21));
+  final CountDownLatch blocked = new CountDownLatch(1);
+  // released once for every task the worker has finished
+  final Semaphore finished = new Semaphore(0);
+  // one worker, which the tests keep busy while queries queue up
+  final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(4)) {
+    @Override
+    protected void afterExecute(Runnable task, Throwable failure) {
+      finished.release();
+    }
+  };
+
+  @AfterEach
+  void shutdown() {
+    blocked.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Queued shortest path queries from one source share a traversal")
+  void testBatchingAndCoalescing() throws Exception {
+    PathQueryService service = new PathQueryService(new PathFinderSnapshots(pathFinder), executor,
+        Duration.ofSeconds(10));
+    block();
+    List<CompletableFuture<Route>> routes = new ArrayList<>();
+    for (int i = 1; i <= 4; i++) {
+      routes.add(service.findShortestPath(stars[0], stars[i]));
+    }
+    routes.add(service.findShortestPath(stars[0], stars[2]));
+    CompletableFuture<List<Route>> paths = service.findPaths(stars[0], stars[1],
+        PathConstraints.builder().maxStops(4).build());
+    CompletableFuture<List<Route>> samePaths = service.findPaths(stars[0], stars[1],
+        PathConstraints.builder().maxStops(4).build());
+    blocked.countDown();
+
+    for (int i = 1; i <= 4; i++) {
+      assertEquals(pathFinder.findShortestPath(stars[0], stars[i]), routes.get(i - 1).get());
+    }
+    assertEquals(routes.get(1).get(), routes.get(4).get());
+    assertEquals(pathFinder.findPaths(stars[0], stars[1],
+        PathConstraints.builder().maxStops(4).build()), paths.get());
+    assertEquals(paths.get(), samePaths.get());
+    assertEquals(3, service.batchedQueries());
+    assertEquals(2, service.coalescedQueries());
+
+    assertEquals(pathFinder.findShortestPath(stars[5], stars[6]),
+        service.findShortestPath(stars[5], stars[6]).get());
+    Star unknown = Star.builder().id("X").build();
+    ExecutionException failure = assertThrows(ExecutionException.class,
+        () -> service.findShortestPath(stars[0], unknown).get());
+    assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+  }
+
+  @Test
+  @DisplayName("A full queue rejects queries and expired queries are not computed")
+  void testBackpressureAndTimeout() throws Exception {
+    AtomicInteger computed = new AtomicInteger();
+    pathFinder.setQueryListener(stats -> computed.incrementAndGet());
+    PathFinderSnapshots snapshots = new PathFinderSnapshots(pathFinder);
+    PathQueryService service = new PathQueryService(snapshots, executor, Duration.ofMillis(50));
+    block();
+    List<CompletableFuture<Route>> queued = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      queued.add(service.findShortestPath(stars[i], stars[i + 1]));
+    }
+    ExecutionException rejected = assertThrows(ExecutionException.class,
+        () -> service.findShortestPath(stars[10], stars[11]).get());
+    assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+
+    for (CompletableFuture<Route> route : queued) {
+      ExecutionException timedOut = assertThrows(ExecutionException.class, route::get);
+      assertInstanceOf(TimeoutException.class, timedOut.getCause());
+    }
+    blocked.countDown();
+    // the worker finishes the blocking task and drops the four expired queries
+    assertTrue(finished.tryAcquire(5, 10, TimeUnit.SECONDS));
+    assertEquals(0, computed.get());
+    // a query which is actually computed gets the time to finish on a slow machine
+    PathQueryService patient = new PathQueryService(snapshots, executor, Duration.ofSeconds(10));
+    assertEquals(pathFinder.findShortestPath(stars[20], stars[21]),
+        patient.findShortestPath(stars[20], stars[21]).get());
+    assertEquals(2, computed.get());
+  }
+
+  @Test
+  @DisplayName("An identical query joins the computation of a query which has already started")
+  void testCoalescingWhileComputing() throws Exception {
+    CountDownLatch computing = new CountDownLatch(1);
+    CountDownLatch joined = new CountDownLatch(1);
+    // the listener runs on the worker after the search and before the answer
+    pathFinder.setQueryListener(stats -> {
+      computing.countDown();
+      try {
+        joined.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    PathQueryService service = new PathQueryService(new PathFinderSnapshots(pathFinder), executor,
+        Duration.ofSeconds(10));
+    PathConstraints constraints = PathConstraints.builder().maxStops(4).build();
+    CompletableFuture<List<Route>> first = service.findPaths(stars[0], stars[1], constraints);
+    assertTrue(computing.await(10, TimeUnit.SECONDS));
+    CompletableFuture<List<Route>> second = service.findPaths(stars[0], stars[1], constraints);
+    joined.countDown();
+
+    assertEquals(first.get(), second.get());
+    assertEquals(1, service.coalescedQueries());
+    assertTrue(finished.tryAcquire(1, 10, TimeUnit.SECONDS));
+
+    // an answered query is not joined any more
+    service.findPaths(stars[0], stars[1], constraints).get();
+    assertEquals(1, service.coalescedQueries());
+  }
+
+  @Test
+  @DisplayName("Publishers emit routes as they are requested")
+  void testPublisher() throws Exception {
+    PathQueryService service = new PathQueryService(pathFinder);
+    List<Route> expected = pathFinder.streamShortestPaths(stars[0], stars[1]).limit(5)
+        .collect(Collectors.toList());
+    RouteCollector shortest = new RouteCollector();
+    service.publishShortestPaths(stars[0], stars[1]).subscribe(shortest);
+    shortest.subscription.request(2);
+    assertEquals(expected.subList(0, 2), shortest.await(2));
+    shortest.subscription.request(3);
+    assertEquals(expected, shortest.await(5));
+    shortest.subscription.cancel();
+
+    PathConstraints constraints = PathConstraints.builder().maxStops(3).build();
+    RouteCollector all = new RouteCollector();
+    service.publishPaths(stars[0], stars[1], constraints).subscribe(all);
+    all.subscription.request(Long.MAX_VALUE);
+    assertTrue(all.completed.await(10, TimeUnit.SECONDS));
+    assertNull(all.error);
+    assertEquals(pathFinder.streamPaths(stars[0], stars[1], constraints)
+        .collect(Collectors.toList()), all.await(0));
+    service.close();
+  }
+
+  private void block() {
+    executor.execute(() -> {
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+  }
+
+  private static final class RouteCollector implements Flow.Subscriber<Route> {
+
+    private final List<Route> routes = new ArrayList<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+
+    /**
+     * @return the routes received, once there are at least count of them
+     */
+    private synchronized List<Route> await(int count) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (routes.size() < count && System.nanoTime() < deadline) {
+        wait(100);
+      }
+      return List.copyOf(routes);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public synchronized void onNext(Route route) {
+      routes.add(route);
+      notifyAll();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      completed.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed.countDown();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package assignment.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Star;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class StronglyConnectedComponentsTest {
+
+  @Test
+  @DisplayName("Two stars share a component exactly when each one reaches the other")
+  void testComponentsMatchReachability() {
+    for (int degree = 1; degree <= 3; degree++) {
+      Star[] stars = PathFinderTest.randomStars(30);
+      CompiledStarGraph graph = new CompiledStarGraph(
+          PathFinderTest.createRandomGraph(stars, degree, 37 + degree));
+      StronglyConnectedComponents components = StronglyConnectedComponents.of(graph);
+      boolean[][] reaches = reachability(graph);
+      int[] sizes = new int[components.componentCount()];
+      for (int from = 0; from < graph.nodeCount(); from++) {
+        sizes[components.component(from)]++;
+        for (int to = 0; to < graph.nodeCount(); to++) {
+          assertEquals(reaches[from][to] && reaches[to][from],
+              components.component(from) == components.component(to));
+        }
+      }
+      for (int component = 0; component < sizes.length; component++) {
+        assertEquals(sizes[component], components.size(component));
+      }
+    }
+  }
+
+  /**
+   * @return whether every star reaches every other one, by the transitive closure
+   */
+  private static boolean[][] reachability(CompiledStarGraph graph) {
+    int nodeCount = graph.nodeCount();
+    boolean[][] reaches = new boolean[nodeCount][nodeCount];
+    for (int node = 0; node < nodeCount; node++) {
+      reaches[node][node] = true;
+      for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+        reaches[node][graph.target(edge)] = true;
+      }
+    }
+    for (int via = 0; via < nodeCount; via++) {
+      for (int from = 0; from < nodeCount; from++) {
+        for (int to = 0; to < nodeCount; to++) {
+          reaches[from][to] |= reaches[from][via] && reaches[via][to];
+        }
+      }
+    }
+    return reaches;
+  }
+}
@@ -0,0 +1,81 @@
+package assignment.algorithm.datastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompactRouteTest {
+
+  final Star a = Star.builder().id("A").name("Solar System").build();
+  final Star b = Star.builder().id("B").name("Alpha Centauri").build();
+  final Star c = Star.builder().id("C").name("Sirius").build();
+
+  final CompiledStarGraph graph = new CompiledStarGraph(ValueGraphBuilder.directed()
+      .<Star, Integer>immutable()
+      .putEdgeValue(a, b, 5)
+      .putEdgeValue(b, c, 4).build());
+
+  final int[] indexes = {graph.indexOf(a), graph.indexOf(b), graph.indexOf(c)};
+
+  @Test
+  @DisplayName("A route backed by star indexes behaves like a route with a list of stars")
+  void testRouteCompatibility() {
+    Route compact = Route.of(new CompactRoute(graph, indexes, 9));
+    Route listed = Route.builder().path(new LinkedList<>(List.of(a, b, c))).totalTravelTime(9)
+        .build();
+
+    assertEquals(2, compact.getPathStops());
+    assertEquals(1, compact.getIntermediatePathStops());
+    assertEquals(listed, compact);
+    assertEquals(compact, listed);
+    assertEquals(listed.hashCode(), compact.hashCode());
+    assertEquals(listed.toString(), compact.toString());
+    assertEquals(Route.of(new CompactRoute(graph, indexes.clone(), 9)), compact);
+    assertNotEquals(Route.of(new CompactRoute(graph, indexes, 8)), compact);
+
+    LinkedList<Star> path = compact.getPath();
+    assertEquals(List.of(a, b, c), path);
+    assertSame(path, compact.getPath());
+    compact.setPath(new LinkedList<>(List.of(a, b)));
+    assertEquals(1, compact.getPathStops());
+    assertNotEquals(listed, compact);
+  }
+
+  @Test
+  @DisplayName("Changes made through the list of stars are seen by a compact route")
+  void testEditThroughPath() {
+    Route compact = Route.of(new CompactRoute(graph, indexes, 9));
+    Route listed = Route.builder().path(new LinkedList<>(List.of(a, b, c))).totalTravelTime(9)
+        .build();
+
+    compact.getPath().removeLast();
+    assertEquals(1, compact.getPathStops());
+    assertEquals(0, compact.getIntermediatePathStops());
+    assertNotEquals(listed, compact);
+    assertNotEquals(Route.of(new CompactRoute(graph, indexes, 9)), compact);
+    assertEquals(Route.builder().path(new LinkedList<>(List.of(a, b))).totalTravelTime(9).build(),
+        compact);
+    assertEquals(List.of(a, b), compact.copy().getPath());
+
+    compact.getPath().add(c);
+    assertEquals(listed, compact);
+    assertEquals(listed.hashCode(), compact.hashCode());
+    assertEquals(Route.of(new CompactRoute(graph, indexes, 9)), compact);
+  }
+
+  @Test
+  @DisplayName("Stars cache their hash code and stay equal by value")
+  void testStarHash() {
+    Star copy = Star.builder().id("A").name("Solar System").build();
+    assertEquals(a.hashCode(), a.hashCode());
+    assertEquals(a, copy);
+    assertEquals(a.hashCode(), copy.hashCode());
+    assertNotEquals(a, b);
+  }
+}
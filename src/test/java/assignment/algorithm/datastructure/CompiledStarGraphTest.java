@@ -0,0 +1,108 @@
+package assignment.algorithm.datastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.graph.ValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompiledStarGraphTest {
+
+  final Star a = Star.builder().id("A").name("Solar System").build();
+  final Star b = Star.builder().id("B").name("Alpha Centauri").build();
+  final Star c = Star.builder().id("C").name("Sirius").build();
+  final Star x = Star.builder().id("X").name("Unknown").build();
+
+  final ValueGraph<Star, Integer> valueGraph = ValueGraphBuilder.directed()
+      .<Star, Integer>immutable()
+      .putEdgeValue(a, b, 5)
+      .putEdgeValue(a, c, 7)
+      .putEdgeValue(b, c, 4).build();
+
+  final CompiledStarGraph graph = new CompiledStarGraph(valueGraph);
+
+  @Test
+  @DisplayName("Every star gets a dense index and unknown stars are reported as -1")
+  void testIndexes() {
+    assertEquals(3, graph.nodeCount());
+    assertEquals(3, graph.edgeCount());
+    for (Star star : valueGraph.nodes()) {
+      assertEquals(star, graph.star(graph.indexOf(star)));
+    }
+    assertEquals(-1, graph.indexOf(x));
+  }
+
+  @Test
+  @DisplayName("Successors and weights keep the order of the value graph")
+  void testAdjacency() {
+    for (Star star : valueGraph.nodes()) {
+      int node = graph.indexOf(star);
+      List<Star> successors = new ArrayList<>();
+      for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+        Star successor = graph.star(graph.target(edge));
+        successors.add(successor);
+        assertEquals(valueGraph.edgeValue(star, successor).orElseThrow(), graph.weight(edge));
+      }
+      assertEquals(new ArrayList<>(valueGraph.successors(star)), successors);
+    }
+    assertEquals(4, graph.edgeWeight(graph.indexOf(b), graph.indexOf(c)));
+    assertEquals(Integer.MAX_VALUE, graph.edgeWeight(graph.indexOf(c), graph.indexOf(a)));
+  }
+
+  @Test
+  @DisplayName("An undirected edge can be travelled from both of its stars")
+  void testUndirected() {
+    CompiledStarGraph undirected = new CompiledStarGraph(ValueGraphBuilder.undirected()
+        .<Star, Integer>immutable()
+        .putEdgeValue(a, b, 5)
+        .putEdgeValue(b, c, 4).build());
+    assertEquals(4, undirected.edgeCount());
+    assertEquals(5, undirected.edgeWeight(undirected.indexOf(a), undirected.indexOf(b)));
+    assertEquals(5, undirected.edgeWeight(undirected.indexOf(b), undirected.indexOf(a)));
+    assertEquals(4, undirected.edgeWeight(undirected.indexOf(c), undirected.indexOf(b)));
+    assertEquals(Integer.MAX_VALUE,
+        undirected.edgeWeight(undirected.indexOf(a), undirected.indexOf(c)));
+  }
+
+  @Test
+  @DisplayName("The reversed graph has the predecessors as successors")
+  void testReverse() {
+    CompiledStarGraph reverse = graph.reverse();
+    assertEquals(graph.edgeCount(), reverse.edgeCount());
+    assertEquals(7, reverse.edgeWeight(graph.indexOf(c), graph.indexOf(a)));
+    assertEquals(4, reverse.edgeWeight(graph.indexOf(c), graph.indexOf(b)));
+    assertEquals(Integer.MAX_VALUE, reverse.edgeWeight(graph.indexOf(a), graph.indexOf(b)));
+    assertEquals(graph, reverse.reverse());
+  }
+
+  @Test
+  @DisplayName("A copy off the heap has the same stars, edges and version")
+  void testOffHeap() {
+    CompiledStarGraph offHeap = graph.offHeap();
+    assertFalse(graph.isOffHeap());
+    assertTrue(offHeap.isOffHeap());
+    assertSame(offHeap, offHeap.offHeap());
+    assertEquals(graph.version(), offHeap.version());
+    assertEquals(graph.fingerprint(), offHeap.fingerprint());
+    assertEquals(graph.edgeCount(), offHeap.edgeCount());
+    for (int node = 0; node < graph.nodeCount(); node++) {
+      assertEquals(graph.star(node), offHeap.star(node));
+      assertEquals(graph.edgeStart(node), offHeap.edgeStart(node));
+      assertEquals(graph.edgeEnd(node), offHeap.edgeEnd(node));
+    }
+    for (int edge = 0; edge < graph.edgeCount(); edge++) {
+      assertEquals(graph.target(edge), offHeap.target(edge));
+      assertEquals(graph.weight(edge), offHeap.weight(edge));
+    }
+    CompiledStarGraph reverse = offHeap.reverse();
+    assertTrue(reverse.isOffHeap());
+    assertEquals(graph.reverse().fingerprint(), reverse.fingerprint());
+    assertEquals(7, reverse.edgeWeight(graph.indexOf(c), graph.indexOf(a)));
+  }
+}
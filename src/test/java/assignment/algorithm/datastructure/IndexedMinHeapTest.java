@@ -0,0 +1,54 @@
+package assignment.algorithm.datastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class IndexedMinHeapTest {
+
+  @Test
+  @DisplayName("Nodes are polled in priority order after random inserts and decrease-keys")
+  void testPollOrder() {
+    Random random = new Random(42);
+    int capacity = 1_000;
+    int[] priorities = new int[capacity];
+    IndexedMinHeap heap = new IndexedMinHeap(capacity);
+    for (int node = 0; node < capacity; node++) {
+      priorities[node] = random.nextInt(10_000);
+      heap.insert(node, priorities[node]);
+    }
+    for (int i = 0; i < capacity; i++) {
+      int node = random.nextInt(capacity);
+      int lower = priorities[node] - random.nextInt(100);
+      assertEquals(lower < priorities[node], heap.insertOrDecrease(node, lower));
+      priorities[node] = Math.min(priorities[node], lower);
+    }
+
+    int[] expected = priorities.clone();
+    Arrays.sort(expected);
+    for (int i = 0; i < capacity; i++) {
+      int node = heap.pollMin();
+      assertFalse(heap.contains(node));
+      assertEquals(expected[i], priorities[node]);
+    }
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  @DisplayName("Increasing a priority or inserting a node twice is rejected")
+  void testInvalidOperations() {
+    IndexedMinHeap heap = new IndexedMinHeap(2);
+    heap.insert(0, 5);
+    assertThrows(IllegalArgumentException.class, () -> heap.insert(0, 3));
+    assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(0, 7));
+    heap.clear();
+    assertTrue(heap.isEmpty());
+    assertFalse(heap.contains(0));
+  }
+}
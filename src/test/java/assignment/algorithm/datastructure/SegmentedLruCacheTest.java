@@ -0,0 +1,45 @@
+package assignment.algorithm.datastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SegmentedLruCacheTest {
+
+  @Test
+  @DisplayName("Entries hit twice survive a scan of one-off entries")
+  void testProtectedEntriesSurviveScans() {
+    SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(10, 1_000, value -> 1, 1);
+    cache.put(0, "popular");
+    cache.get(0);
+    for (int i = 1; i <= 100; i++) {
+      cache.put(i, "one-off " + i);
+    }
+    assertEquals("popular", cache.get(0));
+    assertNull(cache.get(1));
+    CacheStats stats = cache.stats();
+    assertEquals(10, stats.getSize());
+    assertEquals(91, stats.getEvictions());
+    assertEquals(2, stats.getHits());
+    assertEquals(1, stats.getMisses());
+  }
+
+  @Test
+  @DisplayName("The total weight of the entries stays within the bound")
+  void testWeightBound() {
+    SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(100, 20,
+        String::length, 1);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, "12345");
+    }
+    assertTrue(cache.stats().getWeight() <= 20);
+    assertEquals(4, cache.stats().getSize());
+    cache.put(100, "this value is heavier than the whole cache");
+    assertNull(cache.get(100));
+    cache.invalidateAll();
+    assertEquals(0, cache.stats().getSize());
+  }
+}
@@ -0,0 +1,120 @@
+package assignment.algorithm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryGraphFormatTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("A written graph is loaded back with the same stars and edges")
+  void testRoundTrip() throws IOException {
+    Random random = new Random(5);
+    MutableValueGraph<Star, Integer> valueGraph = ValueGraphBuilder.directed()
+        .allowsSelfLoops(true).build();
+    Star[] stars = new Star[50];
+    for (int i = 0; i < stars.length; i++) {
+      stars[i] = Star.builder().id("S" + i).name(i % 7 == 0 ? null : "Stär " + i).build();
+      valueGraph.addNode(stars[i]);
+    }
+    for (int i = 0; i < 400; i++) {
+      valueGraph.putEdgeValue(stars[random.nextInt(50)], stars[random.nextInt(50)],
+          random.nextInt(100) - 10);
+    }
+    CompiledStarGraph graph = new CompiledStarGraph(valueGraph);
+    Path file = directory.resolve("graph.bin");
+    BinaryGraphFormat.write(graph, file);
+
+    CompiledStarGraph loaded = BinaryGraphFormat.load(file);
+    assertEquals(graph.fingerprint(), loaded.fingerprint());
+
+    // stars known to the interner are reused
+    StarInterner interner = new StarInterner();
+    interner.intern(stars[3]);
+    CompiledStarGraph shared = BinaryGraphFormat.read(file, interner).compile(interner);
+    assertSame(stars[3], shared.star(0));
+    assertEquals(graph.edgeCount(), shared.edgeCount());
+  }
+
+  @Test
+  @DisplayName("Converted text files keep every edge, and all loaders agree on self-loops")
+  void testConvertText() throws IOException {
+    Random random = new Random(9);
+    StringBuilder text = new StringBuilder("AA3, ");
+    // more edges than one block of the reader, with repeats and edges from a star to itself
+    for (int i = 0; i < 10_000; i++) {
+      text.append((char) ('A' + random.nextInt(20))).append((char) ('A' + random.nextInt(20)))
+          .append(1 + random.nextInt(50)).append(", ");
+    }
+    Path textFile = Files.writeString(directory.resolve("graph.txt"), text);
+    StarInterner stars = new StarInterner();
+    EdgeList edges;
+    try (Reader reader = Files.newBufferedReader(textFile)) {
+      edges = EdgeListFormat.read(reader, stars);
+    }
+    Path file = directory.resolve("graph.bin");
+    BinaryGraphFormat.write(edges, stars, file);
+
+    StarInterner loadedStars = new StarInterner();
+    EdgeList loaded = BinaryGraphFormat.read(file, loadedStars);
+    assertEquals(edges.size(), loaded.size());
+    CompiledStarGraph graph = EdgeListFormat.load(textFile);
+    assertEquals(graph.fingerprint(), loaded.compile(loadedStars).fingerprint());
+    // a value graph does not keep the order of the successors, only the edges are compared
+    CompiledStarGraph viaValueGraph = new CompiledStarGraph(loaded.toValueGraph(loadedStars));
+    assertEquals(graph.edgeCount(), viaValueGraph.edgeCount());
+    for (int node = 0; node < graph.nodeCount(); node++) {
+      for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+        assertEquals(graph.weight(edge), viaValueGraph.edgeWeight(node, graph.target(edge)));
+      }
+    }
+    int self = graph.indexOf(stars.star(0));
+    assertNotEquals(Integer.MAX_VALUE, graph.edgeWeight(self, self));
+  }
+
+  @Test
+  @DisplayName("Files in other formats are rejected")
+  void testInvalidFile() throws IOException {
+    Path file = Files.writeString(directory.resolve("graph.txt"),
+        "AB5, BC4, CD8, DC8, DE6, AD5, CE2, EB3, AE7");
+    assertThrows(IllegalArgumentException.class, () -> BinaryGraphFormat.load(file));
+  }
+
+  @Test
+  @DisplayName("A star table with a corrupt length is rejected as truncated")
+  void testCorruptStarTable() throws IOException {
+    MutableValueGraph<Star, Integer> valueGraph = ValueGraphBuilder.directed().build();
+    valueGraph.putEdgeValue(Star.builder().id("A").name("Alpha").build(),
+        Star.builder().id("B").name("Beta").build(), 5);
+    Path file = directory.resolve("graph.bin");
+    BinaryGraphFormat.write(new CompiledStarGraph(valueGraph), file);
+    byte[] bytes = Files.readAllBytes(file);
+
+    // the length of the id of the first star follows the 24 bytes of the header
+    for (int length : new int[]{-7, 1 << 20}) {
+      ByteBuffer.wrap(bytes).putInt(24, length);
+      Files.write(file, bytes);
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+          () -> BinaryGraphFormat.load(file));
+      assertEquals(file + " is truncated", e.getMessage());
+    }
+  }
+}
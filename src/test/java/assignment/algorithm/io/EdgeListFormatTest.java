@@ -0,0 +1,62 @@
+package assignment.algorithm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ValueGraph;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class EdgeListFormatTest {
+
+  final Star a = Star.builder().id("A").name("Solar System").build();
+  final Star c = Star.builder().id("C").name("Sirius").build();
+
+  @Test
+  @DisplayName("The text edge list loads into the same graph as the value graph built by hand")
+  void testRead() throws IOException {
+    StarInterner stars = new StarInterner();
+    stars.intern(a);
+    stars.intern(c);
+    EdgeList edges = EdgeListFormat.read(
+        new StringReader("AB5, BC4, CD8, DC8, DE6, AD5, CE2, EB3, AE7"), stars);
+    assertEquals(9, edges.size());
+
+    CompiledStarGraph graph = edges.compile(stars);
+    ValueGraph<Star, Integer> valueGraph = edges.toValueGraph(stars);
+    assertEquals(5, graph.nodeCount());
+    assertEquals(9, graph.edgeCount());
+    for (Star from : valueGraph.nodes()) {
+      for (Star to : valueGraph.successors(from)) {
+        assertEquals(valueGraph.edgeValue(from, to).orElseThrow(),
+            graph.edgeWeight(graph.indexOf(from), graph.indexOf(to)));
+      }
+    }
+    assertSame(a, graph.star(graph.indexOf(a)));
+    assertEquals(9, new PathFinder(graph).findShortestPath(a, c).getTotalTravelTime());
+  }
+
+  @Test
+  @DisplayName("Repeated edges keep the last travel time and malformed edges are rejected")
+  void testEdgeCases() throws IOException {
+    StarInterner stars = new StarInterner();
+    CompiledStarGraph graph = EdgeListFormat.read(
+        new StringReader("AB5,BC-4\n AB12 "), stars).compile(stars);
+    assertEquals(2, graph.edgeCount());
+    assertEquals(12, graph.edgeWeight(0, 1));
+    assertEquals(-4, graph.edgeWeight(1, 2));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> EdgeListFormat.read(new StringReader("AB5, B4"), new StarInterner()));
+    assertThrows(IllegalArgumentException.class,
+        () -> EdgeListFormat.read(new StringReader("AB, BC4"), new StarInterner()));
+    assertThrows(IllegalArgumentException.class,
+        () -> EdgeListFormat.read(new StringReader("AB99999999999"), new StarInterner()));
+  }
+}
@@ -0,0 +1,38 @@
+package assignment.algorithm.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  @DisplayName("Buckets cover every value without gaps")
+  void testBuckets() {
+    for (long value = 0; value < 100_000; value++) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertTrue(LatencyHistogram.lowestValue(bucket) <= value);
+      assertTrue(value < LatencyHistogram.lowestValue(bucket + 1));
+    }
+    int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+    assertEquals(last, LatencyHistogram.bucket(LatencyHistogram.lowestValue(last)));
+  }
+
+  @Test
+  @DisplayName("Percentiles are reported within the precision of the buckets")
+  void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 10_000; value++) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(10_000, histogram.count());
+    assertEquals(5_000_500, histogram.mean(), 1);
+    for (double percentile : new double[]{50, 90, 99, 99.9, 100}) {
+      double expected = percentile * 100_000;
+      assertEquals(expected, histogram.valueAtPercentile(percentile), expected / 64);
+    }
+    assertEquals(0, new LatencyHistogram().valueAtPercentile(99));
+  }
+}
@@ -0,0 +1,91 @@
+package assignment.algorithm.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.datastructure.PathConstraints;
+import assignment.algorithm.datastructure.QueryType;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.ValueGraphBuilder;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PathFinderMetricsTest {
+
+  final Star a = Star.builder().id("A").name("Solar System").build();
+  final Star b = Star.builder().id("B").name("Alpha Centauri").build();
+  final Star c = Star.builder().id("C").name("Sirius").build();
+  final Star d = Star.builder().id("D").name("Betelgeuse").build();
+  final Star e = Star.builder().id("E").name("Vega").build();
+
+  final PathFinder pathFinder = new PathFinder(ValueGraphBuilder.directed()
+      .<Star, Integer>immutable()
+      .putEdgeValue(a, b, 5)
+      .putEdgeValue(b, c, 4)
+      .putEdgeValue(c, d, 8)
+      .putEdgeValue(d, c, 8)
+      .putEdgeValue(d, e, 6)
+      .putEdgeValue(a, d, 5)
+      .putEdgeValue(c, e, 2)
+      .putEdgeValue(e, b, 3)
+      .putEdgeValue(a, e, 7).build());
+
+  @Test
+  @DisplayName("Every query reports the work it has done")
+  void testQueryStats() {
+    List<QueryStats> reported = new ArrayList<>();
+    pathFinder.setQueryListener(reported::add);
+
+    List<Route> routes = pathFinder.findPaths(c, c,
+        PathConstraints.builder().maxTravelTime(15).build());
+    Route shortest = pathFinder.findShortestPath(a, c);
+    pathFinder.findShortestPathInCycle(b, b);
+    pathFinder.setQueryListener(null);
+    pathFinder.findShortestPath(a, c);
+
+    assertEquals(3, reported.size());
+    QueryStats paths = reported.get(0);
+    assertEquals(QueryType.FIND_PATHS, paths.getType());
+    assertEquals(routes.size(), paths.getRoutesEmitted());
+    assertTrue(paths.getRoutesPruned() > 0);
+    assertTrue(paths.getEdgesRelaxed() >= paths.getNodesExpanded());
+    assertEquals(0, paths.getHeapOperations());
+
+    QueryStats shortestPath = reported.get(1);
+    assertEquals(QueryType.SHORTEST_PATH, shortestPath.getType());
+    assertEquals(1, shortestPath.getRoutesEmitted());
+    assertTrue(shortestPath.getNodesExpanded() >= shortest.getPathStops());
+    assertTrue(shortestPath.getHeapOperations() >= shortestPath.getNodesExpanded());
+    assertEquals(QueryType.SHORTEST_CYCLE, reported.get(2).getType());
+  }
+
+  @Test
+  @DisplayName("The aggregated metrics are published through JMX")
+  void testJmx() throws Exception {
+    PathFinderMetrics metrics = new PathFinderMetrics();
+    pathFinder.setQueryListener(metrics);
+    for (int i = 0; i < 10; i++) {
+      pathFinder.findShortestPath(a, c);
+    }
+    pathFinder.findPath(a, c);
+    ObjectName name = metrics.register("test");
+    try {
+      assertEquals(11L,
+          ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Queries"));
+      assertEquals(10, metrics.latencies(QueryType.SHORTEST_PATH).count());
+      assertTrue(metrics.latencyPercentile("SHORTEST_PATH", 99) > 0);
+      assertThrows(IllegalStateException.class, () -> metrics.register("test"));
+      metrics.reset();
+      assertEquals(0, metrics.getQueries());
+    } finally {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+  }
+}
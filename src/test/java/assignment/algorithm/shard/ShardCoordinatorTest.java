@@ -0,0 +1,286 @@
+package assignment.algorithm.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import assignment.algorithm.PathFinder;
+import assignment.algorithm.PathFinderTest;
+import assignment.algorithm.datastructure.CompiledStarGraph;
+import assignment.algorithm.datastructure.Route;
+import assignment.algorithm.datastructure.Star;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardCoordinatorTest {
+
+  @TempDir
+  Path directory;
+
+  private final Star a = PathFinderTest.SAMPLE_STARS[0];
+  private final Star b = PathFinderTest.SAMPLE_STARS[1];
+  private final Star c = PathFinderTest.SAMPLE_STARS[2];
+  private final Star d = PathFinderTest.SAMPLE_STARS[3];
+  private final Star e = PathFinderTest.SAMPLE_STARS[4];
+
+  @Test
+  @DisplayName("Routes across shards are stitched from the routes inside the shards")
+  void testSampleRoute() {
+    ValueGraph<Star, Integer> graph = PathFinderTest.createGraph();
+    Partition partition = GraphPartitioner.partition(graph, 3);
+    assertEquals(3, partition.shardCount());
+    AtomicInteger calls = new AtomicInteger();
+    ShardTransport transport = InProcessTransport.of(partition);
+    ShardCoordinator coordinator = new ShardCoordinator(partition, (shard, request) -> {
+      calls.incrementAndGet();
+      return transport.call(shard, request);
+    });
+    assertEquals(3, calls.get());
+
+    Route route = coordinator.findShortestPath(a, c);
+    assertEquals(List.of(a, b, c), route.getPath());
+    assertEquals(9, route.getTotalTravelTime());
+    assertEquals(List.of(d, e, b), coordinator.findShortestPath(d, b).getPath());
+    assertEquals(List.of(c), coordinator.findShortestPath(c, c).getPath());
+    assertNull(coordinator.findShortestPath(b, a));
+
+    calls.set(0);
+    assertEquals(7, coordinator.distance(a, e));
+    assertEquals(7, coordinator.distance(e, c));
+    // the travel time takes one call to the shard of each star
+    assertEquals(4, calls.get());
+    assertEquals(ShardCoordinator.UNREACHABLE, coordinator.distance(e, a));
+    Star unknown = Star.builder().id("X").build();
+    assertThrows(IllegalArgumentException.class, () -> coordinator.findShortestPath(a, unknown));
+  }
+
+  @Test
+  @DisplayName("Sharded queries find routes as short as the routes of a single node")
+  void testRoutesMatchSingleNode() {
+    Star[] stars = PathFinderTest.randomStars(300);
+    ValueGraph<Star, Integer> graph = PathFinderTest.createRandomGraph(stars, 2, 23);
+    PathFinder pathFinder = new PathFinder(graph);
+    for (int shardCount : new int[]{1, 4, 7}) {
+      Partition partition = GraphPartitioner.partition(graph, shardCount);
+      int stored = 0;
+      for (int shard = 0; shard < shardCount; shard++) {
+        ShardGraph shardGraph = partition.shard(shard);
+        assertTrue(shardGraph.size() <= (stars.length + shardCount - 1) / shardCount);
+        for (int local = 0; local < shardGraph.size(); local++) {
+          assertEquals(shard, partition.shardOf(shardGraph.global(local)));
+          assertEquals(local, shardGraph.local(shardGraph.global(local)));
+        }
+        stored += shardGraph.graph().edgeCount();
+      }
+      assertEquals(graph.edges().size(), stored + partition.cutEdgeCount());
+
+      ShardCoordinator coordinator = new ShardCoordinator(partition,
+          InProcessTransport.of(partition));
+      Random random = new Random(shardCount);
+      for (int i = 0; i < 200; i++) {
+        Star source = stars[random.nextInt(stars.length)];
+        Star target = stars[random.nextInt(stars.length)];
+        Route expected = pathFinder.findShortestPath(source, target);
+        Route route = coordinator.findShortestPath(source, target);
+        if (expected == null) {
+          assertNull(route);
+          continue;
+        }
+        assertEquals(expected, route);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Highways of an undirected graph are sharded in both directions")
+  void testUndirectedGraph() {
+    Star[] stars = PathFinderTest.randomStars(120);
+    MutableValueGraph<Star, Integer> graph = ValueGraphBuilder.undirected().allowsSelfLoops(true)
+        .build();
+    for (Star star : stars) {
+      graph.addNode(star);
+    }
+    Random random = new Random(41);
+    for (int i = 0; i < 2 * stars.length; i++) {
+      graph.putEdgeValue(stars[random.nextInt(stars.length)], stars[random.nextInt(stars.length)],
+          1 + random.nextInt(10));
+    }
+    graph.putEdgeValue(stars[0], stars[0], 3);
+    PathFinder pathFinder = new PathFinder(graph);
+    Partition partition = GraphPartitioner.partition(graph, 4);
+    int stored = 0;
+    for (int shard = 0; shard < partition.shardCount(); shard++) {
+      stored += partition.shard(shard).graph().edgeCount();
+    }
+    // every highway but the self-loops becomes two edges
+    long selfLoops = graph.edges().stream().filter(pair -> pair.nodeU().equals(pair.nodeV()))
+        .count();
+    assertEquals(2 * graph.edges().size() - selfLoops, stored + partition.cutEdgeCount());
+
+    ShardCoordinator coordinator = new ShardCoordinator(partition,
+        InProcessTransport.of(partition));
+    for (int i = 0; i < stars.length; i += 3) {
+      for (int j = 0; j < stars.length; j += 5) {
+        assertEquals(pathFinder.findShortestPath(stars[i], stars[j]),
+            coordinator.findShortestPath(stars[i], stars[j]));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Graphs with negative travel times and malformed requests are rejected")
+  void testRejections() {
+    ValueGraph<Star, Integer> graph = ValueGraphBuilder.directed()
+        .<Star, Integer>immutable()
+        .putEdgeValue(a, b, 5)
+        .putEdgeValue(b, c, -4).build();
+    assertThrows(IllegalArgumentException.class, () -> GraphPartitioner.partition(graph, 2));
+    assertThrows(IllegalArgumentException.class, () -> GraphPartitioner.partition(
+        ValueGraphBuilder.directed().<Star, Integer>immutable().putEdgeValue(a, b, 0).build(), 1));
+
+    Partition partition = GraphPartitioner.partition(ValueGraphBuilder.directed()
+        .<Star, Integer>immutable()
+        .putEdgeValue(a, b, 5).build(), 2);
+    assertThrows(IllegalArgumentException.class, () -> GraphPartitioner.partition(graph, 0));
+    ShardNode node = new ShardNode(partition.shard(0));
+    assertThrows(IllegalArgumentException.class, () -> node.handle(new byte[3]));
+    assertThrows(IllegalArgumentException.class,
+        () -> node.handle(ShardProtocol.encode(ShardProtocol.ROUTE, 0)));
+    assertThrows(IllegalArgumentException.class,
+        () -> node.handle(ShardProtocol.encode(ShardProtocol.ROUTE, 0, 1)));
+    int other = partition.shard(1).global(0);
+    assertThrows(IllegalArgumentException.class,
+        () -> node.handle(ShardProtocol.encode(ShardProtocol.ROUTE, other, 0)));
+  }
+
+  @Test
+  @DisplayName("Shards serve the coordinator over sockets as they do in process")
+  void testSocketTransport() throws IOException {
+    Star[] stars = PathFinderTest.randomStars(100);
+    ValueGraph<Star, Integer> graph = PathFinderTest.createRandomGraph(stars, 2, 29);
+    Partition partition = GraphPartitioner.partition(graph, 3);
+    List<ShardServer> servers = new ArrayList<>();
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    try {
+      for (int shard = 0; shard < partition.shardCount(); shard++) {
+        servers.add(ShardServer.start(new ShardNode(partition.shard(shard)), 0));
+        addresses.add(servers.get(shard).address());
+      }
+      try (SocketTransport transport = new SocketTransport(addresses)) {
+        ShardCoordinator remote = new ShardCoordinator(partition, transport);
+        ShardCoordinator local = new ShardCoordinator(partition, InProcessTransport.of(partition));
+        for (int i = 0; i < stars.length; i += 3) {
+          for (int j = 0; j < stars.length; j += 7) {
+            assertEquals(local.findShortestPath(stars[i], stars[j]),
+                remote.findShortestPath(stars[i], stars[j]));
+          }
+        }
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+            () -> transport.call(0, new byte[3]));
+        assertTrue(rejected.getMessage().contains("3 bytes"));
+        // the connection survives a rejected request
+        assertEquals(local.distance(stars[0], stars[1]), remote.distance(stars[0], stars[1]));
+
+        servers.get(0).close();
+        assertThrows(UncheckedIOException.class,
+            () -> transport.call(0, ShardProtocol.encode(ShardProtocol.BOUNDARY)));
+      }
+    } finally {
+      for (ShardServer server : servers) {
+        server.close();
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("A shard which fails on a request answers with the failure and keeps serving")
+  void testShardFailure() throws IOException {
+    // the route from A to B runs through C, which the broken shard has no index in the graph for
+    CompiledStarGraph graph = new CompiledStarGraph(new Star[]{a, b, c}, new int[]{0, 2},
+        new int[]{2, 1}, new int[]{1, 1}, 2);
+    ShardGraph broken = new ShardGraph(0, new int[]{0, 1}, graph, new int[0]);
+    try (ShardServer server = ShardServer.start(new ShardNode(broken), 0);
+        SocketTransport transport = new SocketTransport(List.of(server.address()))) {
+      IllegalStateException failed = assertThrows(IllegalStateException.class,
+          () -> transport.call(0, ShardProtocol.encode(ShardProtocol.ROUTE, 1, 1, 0, 0)));
+      assertTrue(failed.getMessage().contains("ArrayIndexOutOfBoundsException"));
+      assertEquals(0, ShardProtocol.decode(
+          transport.call(0, ShardProtocol.encode(ShardProtocol.BOUNDARY)))[0]);
+    }
+  }
+
+  @Test
+  @DisplayName("Shards written to files are served by launchers in processes of their own")
+  void testShardProcesses() throws IOException {
+    Star[] stars = PathFinderTest.randomStars(100);
+    ValueGraph<Star, Integer> graph = PathFinderTest.createRandomGraph(stars, 2, 47);
+    Partition partition = GraphPartitioner.partition(graph, 3);
+    partition.writeShards(directory);
+    for (int shard = 0; shard < partition.shardCount(); shard++) {
+      ShardGraph loaded = ShardGraph.load(directory, shard);
+      assertEquals(partition.shard(shard).graph().fingerprint(), loaded.graph().fingerprint());
+      assertEquals(partition.shard(shard).boundaryCount(), loaded.boundaryCount());
+    }
+    // the table of a shard does not fit the graph of another
+    Files.copy(directory.resolve("shard-1.graph"), directory.resolve("shard-0.graph"),
+        StandardCopyOption.REPLACE_EXISTING);
+    assertThrows(IllegalArgumentException.class, () -> ShardGraph.load(directory, 0));
+    partition.shard(0).write(directory);
+
+    Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+    List<Process> processes = new ArrayList<>();
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    try {
+      for (int shard = 0; shard < partition.shardCount(); shard++) {
+        Process process = new ProcessBuilder(java.toString(), "-cp",
+            System.getProperty("java.class.path"), ShardLauncher.class.getName(),
+            directory.toString(), String.valueOf(shard))
+            .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        processes.add(process);
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+            StandardCharsets.UTF_8));
+        String line;
+        do {
+          line = out.readLine();
+          assertNotNull(line, "shard " + shard + " ended before it listened");
+        } while (!line.startsWith("listening on "));
+        String address = line.substring("listening on ".length());
+        int colon = address.lastIndexOf(':');
+        addresses.add(new InetSocketAddress(address.substring(0, colon),
+            Integer.parseInt(address.substring(colon + 1))));
+      }
+      try (SocketTransport transport = new SocketTransport(addresses)) {
+        ShardCoordinator remote = new ShardCoordinator(partition, transport);
+        ShardCoordinator local = new ShardCoordinator(partition, InProcessTransport.of(partition));
+        for (int i = 0; i < stars.length; i += 7) {
+          for (int j = 0; j < stars.length; j += 3) {
+            assertEquals(local.findShortestPath(stars[i], stars[j]),
+                remote.findShortestPath(stars[i], stars[j]));
+          }
+        }
+      }
+    } finally {
+      processes.forEach(Process::destroy);
+    }
+  }
+}